@@ -0,0 +1,36 @@
+package esfe;
+
+import org.openjdk.jmh.Main;                            // Main de JMH, para la ayuda y los listados.
+import org.openjdk.jmh.results.format.ResultFormatType; // Formato de los resultados.
+import org.openjdk.jmh.runner.Runner;                   // Ejecuta los benchmarks.
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder; // Opciones a partir de las de la línea de comandos.
+import org.openjdk.jmh.runner.options.CommandLineOptions;    // Opciones estándar de JMH (-f, -wi, -i, -rf, -rff...).
+import org.openjdk.jmh.runner.options.OptionsBuilder;        // Construye las opciones de ejecución.
+
+/**
+ * Punto de entrada de {@code benchmarks.jar}. Acepta las mismas opciones que el main de JMH
+ * ({@code -h} las lista) y, si no se indica otra cosa, escribe los resultados en JSON en
+ * {@code jmh-result.json}, de modo que puedan compararse entre versiones o con herramientas
+ * como JMH Visualizer.
+ */
+public final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams() || cli.shouldListProfilers()
+                || cli.shouldListResultFormats()) {
+            Main.main(args); // Ayuda y listados: sin cambios respecto de JMH.
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            options.result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
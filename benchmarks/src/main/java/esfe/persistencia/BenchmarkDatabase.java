@@ -0,0 +1,98 @@
+package esfe.persistencia;
+
+import esfe.utils.PasswordHasher; // Hash de la contraseña común de los usuarios sembrados.
+
+import java.sql.Connection;        // Conexión usada para crear el esquema y sembrar datos.
+import java.sql.PreparedStatement; // Inserciones por lotes.
+import java.sql.SQLException;      // Errores de la base de datos.
+
+/**
+ * Base de datos de los benchmarks: por defecto la H2 en memoria de {@link EmbeddedDatabase},
+ * dentro del mismo proceso, de modo que los benchmarks no dependen de un servidor ni de la red y
+ * miden el código de la aplicación (pool, caché de sentencias, DAO) y no la latencia de un servidor
+ * remoto.
+ *
+ * Si se indica {@code -Desfe.db.url}, se usa esa base de datos (por ejemplo un MySQL de pruebas,
+ * para comparar); el esquema se crea igualmente si no existe.
+ */
+public final class BenchmarkDatabase {
+    private static boolean started;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Apunta el {@link ConnectionManager} a la base de datos de los benchmarks y crea las tablas.
+     * Debe llamarse antes de crear cualquier DAO; las llamadas siguientes no hacen nada.
+     *
+     * @throws SQLException Si no se puede crear el esquema.
+     */
+    public static synchronized void start() throws SQLException {
+        if (started) {
+            return;
+        }
+        if (System.getProperty("esfe.db.url") == null) {
+            System.setProperty("esfe.db.url", EmbeddedDatabase.URL);
+        }
+        // La base de datos embebida ya crea su esquema al iniciar el pool; otra base de datos no.
+        try (Connection connection = ConnectionManager.getInstance().connect()) {
+            EmbeddedDatabase.createSchema(connection);
+        }
+        started = true;
+    }
+
+    /**
+     * Inserta usuarios activos llamados {@code "Usuario <n>"} con email {@code usuario<n>@example.com},
+     * todos con la misma contraseña. El hash se calcula una sola vez: calcular uno por usuario con
+     * el costo real de PBKDF2 tardaría minutos y no es lo que se mide.
+     *
+     * @param count    El número de usuarios.
+     * @param password La contraseña de todos ellos.
+     * @throws SQLException Si ocurre un error al insertar.
+     */
+    public static void seedUsers(int count, String password) throws SQLException {
+        String hash = PasswordHasher.hashPassword(password);
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO Users (name, passwordHash, email, status) VALUES (?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= count; i++) {
+                ps.setString(1, "Usuario " + i);
+                ps.setString(2, hash);
+                ps.setString(3, "usuario" + i + "@example.com");
+                ps.setByte(4, (byte) 1);
+                ps.addBatch();
+                if (i % 1_000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            connection.commit();
+        }
+    }
+
+    /**
+     * Inserta herramientas llamadas {@code "Herramienta <n>"}.
+     *
+     * @param count El número de herramientas.
+     * @throws SQLException Si ocurre un error al insertar.
+     */
+    public static void seedHerramientas(int count) throws SQLException {
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO Herramientas (nombre, tipo, uso_principal) VALUES (?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= count; i++) {
+                ps.setString(1, "Herramienta " + i);
+                ps.setString(2, i % 2 == 0 ? "Manual" : "Eléctrica");
+                ps.setString(3, "Uso " + i);
+                ps.addBatch();
+                if (i % 1_000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package esfe.persistencia;
+
+import esfe.dominio.Herramienta;                    // Herramientas buscadas.
+import org.openjdk.jmh.annotations.*;               // Anotaciones de JMH que describen el benchmark.
+
+import java.sql.SQLException;                       // Errores de la base de datos.
+import java.util.ArrayList;                         // Resultado de la búsqueda completa.
+import java.util.concurrent.ThreadLocalRandom;      // Elige el término de cada búsqueda.
+import java.util.concurrent.TimeUnit;               // Unidad de las mediciones.
+
+/**
+ * Mide las búsquedas de {@link HerramientaDAO} contra la base de datos embebida, sembrada con
+ * {@code herramientas} filas:
+ *
+ * <ul>
+ *     <li>{@code searchCached}: siempre el mismo término, respondido por {@link HerramientaCache}.</li>
+ *     <li>{@code searchUncached}: un término distinto en cada llamada entre muchos más que el tamaño
+ *     de la caché, por lo que casi siempre consulta la base de datos.</li>
+ *     <li>{@code searchPage}: primera página (200 filas) de una búsqueda amplia, que no usa la caché.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HerramientaDAOBenchmark {
+    @Param({"10000"})
+    private int herramientas;
+
+    private HerramientaDAO dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.start();
+        BenchmarkDatabase.seedHerramientas(herramientas);
+        dao = new HerramientaDAO();
+    }
+
+    @Benchmark
+    public ArrayList<Herramienta> searchCached() throws SQLException {
+        return dao.search("Herramienta 12");
+    }
+
+    @Benchmark
+    public ArrayList<Herramienta> searchUncached() throws SQLException {
+        return dao.search("Herramienta " + ThreadLocalRandom.current().nextInt(1, herramientas + 1));
+    }
+
+    @Benchmark
+    public Page<Herramienta> searchPage() throws SQLException {
+        return dao.search("Herramienta", 0, 200);
+    }
+}
@@ -0,0 +1,295 @@
+package esfe.persistencia;
+
+import esfe.dominio.User;                            // Usuarios sintéticos de la prueba.
+
+import java.sql.SQLException;                        // Errores de la base de datos.
+import java.util.ArrayList;                          // Usuarios sembrados y escenarios.
+import java.util.Iterator;                           // Genera los usuarios a sembrar sin guardarlos todos.
+import java.util.List;                               // Escenarios de la prueba.
+import java.util.Locale;                             // Formato de los números del informe.
+import java.util.concurrent.ExecutorService;         // Ejecuta cada operación en su propio hilo virtual.
+import java.util.concurrent.Executors;               // Crea el ejecutor de hilos virtuales.
+import java.util.concurrent.Semaphore;               // Limita las operaciones en curso.
+import java.util.concurrent.ThreadLocalRandom;       // Elige el usuario de cada operación.
+import java.util.concurrent.TimeUnit;                // Conversión de unidades de tiempo.
+import java.util.concurrent.atomic.LongAdder;        // Errores de cada escenario.
+import java.util.concurrent.locks.LockSupport;       // Espera hasta el instante previsto de cada operación.
+
+/**
+ * Prueba de carga sin interfaz gráfica de los inicios de sesión. Siembra {@code users} usuarios
+ * sintéticos con {@link UserDAO#importUsers(Iterator, int)} y ejecuta {@code authenticate},
+ * {@code search} (primera página) y {@code updatePassword} a la tasa de llegada indicada para
+ * cada una, cada operación en su propio hilo virtual.
+ *
+ * La carga es de modelo abierto: las operaciones llegan a intervalos fijos aunque las anteriores no
+ * hayan terminado, como llegan los usuarios reales, y la latencia se mide desde el instante en que
+ * debía empezar cada operación. Así, si la aplicación se satura, la espera en la cola aparece en los
+ * percentiles en lugar de esconderse bajando la tasa (omisión coordinada). El número de
+ * operaciones en curso se limita a {@code concurrency}; las demás esperan su turno.
+ *
+ * Cada {@code reportSeconds} se informa, por operación, el rendimiento, los percentiles 50, 99 y
+ * 99,9 y la tasa de errores del intervalo; al terminar, los del total. Si algún total incumple los
+ * objetivos (SLO) el proceso termina con el código 1, para que la prueba pueda fallar un pipeline.
+ *
+ * Los intentos rechazados por {@link LoginThrottle} no son errores de la aplicación sino su
+ * protección funcionando: se cuentan aparte (columna "limitados") y no entran en los percentiles
+ * ni en la tasa de errores, que así miden solo las operaciones que llegaron a la base de datos.
+ * Si aparecen muchos, hay pocos usuarios para la tasa de {@code authenticate}: cada email recibe
+ * más intentos de los que el límite por email permite.
+ *
+ * Configuración (propiedades del sistema, todas opcionales):
+ * <ul>
+ *     <li>{@code esfe.load.users} (1000), {@code esfe.load.seconds} (60),
+ *     {@code esfe.load.reportSeconds} (10), {@code esfe.load.concurrency} (256).</li>
+ *     <li>{@code esfe.load.rate.authenticate} (50), {@code esfe.load.rate.search} (20) y
+ *     {@code esfe.load.rate.updatePassword} (2): operaciones por segundo; 0 desactiva la operación.</li>
+ *     <li>{@code esfe.load.slo.p99Millis} (500), {@code esfe.load.slo.p999Millis} (1000) y
+ *     {@code esfe.load.slo.errorRate} (0.01), ajustables por operación con
+ *     {@code esfe.load.slo.<operación>.p99Millis}, etc.</li>
+ * </ul>
+ *
+ * Usa la base de datos de {@link BenchmarkDatabase}: la H2 embebida o, con {@code -Desfe.db.url}, un
+ * MySQL local. El costo de PBKDF2 ({@code esfe.hash.iterations}) y el tamaño del pool
+ * ({@code esfe.pool.maxSize}) son los de la aplicación, y son los que determinan el resultado:
+ * <pre>
+ * java -Desfe.load.rate.authenticate=100 -Desfe.pool.maxSize=20 -cp benchmarks/target/benchmarks.jar esfe.persistencia.LoadTest
+ * </pre>
+ */
+public final class LoadTest {
+    private static final String PASSWORD = "load-test-password";
+
+    /**
+     * Una operación de la prueba.
+     */
+    @FunctionalInterface
+    private interface Action {
+        /**
+         * @param random Generador del hilo.
+         * @return false si la operación terminó sin lanzar una excepción pero con un resultado incorrecto.
+         * @throws Exception Si la operación falla.
+         */
+        boolean run(ThreadLocalRandom random) throws Exception;
+    }
+
+    /**
+     * Una operación con su tasa de llegada, sus objetivos y sus mediciones.
+     */
+    private static final class Scenario {
+        final String name;
+        final double ratePerSecond;
+        final Action action;
+        final double sloP99Millis;
+        final double sloP999Millis;
+        final double sloErrorRate;
+        final LatencyHistogram interval = new LatencyHistogram(); // Se vacía en cada informe.
+        final LatencyHistogram total = new LatencyHistogram();
+        final LongAdder intervalErrors = new LongAdder();
+        final LongAdder totalErrors = new LongAdder();
+        final LongAdder intervalThrottled = new LongAdder(); // Rechazados por LoginThrottle: ni errores ni latencias.
+        final LongAdder totalThrottled = new LongAdder();
+
+        Scenario(String name, Action action) {
+            this.name = name;
+            this.action = action;
+            this.ratePerSecond = Double.parseDouble(System.getProperty("esfe.load.rate." + name, defaultRate(name)));
+            this.sloP99Millis = slo(name, "p99Millis", "500");
+            this.sloP999Millis = slo(name, "p999Millis", "1000");
+            this.sloErrorRate = slo(name, "errorRate", "0.01");
+        }
+
+        private static String defaultRate(String name) {
+            return switch (name) {
+                case "authenticate" -> "50";
+                case "search" -> "20";
+                default -> "2";
+            };
+        }
+
+        private static double slo(String name, String key, String defaultValue) {
+            String general = System.getProperty("esfe.load.slo." + key, defaultValue);
+            return Double.parseDouble(System.getProperty("esfe.load.slo." + name + "." + key, general));
+        }
+
+        /** Ejecuta la operación y registra su latencia desde el instante previsto. */
+        void execute(long intendedNanos) {
+            boolean ok;
+            try {
+                ok = action.run(ThreadLocalRandom.current());
+            } catch (LoginThrottledException e) {
+                intervalThrottled.increment();
+                totalThrottled.increment();
+                return;
+            } catch (Exception e) {
+                ok = false;
+            }
+            long latency = System.nanoTime() - intendedNanos;
+            interval.record(latency);
+            total.record(latency);
+            if (!ok) {
+                intervalErrors.increment();
+                totalErrors.increment();
+            }
+        }
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("esfe.load.users", 1_000);
+        int seconds = Integer.getInteger("esfe.load.seconds", 60);
+        int reportSeconds = Math.max(1, Integer.getInteger("esfe.load.reportSeconds", 10));
+        int concurrency = Integer.getInteger("esfe.load.concurrency", 256);
+
+        BenchmarkDatabase.start();
+        UserDAO dao = new UserDAO();
+        long seeding = System.nanoTime();
+        // Emails únicos en cada ejecución, para repetir la prueba sobre un MySQL sin chocar con las anteriores.
+        String prefix = "carga-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        ArrayList<Integer> ids = seed(dao, users, prefix);
+        System.out.printf(Locale.ROOT, "%d usuarios sembrados en %.1f s%n", ids.size(),
+                (System.nanoTime() - seeding) / 1e9);
+
+        List<Scenario> scenarios = List.of(
+                new Scenario("authenticate", random -> {
+                    int n = random.nextInt(ids.size());
+                    // Sin origen: el límite por origen de LoginThrottle trataría toda la carga como un solo cliente.
+                    return dao.authenticate(prefix + n + "@example.com", PASSWORD.toCharArray(), null) != null;
+                }),
+                new Scenario("search", random -> {
+                    dao.search("Carga " + (random.nextInt(ids.size()) + 1), 0, 200);
+                    return true;
+                }),
+                new Scenario("updatePassword", random -> {
+                    // Se guarda la misma contraseña: el costo es el mismo y los inicios de sesión siguen siendo válidos.
+                    int id = ids.get(random.nextInt(ids.size()));
+                    return dao.updatePassword(new User(id, null, PASSWORD, null, (byte) 1));
+                }));
+
+        boolean passed = run(scenarios, seconds, reportSeconds, concurrency);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Inserta los usuarios sintéticos {@code "Carga <n>"}, activos, con la misma contraseña y con
+     * email {@code <prefix><n-1>@example.com}. Las contraseñas se hashean con el costo real, en
+     * paralelo por bloques.
+     */
+    private static ArrayList<Integer> seed(UserDAO dao, int users, String prefix) throws SQLException {
+        Iterator<User> generated = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < users;
+            }
+
+            @Override
+            public User next() {
+                int n = next++;
+                return new User(0, "Carga " + (n + 1), PASSWORD, prefix + n + "@example.com", (byte) 1);
+            }
+        };
+        return dao.importUsers(generated, UserDAO.DEFAULT_IMPORT_CHUNK_SIZE);
+    }
+
+    /**
+     * Ejecuta los escenarios durante {@code seconds} segundos, informa cada intervalo y el total.
+     *
+     * @return true si todos los escenarios cumplieron sus objetivos.
+     */
+    private static boolean run(List<Scenario> scenarios, int seconds, int reportSeconds, int concurrency)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ArrayList<Thread> schedulers = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                if (scenario.ratePerSecond <= 0) {
+                    continue;
+                }
+                // Un hilo por escenario lanza las operaciones en sus instantes previstos.
+                schedulers.add(Thread.ofVirtual().name("esfe-load-" + scenario.name).start(() -> {
+                    long period = (long) (1e9 / scenario.ratePerSecond);
+                    for (long intended = start; intended < end; intended += period) {
+                        long wait = intended - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        long scheduled = intended;
+                        executor.execute(() -> {
+                            inFlight.acquireUninterruptibly();
+                            try {
+                                scenario.execute(scheduled);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    }
+                }));
+            }
+
+            System.out.println("   tiempo  operación         ops    ops/s    p50 ms    p99 ms   p999 ms  errores  limitados");
+            long nextReport = start;
+            while ((nextReport += TimeUnit.SECONDS.toNanos(reportSeconds)) <= end) {
+                TimeUnit.NANOSECONDS.sleep(nextReport - System.nanoTime());
+                for (Scenario scenario : scenarios) {
+                    LatencyHistogram.Snapshot snapshot = scenario.interval.snapshot();
+                    scenario.interval.reset();
+                    report(TimeUnit.NANOSECONDS.toSeconds(nextReport - start) + " s", scenario.name, snapshot,
+                            scenario.intervalErrors.sumThenReset(), scenario.intervalThrottled.sumThenReset(), reportSeconds);
+                }
+            }
+            // Los planificadores deben terminar de lanzar operaciones antes de cerrar el ejecutor: el
+            // último informe puede llegar antes del final si seconds no es múltiplo de reportSeconds.
+            for (Thread scheduler : schedulers) {
+                scheduler.join();
+            }
+            // Al cerrar el ejecutor se espera a que terminen las operaciones ya lanzadas.
+        }
+        // El rendimiento total se calcula con la duración real, que incluye el vaciado de la cola.
+        long elapsed = System.nanoTime() - start;
+
+        boolean passed = true;
+        System.out.println();
+        for (Scenario scenario : scenarios) {
+            LatencyHistogram.Snapshot snapshot = scenario.total.snapshot();
+            long errors = scenario.totalErrors.sum();
+            report("total", scenario.name, snapshot, errors, scenario.totalThrottled.sum(), elapsed / 1e9);
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            double p99 = snapshot.getPercentileNanos(99) / 1e6;
+            double p999 = snapshot.getPercentileNanos(99.9) / 1e6;
+            double errorRate = (double) errors / snapshot.getCount();
+            passed &= check(scenario.name, "p99", p99, scenario.sloP99Millis, " ms");
+            passed &= check(scenario.name, "p999", p999, scenario.sloP999Millis, " ms");
+            passed &= check(scenario.name, "errores", errorRate, scenario.sloErrorRate, "");
+        }
+        long throttled = scenarios.stream().mapToLong(scenario -> scenario.totalThrottled.sum()).sum();
+        if (throttled > 0) {
+            System.out.printf(Locale.ROOT, "Aviso: LoginThrottle rechazó %d intentos; aumente esfe.load.users "
+                    + "para medir la aplicación y no el límite de intentos.%n", throttled);
+        }
+        System.out.println(passed ? "Se cumplen todos los SLO." : "Se incumplió al menos un SLO.");
+        return passed;
+    }
+
+    private static void report(String time, String name, LatencyHistogram.Snapshot snapshot, long errors,
+                               long throttled, double seconds) {
+        long count = snapshot.getCount();
+        System.out.printf(Locale.ROOT, "%9s  %-15s %7d %8.1f %9.2f %9.2f %9.2f %7.2f %% %10d%n",
+                time, name, count, (double) count / seconds,
+                snapshot.getPercentileNanos(50) / 1e6, snapshot.getPercentileNanos(99) / 1e6,
+                snapshot.getPercentileNanos(99.9) / 1e6, count == 0 ? 0.0 : 100.0 * errors / count, throttled);
+    }
+
+    private static boolean check(String name, String metric, double value, double limit, String unit) {
+        if (value <= limit) {
+            return true;
+        }
+        System.out.printf(Locale.ROOT, "SLO incumplido: %s %s %.3f%s > %.3f%s%n", name, metric, value, unit, limit, unit);
+        return false;
+    }
+}
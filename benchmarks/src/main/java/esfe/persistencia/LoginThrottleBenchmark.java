@@ -0,0 +1,68 @@
+package esfe.persistencia;
+
+import org.openjdk.jmh.annotations.*;               // Anotaciones de JMH que describen el benchmark.
+import org.openjdk.jmh.results.format.ResultFormatType; // Resultados en JSON.
+import org.openjdk.jmh.runner.Runner;               // Ejecuta el benchmark desde el método main.
+import org.openjdk.jmh.runner.RunnerException;      // Error al ejecutar el benchmark.
+import org.openjdk.jmh.runner.options.Options;      // Opciones de ejecución.
+import org.openjdk.jmh.runner.options.OptionsBuilder; // Construye las opciones de ejecución.
+
+import java.util.concurrent.ThreadLocalRandom;      // Elige las claves frías.
+import java.util.concurrent.TimeUnit;               // Unidad de las mediciones.
+
+/**
+ * Mide {@link LoginThrottle#acquire} con muchos hilos a la vez: todos sobre la misma clave
+ * ({@code hot}, máxima contención sobre un solo compare-and-set) o repartidos entre muchas claves
+ * ({@code cold}, contención sobre el mapa). Los límites son tan altos que nunca se rechaza un
+ * intento, para medir solo el costo de la contabilidad.
+ *
+ * Se ejecuta desde el jar del módulo de benchmarks ({@code java -jar benchmarks/target/benchmarks.jar
+ * LoginThrottle}) o con el método main de esta clase.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class LoginThrottleBenchmark {
+    private static final int COLD_KEYS = 50_000;
+
+    private LoginThrottle throttle;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        LoginThrottle.Limits unlimited = new LoginThrottle.Limits(Integer.MAX_VALUE, 1e12, Integer.MAX_VALUE, 1, 1);
+        throttle = new LoginThrottle(unlimited, unlimited, COLD_KEYS * 2, 60_000, System::currentTimeMillis);
+        keys = new String[COLD_KEYS];
+        for (int i = 0; i < COLD_KEYS; i++) {
+            keys[i] = "user" + i + "@example.com";
+        }
+    }
+
+    @Benchmark
+    public void hot() throws LoginThrottledException {
+        throttle.acquire("hot@example.com", "10.0.0.1");
+    }
+
+    @Benchmark
+    public void cold() throws LoginThrottledException {
+        throttle.acquire(keys[ThreadLocalRandom.current().nextInt(COLD_KEYS)], null);
+    }
+
+    @Benchmark
+    public void hotFailure() {
+        throttle.recordFailure("hot@example.com", null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoginThrottleBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,70 @@
+package esfe.persistencia;
+
+import esfe.dominio.User;                           // Usuarios creados y buscados.
+import org.openjdk.jmh.annotations.*;               // Anotaciones de JMH que describen el benchmark.
+
+import java.sql.SQLException;                       // Errores de la base de datos.
+import java.util.ArrayList;                         // Resultado de la búsqueda completa.
+import java.util.concurrent.ThreadLocalRandom;      // Elige el usuario de cada operación.
+import java.util.concurrent.TimeUnit;               // Unidad de las mediciones.
+import java.util.concurrent.atomic.AtomicInteger;   // Emails únicos de los usuarios creados.
+
+/**
+ * Mide las operaciones de {@link UserDAO} contra la base de datos embebida de
+ * {@link BenchmarkDatabase}, sembrada con {@code users} usuarios activos:
+ *
+ * <ul>
+ *     <li>{@code authenticate}: inicio de sesión correcto de un usuario al azar (consulta por email,
+ *     verificación PBKDF2 con el costo configurado en {@code esfe.hash.iterations}).</li>
+ *     <li>{@code search}: búsqueda completa por nombre que devuelve alrededor del 1 % de la tabla.</li>
+ *     <li>{@code searchPage}: primera página (200 filas) de una búsqueda amplia, como la que hacen
+ *     los formularios de consulta.</li>
+ *     <li>{@code create}: alta de un usuario nuevo, incluido el hash de su contraseña.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDAOBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"10000"})
+    private int users;
+
+    private UserDAO dao;
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.start();
+        BenchmarkDatabase.seedUsers(users, PASSWORD);
+        dao = new UserDAO();
+    }
+
+    @Benchmark
+    public User authenticate() throws SQLException {
+        int id = ThreadLocalRandom.current().nextInt(1, users + 1);
+        return dao.authenticate("usuario" + id + "@example.com", PASSWORD.toCharArray());
+    }
+
+    @Benchmark
+    public ArrayList<User> search() throws SQLException {
+        // "Usuario 7" coincide con 7, 70-79, 700-799, 7000-7999...: alrededor del 11 % con 10 000 usuarios;
+        // "Usuario 7" seguido de dos cifras acota a alrededor del 1 %.
+        return dao.search("Usuario 7" + ThreadLocalRandom.current().nextInt(10, 100));
+    }
+
+    @Benchmark
+    public Page<User> searchPage() throws SQLException {
+        return dao.search("Usuario", 0, 200);
+    }
+
+    @Benchmark
+    public User create() throws SQLException {
+        int n = created.incrementAndGet();
+        return dao.create(new User(0, "Nuevo " + n, PASSWORD, "nuevo" + n + "@example.com", (byte) 1));
+    }
+}
@@ -0,0 +1,99 @@
+package esfe.presentacion;
+
+import esfe.dominio.User;                           // Filas de la tabla de usuarios.
+import esfe.persistencia.Page;                      // Primera página de una búsqueda.
+import org.openjdk.jmh.annotations.*;               // Anotaciones de JMH que describen el benchmark.
+
+import javax.swing.JTable;                          // Tabla que recibe los eventos del modelo.
+import javax.swing.table.DefaultTableModel;         // Modelo de la implementación anterior.
+import java.util.ArrayList;                         // Resultados de la búsqueda.
+import java.util.concurrent.CompletableFuture;      // Cargador de páginas siguientes (sin más páginas).
+import java.util.concurrent.TimeUnit;               // Unidad de las mediciones.
+
+import static esfe.presentacion.PagedTableModel.intColumn;    // Columna de enteros.
+import static esfe.presentacion.PagedTableModel.objectColumn; // Columna de objetos.
+
+/**
+ * Mide cuánto cuesta llevar {@code rows} usuarios a la tabla de {@link UserReadingForm}, con una
+ * {@link JTable} escuchando los eventos del modelo como en el formulario:
+ *
+ * <ul>
+ *     <li>{@code defaultTableModel}: la implementación anterior del formulario, que creaba un
+ *     {@link DefaultTableModel} y agregaba cada fila con {@code addRow} y cuatro {@code setValueAt}
+ *     (un evento por llamada).</li>
+ *     <li>{@code pagedSetItems}: {@link PagedTableModel#setItems(java.util.List)} con todas las filas.</li>
+ *     <li>{@code pagedFirstPage}: {@link PagedTableModel#show(PagedTableModel.Loaded)} con la primera
+ *     página, que es lo que hace hoy el formulario; el resto se carga al desplazarse.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TableModelBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private ArrayList<User> users;
+    private Page<User> firstPage;
+    private JTable table;
+    private PagedTableModel<User> pagedModel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        users = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            users.add(new User(i, "Usuario " + i, null, "usuario" + i + "@example.com", (byte) (i % 2 + 1)));
+        }
+        int firstPageSize = Math.min(rows, PagedTableModel.DEFAULT_PAGE_SIZE);
+        firstPage = new Page<>(new ArrayList<>(users.subList(0, firstPageSize)), firstPageSize, false);
+        pagedModel = new PagedTableModel<>(PagedTableModel.DEFAULT_PAGE_SIZE, error -> { },
+                intColumn("Id", User::getId),
+                objectColumn("Nombre", String.class, User::getName),
+                objectColumn("Email", String.class, User::getEmail),
+                objectColumn("Estatus", String.class, User::getStrEstatus));
+        table = new JTable();
+    }
+
+    /** Implementación anterior de {@code UserReadingForm.createTable}, como referencia. */
+    @Benchmark
+    public DefaultTableModel defaultTableModel() {
+        DefaultTableModel model = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        table.setModel(model);
+        model.addColumn("Id");
+        model.addColumn("Nombre");
+        model.addColumn("Email");
+        model.addColumn("Estatus");
+        for (int row = 0; row < users.size(); row++) {
+            User user = users.get(row);
+            model.addRow(new Object[]{});
+            model.setValueAt(user.getId(), row, 0);
+            model.setValueAt(user.getName(), row, 1);
+            model.setValueAt(user.getEmail(), row, 2);
+            model.setValueAt(user.getStrEstatus(), row, 3);
+        }
+        return model;
+    }
+
+    @Benchmark
+    public PagedTableModel<User> pagedSetItems() {
+        table.setModel(pagedModel);
+        pagedModel.setItems(users);
+        return pagedModel;
+    }
+
+    @Benchmark
+    public PagedTableModel<User> pagedFirstPage() {
+        table.setModel(pagedModel);
+        pagedModel.show(new PagedTableModel.Loaded<>(firstPage,
+                (afterId, limit) -> CompletableFuture.completedFuture(new Page<>(new ArrayList<>(), afterId, false))));
+        return pagedModel;
+    }
+}
@@ -0,0 +1,96 @@
+package esfe.utils;
+
+import org.openjdk.jmh.annotations.*;               // Anotaciones de JMH que describen el benchmark.
+import org.openjdk.jmh.profile.GCProfiler;          // Mide los bytes asignados por operación (gc.alloc.rate.norm).
+import org.openjdk.jmh.results.format.ResultFormatType; // Resultados en JSON.
+import org.openjdk.jmh.runner.Runner;               // Ejecuta el benchmark desde el método main.
+import org.openjdk.jmh.runner.RunnerException;      // Error al ejecutar el benchmark.
+import org.openjdk.jmh.runner.options.Options;      // Opciones de ejecución.
+import org.openjdk.jmh.runner.options.OptionsBuilder; // Construye las opciones de ejecución.
+
+import java.nio.CharBuffer;                      // Contraseña como búfer de caracteres.
+import java.nio.charset.StandardCharsets;        // Codificación UTF-8 de la implementación anterior.
+import java.security.MessageDigest;              // SHA-256 de la implementación anterior.
+import java.security.NoSuchAlgorithmException;   // Excepción de MessageDigest.getInstance.
+import java.util.Base64;                         // Codificación Base64 de la implementación anterior.
+import java.util.concurrent.TimeUnit;            // Unidad de las mediciones.
+
+/**
+ * Mide el rendimiento (operaciones por segundo) y la memoria asignada por operación de
+ * {@link PasswordHasher}: la verificación de hashes SHA-256 del formato anterior, que reutiliza el
+ * MessageDigest y los búferes de cada hilo, frente a la implementación original que los creaba en
+ * cada llamada, el cálculo PBKDF2 directo con distintos costos y {@link PasswordHasher#hashPassword(String)}
+ * completo (sal aleatoria, PBKDF2 con el costo configurado y formato del hash).
+ *
+ * Se ejecuta desde el jar del módulo de benchmarks ({@code java -jar benchmarks/target/benchmarks.jar
+ * PasswordHasher}) o con el método main de esta clase; la columna {@code gc.alloc.rate.norm} indica
+ * los bytes asignados por operación.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    @Param({"8", "64"})
+    private int length;
+
+    @Param({"10000", "600000"})
+    private int iterations;
+
+    private String password;
+    private CharBuffer passwordChars;
+    private byte[] salt;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        password = sb.toString();
+        passwordChars = CharBuffer.wrap(password.toCharArray());
+        salt = new byte[16];
+    }
+
+    /** Implementación original del hash SHA-256, como referencia. */
+    @Benchmark
+    public String legacy() throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return Base64.getEncoder().encodeToString(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** SHA-256 del formato anterior con el MessageDigest y los búferes reutilizados del hilo. */
+    @Benchmark
+    public byte[] legacyReused() {
+        return PasswordHasher.sha256(passwordChars);
+    }
+
+    /** PBKDF2 con el costo del parámetro {@code iterations}, sin pasar por el motor. */
+    @Benchmark
+    public byte[] pbkdf2() {
+        return PasswordHasher.pbkdf2(passwordChars.array(), salt, iterations);
+    }
+
+    /**
+     * Hash completo de una contraseña nueva, como al crear un usuario. Usa el costo de
+     * {@code esfe.hash.iterations} (por ejemplo {@code -jvmArgs -Desfe.hash.iterations=100000}),
+     * no el parámetro {@code iterations}.
+     */
+    @Benchmark
+    public String hashPassword() {
+        return PasswordHasher.hashPassword(password);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PasswordHasherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
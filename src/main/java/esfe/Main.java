@@ -6,6 +6,9 @@ import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        // Mientras se construye la interfaz, abre las conexiones, prepara el motor de hash y
+        // carga las clases de los formularios en segundo plano (ver StartupWarmup).
+        StartupWarmup.start();
 
         SwingUtilities.invokeLater(() -> {
             // Utiliza el hilo de despacho de eventos (Event Dispatch Thread - EDT) para asegurar
@@ -0,0 +1,180 @@
+package esfe;
+
+import esfe.persistencia.ConnectionManager; // Carga el driver JDBC y crea el pool.
+import esfe.persistencia.UserDAO;           // Prepara la consulta del inicio de sesión.
+import esfe.utils.PasswordHasher;           // Prepara el motor de hash.
+
+import java.lang.management.ManagementFactory;  // Instante de arranque de la JVM.
+import java.util.concurrent.CompletableFuture;  // Tareas de calentamiento en paralelo.
+import java.util.concurrent.ExecutorService;    // Hilos del calentamiento.
+import java.util.concurrent.Executors;          // Crea los hilos del calentamiento.
+import java.util.concurrent.TimeUnit;           // Conversión de las duraciones.
+import java.util.concurrent.atomic.AtomicBoolean; // Registra solo el primer inicio de sesión.
+
+/**
+ * Calentamiento del arranque. Mientras el hilo de Swing construye la ventana principal y el
+ * formulario de inicio de sesión, prepara en segundo plano lo que el primer inicio de sesión
+ * tendría que hacer en el momento:
+ *
+ * <ul>
+ *     <li>Carga el driver JDBC, abre las conexiones mínimas del pool y prepara la consulta de
+ *     credenciales ({@link UserDAO#warmUp()}).</li>
+ *     <li>Arranca los hilos del motor de hash e inicializa sus proveedores criptográficos
+ *     ({@link PasswordHasher#warmUp()}).</li>
+ *     <li>Carga las clases de los demás formularios, para que abrirlos por primera vez no se note.</li>
+ * </ul>
+ *
+ * Los errores (por ejemplo, la base de datos aún no está disponible) solo se informan: el
+ * primer inicio de sesión hará entonces el trabajo pendiente, como antes.
+ *
+ * {@link #recordLogin(long)} informa el tiempo transcurrido desde el arranque de la JVM hasta el
+ * primer inicio de sesión correcto y la duración de esa autenticación.
+ *
+ * Configuración: {@code esfe.warmup.enabled} (true).
+ */
+public final class StartupWarmup {
+    private static final String[] PRELOADED_CLASSES = {
+            "esfe.presentacion.UserReadingForm",
+            "esfe.presentacion.UserWriteForm",
+            "esfe.presentacion.HerramientaReadingForm",
+            "esfe.presentacion.HerramientaWriteForm",
+            "esfe.presentacion.ChangePasswordForm",
+            "esfe.presentacion.PagedTableModel",
+            "esfe.presentacion.SearchController",
+            "esfe.presentacion.SearchSessionCache",
+            "esfe.persistencia.HerramientaDAO",
+            "esfe.persistencia.AsyncDAOExecutor",
+            "esfe.utils.SessionStore",
+    };
+
+    private static StartupWarmup instance;
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicBoolean loginRecorded = new AtomicBoolean();
+    private volatile boolean started; // Se modifica con el monitor de la clase.
+    private volatile long connectionsMillis = -1;
+    private volatile long hashingMillis = -1;
+    private volatile long classesMillis = -1;
+    private volatile long totalMillis = -1;
+
+    private StartupWarmup() {
+    }
+
+    /**
+     * @return La instancia compartida (el calentamiento empieza con {@link #start()}).
+     */
+    public static synchronized StartupWarmup getInstance() {
+        if (instance == null) {
+            instance = new StartupWarmup();
+        }
+        return instance;
+    }
+
+    /**
+     * Inicia el calentamiento en segundo plano, si está habilitado. Las llamadas siguientes no
+     * hacen nada.
+     *
+     * @return La instancia compartida.
+     */
+    public static synchronized StartupWarmup start() {
+        StartupWarmup warmup = getInstance();
+        if (!warmup.started) {
+            warmup.started = true;
+            if (Boolean.parseBoolean(System.getProperty("esfe.warmup.enabled", "true"))) {
+                warmup.run();
+            } else {
+                warmup.completion.complete(null);
+            }
+        }
+        return warmup;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "esfe-warmup");
+            thread.setDaemon(true);                       // No impide que la aplicación termine.
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // La construcción de la interfaz tiene preferencia.
+            return thread;
+        });
+        CompletableFuture<Void> connections = CompletableFuture.runAsync(() -> {
+            long t = System.nanoTime();
+            try {
+                ConnectionManager.getInstance().getPool().fillToMinIdle();
+                new UserDAO().warmUp();
+            } catch (Exception ex) {
+                System.err.println("Calentamiento: no se pudieron preparar las conexiones: " + ex.getMessage());
+            }
+            connectionsMillis = elapsedMillis(t);
+        }, executor);
+        CompletableFuture<Void> hashing = CompletableFuture.runAsync(() -> {
+            long t = System.nanoTime();
+            try {
+                PasswordHasher.warmUp();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                System.err.println("Calentamiento: no se pudo preparar el motor de hash: " + ex.getMessage());
+            }
+            hashingMillis = elapsedMillis(t);
+        }, executor);
+        CompletableFuture<Void> classes = CompletableFuture.runAsync(() -> {
+            long t = System.nanoTime();
+            ClassLoader loader = StartupWarmup.class.getClassLoader();
+            for (String name : PRELOADED_CLASSES) {
+                try {
+                    Class.forName(name, true, loader);
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    System.err.println("Calentamiento: no se pudo cargar " + name + ": " + ex);
+                }
+            }
+            classesMillis = elapsedMillis(t);
+        }, executor);
+
+        CompletableFuture.allOf(connections, hashing, classes).whenComplete((ignored, error) -> {
+            executor.shutdown();
+            totalMillis = elapsedMillis(start);
+            completion.complete(null);
+        });
+    }
+
+    /**
+     * @return Un future que se completa cuando termina el calentamiento (con o sin errores).
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /** @return La duración total del calentamiento en milisegundos, o -1 si no ha terminado. */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * Registra un inicio de sesión correcto. Solo el primero se informa, en la salida estándar.
+     *
+     * @param authenticateNanos La duración de la autenticación (consulta y verificación del hash).
+     * @return true si era el primer inicio de sesión.
+     */
+    public boolean recordLogin(long authenticateNanos) {
+        if (!loginRecorded.compareAndSet(false, true)) {
+            return false;
+        }
+        long sinceStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.println("Primer inicio de sesión: " + sinceStart + " ms desde el arranque; autenticación: "
+                + TimeUnit.NANOSECONDS.toMillis(authenticateNanos) + " ms; " + describeWarmup() + ".");
+        return true;
+    }
+
+    private String describeWarmup() {
+        if (totalMillis < 0) {
+            return "calentamiento " + (started ? "aún en curso" : "no ejecutado");
+        }
+        return "calentamiento en " + totalMillis + " ms (conexiones " + connectionsMillis
+                + " ms, hash " + hashingMillis + " ms, clases " + classesMillis + " ms)";
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,91 @@
+package esfe.persistencia;
+
+import java.sql.SQLException;                   // Representa errores específicos de la base de datos.
+import java.util.concurrent.CompletableFuture;  // Resultado asíncrono de cada operación.
+import java.util.concurrent.ExecutorService;    // Ejecutor de las operaciones.
+import java.util.concurrent.Executors;          // Fábrica del ejecutor de hilos virtuales.
+import java.util.concurrent.Semaphore;          // Limita las operaciones que usan JDBC al mismo tiempo.
+
+/**
+ * Ejecutor compartido por las variantes asíncronas de los DAO ({@code createAsync},
+ * {@code searchAsync}, etc.). Cada operación corre en su propio hilo virtual, por lo que
+ * miles de operaciones pendientes no consumen hilos de plataforma.
+ *
+ * El número de operaciones que ejecutan JDBC a la vez está limitado por un semáforo con
+ * tantos permisos como el tamaño máximo del pool de conexiones: las operaciones que exceden
+ * esa capacidad esperan aparcadas en el semáforo (lo cual es barato para un hilo virtual)
+ * en lugar de agotar el tiempo de espera del pool.
+ */
+public final class AsyncDAOExecutor {
+    private static AsyncDAOExecutor instance;
+
+    private final ExecutorService executor;
+    private final Semaphore capacity;
+
+    /**
+     * Operación de acceso a datos que puede lanzar SQLException.
+     *
+     * @param <T> El tipo del resultado.
+     */
+    @FunctionalInterface
+    public interface SqlSupplier<T> {
+        T get() throws SQLException;
+    }
+
+    private AsyncDAOExecutor(int maxConcurrency) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("esfe-dao-", 0).factory());
+        this.capacity = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Devuelve la instancia compartida, cuya capacidad es el tamaño máximo del pool de
+     * conexiones del {@link ConnectionManager}.
+     *
+     * @return La instancia compartida del ejecutor.
+     */
+    public static synchronized AsyncDAOExecutor getInstance() {
+        if (instance == null) {
+            instance = new AsyncDAOExecutor(ConnectionManager.getInstance().getPool().getConfig().getMaxSize());
+        }
+        return instance;
+    }
+
+    /**
+     * Ejecuta la operación en un hilo virtual, respetando la capacidad del pool.
+     *
+     * @param operation La operación de acceso a datos.
+     * @param <T>       El tipo del resultado.
+     * @return Un CompletableFuture que se completa con el resultado de la operación, o
+     * excepcionalmente con la SQLException que ésta haya lanzado. Si se cancela antes de que la
+     * operación empiece (por ejemplo una búsqueda reemplazada por otra más reciente), la
+     * operación no llega a ejecutarse.
+     */
+    public <T> CompletableFuture<T> submit(SqlSupplier<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                capacity.acquire();
+            } catch (InterruptedException ex) {
+                future.completeExceptionally(ex);
+                return;
+            }
+            if (future.isDone()) {
+                capacity.release(); // Cancelada mientras esperaba: no usar una conexión.
+                return;
+            }
+            try {
+                future.complete(operation.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                capacity.release();
+            }
+        });
+        return future;
+    }
+
+    /** @return El número aproximado de operaciones esperando capacidad para usar JDBC. */
+    public int getQueuedOperations() {
+        return capacity.getQueueLength();
+    }
+}
@@ -1,13 +1,18 @@
 package esfe.persistencia;
 
 import java.sql.Connection; // Representa una conexión a la base de datos.
-import java.sql.DriverManager; // Gestiona los drivers JDBC y establece conexiones.
 import java.sql.SQLException; // Representa errores específicos de la base de datos.
 
 /**
- * Esta clase se encarga de gestionar la conexión a la base de datos MySQL utilizando JDBC.
+ * Esta clase se encarga de gestionar las conexiones a la base de datos MySQL utilizando JDBC.
  * Implementa el patrón Singleton para asegurar que solo exista una única instancia
- * de la clase y, por lo tanto, una única conexión a la base de datos compartida.
+ * de la clase y, por lo tanto, un único pool de conexiones ({@link ConnectionPool}) compartido.
+ * Cada llamada a {@link #connect()} presta una conexión del pool; al cerrarla (o al llamar a
+ * {@link #disconnect()}) la conexión vuelve al pool en lugar de cerrarse físicamente.
+ *
+ * La base de datos se elige con la propiedad {@code esfe.db.url}; sin ella se usa la cadena de
+ * conexión MySQL de {@link #STR_CONNECTION}. Con la URL de {@link EmbeddedDatabase} (la de
+ * {@code mvn test}) las pruebas y los benchmarks no necesitan un servidor MySQL.
  */
 public class ConnectionManager {
 
@@ -24,15 +29,24 @@ public class ConnectionManager {
      * - useSSL=false : Deshabilita el uso de SSL. Puedes cambiarlo a 'true' si tu servidor MySQL lo requiere.
      * - allowPublicKeyRetrieval=true : Permite la recuperación de la clave pública del servidor.
      * Esto es a menudo necesario para versiones de MySQL Connector/J 8.x.
+     * - useServerPrepStmts=true : Prepara las sentencias en el servidor, de modo que la caché de
+     * sentencias de cada conexión del pool ({@link StatementCache}) evita volver a analizarlas.
+     * - rewriteBatchedStatements=true : Envía las inserciones por lotes como un único INSERT de
+     * varias filas, en lugar de una ida y vuelta por fila.
+     * - useCursorFetch=true : Las consultas con un tamaño de bloque (fetch size) usan un cursor del
+     * servidor, de modo que las búsquedas en streaming no cargan todo el resultado en memoria.
      */
     private static final String STR_CONNECTION = "jdbc:mysql://127.0.0.1:3306/securitydb2025?" +
             "user=root& " + // Aquí el ? y el &
-            "password= 123456";
+            "password= 123456" +
+            "&useServerPrepStmts=true" +
+            "&rewriteBatchedStatements=true" +
+            "&useCursorFetch=true";
 
     /**
-     * Representa la conexión activa a la base de datos. Inicialmente es nula.
+     * Pool de conexiones del que se prestan las conexiones a la base de datos.
      */
-    private Connection connection;
+    private final ConnectionPool pool;
 
     /**
      * Única instancia de la clase ConnectionManager (para el patrón Singleton).
@@ -45,66 +59,79 @@ public class ConnectionManager {
      * Esto es fundamental para el patrón Singleton.
      */
     private ConnectionManager() {
-        this.connection = null;
-        try {
-            // Carga el driver JDBC de MySQL. Esto es necesario para que Java pueda
-            // comunicarse con la base de datos MySQL.
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            // Si el driver no se encuentra, se lanza una excepción indicando el error.
-            throw new RuntimeException("Error al cargar el driver JDBC de MySQL. Asegúrate de que el conector MySQL esté en el classpath.", e);
+        // La propiedad esfe.db.url permite apuntar a otra base de datos, por ejemplo la H2 embebida
+        // de las pruebas y los benchmarks (EmbeddedDatabase.ALIAS o EmbeddedDatabase.URL); sin ella
+        // se usa el MySQL local.
+        String url = System.getProperty("esfe.db.url", "").isBlank() ? STR_CONNECTION
+                : EmbeddedDatabase.resolve(System.getProperty("esfe.db.url"));
+        if (url.startsWith("jdbc:mysql:")) {
+            try {
+                // Carga el driver JDBC de MySQL. Esto es necesario para que Java pueda
+                // comunicarse con la base de datos MySQL.
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                // Si el driver no se encuentra, se lanza una excepción indicando el error.
+                throw new RuntimeException("Error al cargar el driver JDBC de MySQL. Asegúrate de que el conector MySQL esté en el classpath.", e);
+            }
+        }
+        // Crea el pool con la configuración por defecto, ajustable mediante propiedades esfe.pool.*
+        this.pool = new ConnectionPool(ConnectionPoolConfig.fromSystemProperties(url));
+        if (EmbeddedDatabase.isEmbedded(url)) {
+            // La base de datos embebida empieza vacía: se crean las tablas antes de la primera consulta.
+            try (Connection connection = pool.borrow()) {
+                EmbeddedDatabase.createSchema(connection);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al crear el esquema de la base de datos embebida: " + e.getMessage(), e);
+            }
         }
     }
 
     /**
-     * Este método se encarga de establecer la conexión con la base de datos.
-     * Es sincronizado (`synchronized`) para asegurar que solo un hilo a la vez pueda
-     * intentar establecer la conexión, lo cual es importante en entornos multihilo.
+     * Este método presta una conexión del pool. Ya no es sincronizado: varios hilos pueden
+     * obtener conexiones distintas al mismo tiempo, hasta el tamaño máximo del pool.
+     * Quien la obtiene debe cerrarla (por ejemplo con try-with-resources) o llamar a
+     * {@link #disconnect()} para devolverla al pool.
      *
-     * @return La instancia de la conexión a la base de datos.
+     * @return Una conexión prestada por el pool.
      * @throws SQLException Si ocurre un error al intentar conectar a la base de datos.
      */
-    public synchronized Connection connect() throws SQLException {
-        // Verifica si la conexión ya existe y si no está cerrada.
-        if (this.connection == null || this.connection.isClosed()) {
-            try {
-                // Intenta establecer la conexión utilizando la cadena de conexión.
-                this.connection = DriverManager.getConnection(STR_CONNECTION);
-            } catch (SQLException exception) {
-                // Si ocurre un error durante la conexión, se lanza una excepción SQLException
-                // con un mensaje más descriptivo que incluye el mensaje original de la excepción.
-                throw new SQLException("Error al conectar a la base de datos MySQL: " + exception.getMessage(), exception);
-            }
+    public Connection connect() throws SQLException {
+        try {
+            // Presta una conexión ociosa del pool o abre una nueva si hay capacidad.
+            return pool.borrow();
+        } catch (SQLException exception) {
+            // Si ocurre un error durante la conexión, se lanza una excepción SQLException
+            // con un mensaje más descriptivo que incluye el mensaje original de la excepción.
+            throw new SQLException("Error al conectar a la base de datos MySQL: " + exception.getMessage(), exception);
         }
-        // Retorna la conexión (ya sea la existente o la recién creada).
-        return this.connection;
     }
 
     /**
-     * Este método se encarga de cerrar la conexión a la base de datos.
-     * También lanza una SQLException si ocurre un error al intentar cerrar la conexión.
+     * Este método devuelve al pool la última conexión que el hilo actual obtuvo con
+     * {@link #connect()} y que aún no ha cerrado. La conexión física permanece abierta
+     * para ser reutilizada por la siguiente consulta.
      *
-     * @throws SQLException Si ocurre un error al intentar cerrar la conexión.
+     * @throws SQLException Si ocurre un error al intentar devolver la conexión.
      */
     public void disconnect() throws SQLException {
-        // Verifica si la conexión existe (no es nula).
-        if (this.connection != null) {
-            try {
-                // Intenta cerrar la conexión.
-                this.connection.close();
-            } catch (SQLException exception) {
-                // Si ocurre un error al cerrar la conexión, se lanza una excepción SQLException
-                // con un mensaje más descriptivo.
-                throw new SQLException("Error al cerrar la conexión MySQL: " + exception.getMessage(), exception);
-            } finally {
-                // El bloque finally se ejecuta siempre, independientemente de si hubo una excepción o no.
-                // Aquí se asegura que la referencia a la conexión se establezca a null,
-                // indicando que ya no hay una conexión activa gestionada por esta instancia.
-                this.connection = null;
-            }
+        try {
+            pool.closeLastLease();
+        } catch (SQLException exception) {
+            // Si ocurre un error al devolver la conexión, se lanza una excepción SQLException
+            // con un mensaje más descriptivo.
+            throw new SQLException("Error al cerrar la conexión MySQL: " + exception.getMessage(), exception);
         }
     }
 
+    /**
+     * Devuelve el pool de conexiones, por ejemplo para consultar su ocupación.
+     *
+     * @return El pool de conexiones compartido.
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
     /**
      * Este método estático y sincronizado (`synchronized`) implementa el patrón Singleton.
      * Devuelve la única instancia de ConnectionManager. Si la instancia aún no existe,
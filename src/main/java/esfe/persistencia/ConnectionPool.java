@@ -0,0 +1,431 @@
+package esfe.persistencia;
+
+import java.lang.reflect.InvocationHandler;       // Intercepta las llamadas hechas sobre la conexión prestada.
+import java.lang.reflect.InvocationTargetException; // Envuelve las excepciones lanzadas por la conexión física.
+import java.lang.reflect.Method;                   // Representa el método invocado sobre el proxy.
+import java.lang.reflect.Proxy;                    // Crea la conexión prestada que envuelve a la física.
+import java.sql.Connection;                        // Representa una conexión a la base de datos.
+import java.sql.DriverManager;                     // Abre las conexiones físicas.
+import java.sql.PreparedStatement;                 // Sentencias entregadas al registro de consultas lentas.
+import java.sql.SQLException;                      // Representa errores específicos de la base de datos.
+import java.util.concurrent.ConcurrentLinkedDeque; // Pila de préstamos abiertos por cada hilo.
+import java.util.concurrent.Executors;             // Fábrica del hilo de mantenimiento.
+import java.util.concurrent.LinkedBlockingDeque;   // Conexiones ociosas, reutilizadas en orden LIFO.
+import java.util.concurrent.ScheduledExecutorService; // Ejecuta periódicamente el mantenimiento del pool.
+import java.util.concurrent.Semaphore;             // Limita el número de conexiones prestadas al mismo tiempo.
+import java.util.concurrent.TimeUnit;              // Unidades de tiempo para las esperas.
+import java.util.concurrent.atomic.AtomicBoolean;  // Marca de devolución de cada préstamo.
+import java.util.concurrent.atomic.AtomicInteger;  // Contador de conexiones físicas abiertas.
+
+/**
+ * Pool acotado de conexiones JDBC. Mantiene abiertas entre {@code minIdle} y {@code maxSize}
+ * conexiones físicas y las presta a quien llama a {@link #borrow()}. La conexión prestada es un
+ * envoltorio: al invocar {@code close()} la conexión física no se cierra, sino que vuelve al pool
+ * para el siguiente préstamo, ahorrando el saludo TCP y la autenticación de MySQL en cada consulta.
+ *
+ * Una tarea de mantenimiento cierra las conexiones ociosas sobrantes y las que superan su vida
+ * máxima, y vuelve a abrir conexiones hasta alcanzar {@code minIdle}. Al prestar una conexión que
+ * lleva ociosa más de {@code validateAfterIdleMillis} se valida con {@link Connection#isValid(int)}.
+ *
+ * Cada conexión física tiene su propia {@link StatementCache}: las sentencias preparadas con
+ * {@code prepareStatement(sql)} o {@code prepareStatement(sql, autoGeneratedKeys)} se reutilizan
+ * entre préstamos sucesivos de la misma conexión.
+ *
+ * La espera de cada préstamo (incluida la apertura de una conexión nueva) se registra en
+ * {@link QueryMetrics} como la operación {@value QueryMetrics#POOL_BORROW}, y todas las
+ * sentencias preparadas pasan por {@link SlowQueryLog}, que registra sus ejecuciones lentas.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final QueryMetrics.Operation BORROW = QueryMetrics.getInstance().operation(QueryMetrics.POOL_BORROW);
+
+    private final ConnectionPoolConfig config;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;                            // Un permiso por conexión que se puede prestar.
+    private final AtomicInteger total = new AtomicInteger();   // Conexiones físicas abiertas (ociosas + prestadas).
+    private final ScheduledExecutorService housekeeper;
+    // Préstamos abiertos de cada hilo, para closeLastLease(). Concurrente: un préstamo puede cerrarse
+    // desde otro hilo (ejecutor asíncrono, ResultSetStream) y se quita igualmente de la pila de su dueño.
+    private final ThreadLocal<ConcurrentLinkedDeque<Connection>> leases = ThreadLocal.withInitial(ConcurrentLinkedDeque::new);
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private final SlowQueryLog slowQueries = SlowQueryLog.getInstance();
+    private volatile boolean closed;
+
+    /**
+     * Crea el pool y programa la tarea de mantenimiento. La primera ejecución de esa tarea
+     * abre en segundo plano las {@code minIdle} conexiones iniciales, de modo que el constructor
+     * no se bloquea aunque la base de datos no esté disponible.
+     *
+     * @param config La configuración del pool.
+     */
+    public ConnectionPool(ConnectionPoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "esfe-pool-housekeeper");
+            thread.setDaemon(true); // No debe impedir que la aplicación termine.
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0,
+                config.getHousekeepingPeriodMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool. Si no hay conexiones ociosas y aún no se alcanzó
+     * {@code maxSize}, abre una nueva; en caso contrario espera hasta {@code borrowTimeoutMillis}.
+     *
+     * @return Una conexión prestada; su método {@code close()} la devuelve al pool.
+     * @throws SQLException Si el pool está cerrado, se agota el tiempo de espera o no se puede abrir la conexión.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+        long started = BORROW.start(); // Mide la espera por la conexión, incluida la apertura de una nueva.
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeoutMillis());
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                BORROW.failure(started);
+                throw timeout();
+            }
+        } catch (InterruptedException ex) {
+            BORROW.failure(started);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión del pool.", ex);
+        }
+        try {
+            PooledConnection pooled = acquire(deadline);
+            ConcurrentLinkedDeque<Connection> owner = leases.get();
+            Connection lease = lease(pooled, owner);
+            owner.addLast(lease); // Registrar el préstamo para closeLastLease().
+            BORROW.success(started, 0);
+            return lease;
+        } catch (SQLException | RuntimeException ex) {
+            BORROW.failure(started);
+            permits.release(); // Si no se entregó ninguna conexión, el permiso vuelve a estar disponible.
+            throw ex;
+        }
+    }
+
+    /**
+     * Devuelve al pool el préstamo más reciente que el hilo actual aún no ha cerrado.
+     * Permite que el código que solo conserva el {@link ConnectionManager} (y no la conexión)
+     * libere la conexión que obtuvo con {@code connect()}.
+     *
+     * @throws SQLException Si ocurre un error al devolver la conexión.
+     */
+    public void closeLastLease() throws SQLException {
+        ConcurrentLinkedDeque<Connection> own = leases.get();
+        Connection lease;
+        // Un préstamo que otro hilo esté cerrando en este momento puede seguir en la pila; se descarta.
+        while ((lease = own.pollLast()) != null) {
+            if (!lease.isClosed()) {
+                lease.close();
+                return;
+            }
+        }
+    }
+
+    /** @return El número de conexiones físicas abiertas (ociosas y prestadas). */
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    /** @return El número de conexiones ociosas disponibles para préstamo inmediato. */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /** @return El número de conexiones prestadas en este momento. */
+    public int getActiveConnections() {
+        return config.getMaxSize() - permits.availablePermits();
+    }
+
+    /** @return El número aproximado de hilos esperando una conexión. */
+    public int getThreadsAwaiting() {
+        return permits.getQueueLength();
+    }
+
+    /** @return El número de sentencias preparadas reutilizadas desde la caché. */
+    public long getStatementCacheHits() {
+        return statementCounters.hits.sum();
+    }
+
+    /** @return El número de sentencias que tuvieron que prepararse porque no estaban en la caché. */
+    public long getStatementCacheMisses() {
+        return statementCounters.misses.sum();
+    }
+
+    /** @return El número de sentencias desalojadas de la caché por la política LRU. */
+    public long getStatementCacheEvictions() {
+        return statementCounters.evictions.sum();
+    }
+
+    /** @return La configuración con la que se creó el pool. */
+    public ConnectionPoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Cierra el pool: detiene el mantenimiento y cierra las conexiones ociosas. Las conexiones
+     * prestadas se cierran físicamente cuando se devuelven.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private PooledConnection acquire(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled == null) {
+                if (reserveSlot()) {
+                    return open(); // Conexión nueva: no necesita validación.
+                }
+                // Otra conexión está en tránsito (devolución o descarte); esperar a que quede ociosa.
+                try {
+                    pooled = idle.pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrumpido mientras se esperaba una conexión del pool.", ex);
+                }
+                if (pooled == null) {
+                    throw timeout();
+                }
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled); // Conexión caducada o rota: cerrarla y probar con la siguiente.
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.nanoTime();
+        if (pooled.age(now) > TimeUnit.MILLISECONDS.toNanos(config.getMaxLifetimeMillis())) {
+            return false;
+        }
+        try {
+            if (pooled.connection.isClosed()) {
+                return false;
+            }
+            if (pooled.idleFor(now) > TimeUnit.MILLISECONDS.toNanos(config.getValidateAfterIdleMillis())) {
+                return pooled.connection.isValid(config.getValidationTimeoutSeconds());
+            }
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private Connection lease(PooledConnection pooled, ConcurrentLinkedDeque<Connection> owner) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(pooled, owner));
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            boolean expired = pooled.age(System.nanoTime())
+                    > TimeUnit.MILLISECONDS.toNanos(config.getMaxLifetimeMillis());
+            if (!closed && !expired && pooled.reset()) {
+                pooled.touch();
+                idle.offerFirst(pooled); // LIFO: las conexiones frías envejecen y se desalojan.
+            } else {
+                discard(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        long maxLifetime = TimeUnit.MILLISECONDS.toNanos(config.getMaxLifetimeMillis());
+        for (PooledConnection pooled : idle) {
+            boolean expired = pooled.age(now) > maxLifetime;
+            boolean surplus = pooled.idleFor(now) > idleTimeout && idle.size() > config.getMinIdle();
+            // remove() falla si otro hilo acaba de tomar la conexión en préstamo.
+            if ((expired || surplus) && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+        fillToMinIdle();
+    }
+
+    /**
+     * Abre las conexiones que falten hasta tener {@code minIdle} ociosas. La tarea de
+     * mantenimiento lo hace periódicamente; el arranque de la aplicación lo llama directamente
+     * para que el primer inicio de sesión no pague la conexión TCP y la autenticación con MySQL.
+     * Si una conexión no se puede abrir, se informa y se deja para el siguiente mantenimiento.
+     */
+    public void fillToMinIdle() {
+        while (!closed && idle.size() < config.getMinIdle() && reserveSlot()) {
+            try {
+                idle.offerLast(open());
+            } catch (SQLException ex) {
+                System.err.println("No se pudo abrir una conexión del pool: " + ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = total.get();
+            if (current >= config.getMaxSize()) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(config.getUrl());
+            return new PooledConnection(connection,
+                    new StatementCache(connection, config.getStatementCacheSize(), statementCounters));
+        } catch (SQLException | RuntimeException ex) {
+            total.decrementAndGet(); // Liberar el hueco reservado por reserveSlot().
+            throw ex;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        pooled.statements.closeAll();
+        try {
+            pooled.connection.close();
+        } catch (SQLException ex) {
+            System.err.println("Error al cerrar una conexión del pool: " + ex.getMessage());
+        }
+    }
+
+    private SQLException timeout() {
+        return new SQLException("Tiempo de espera agotado (" + config.getBorrowTimeoutMillis()
+                + " ms) para obtener una conexión del pool; activas=" + getActiveConnections()
+                + ", máximo=" + config.getMaxSize() + ".");
+    }
+
+    /**
+     * Conexión física administrada por el pool, junto con sus marcas de tiempo.
+     */
+    static final class PooledConnection {
+        final Connection connection;
+        final StatementCache statements;
+        private final long createdAt = System.nanoTime();
+        private volatile long lastUsedAt = createdAt;
+
+        PooledConnection(Connection connection, StatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+        }
+
+        long age(long now) {
+            return now - createdAt;
+        }
+
+        long idleFor(long now) {
+            return now - lastUsedAt;
+        }
+
+        void touch() {
+            lastUsedAt = System.nanoTime();
+        }
+
+        /**
+         * Deja la conexión en el estado por defecto antes de volver al pool.
+         *
+         * @return true si la conexión sigue siendo utilizable.
+         */
+        boolean reset() {
+            try {
+                if (connection.isClosed()) {
+                    return false;
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.rollback(); // Descartar cualquier transacción que quedara abierta.
+                    connection.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Manejador del proxy de un préstamo. Redirige todas las llamadas a la conexión física,
+     * salvo {@code close()}, que devuelve la conexión al pool una sola vez, y
+     * {@code prepareStatement}, que pasa por la caché de sentencias de la conexión y entrega la
+     * sentencia envuelta por el registro de consultas lentas.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final ConcurrentLinkedDeque<Connection> owner; // Pila de préstamos del hilo que lo pidió.
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        LeaseHandler(PooledConnection pooled, ConcurrentLinkedDeque<Connection> owner) {
+            this.pooled = pooled;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        owner.removeLastOccurrence(proxy); // También si lo cierra otro hilo.
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Préstamo de " + pooled.connection;
+                default:
+                    break;
+            }
+            if (released.get()) {
+                throw new SQLException("La conexión ya fue devuelta al pool.");
+            }
+            if (method.getName().equals("prepareStatement")) {
+                Class<?>[] types = method.getParameterTypes();
+                String sql = (String) args[0];
+                PreparedStatement statement;
+                if (types.length == 1) {
+                    statement = pooled.statements.prepare((Connection) proxy, sql, null);
+                } else if (types.length == 2 && types[1] == int.class) {
+                    statement = pooled.statements.prepare((Connection) proxy, sql, (Integer) args[1]);
+                } else {
+                    statement = (PreparedStatement) invokePhysical(method, args); // Fuera de la caché (por ejemplo, cursores).
+                }
+                return slowQueries.track(statement, sql);
+            }
+            return invokePhysical(method, args);
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause(); // Propagar la excepción original del driver.
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package esfe.persistencia;
+
+/**
+ * Parámetros de configuración del pool de conexiones JDBC ({@link ConnectionPool}).
+ * Cada valor tiene un valor por defecto razonable para la aplicación de escritorio y
+ * puede sobrescribirse mediante propiedades del sistema (por ejemplo {@code -Desfe.pool.maxSize=20}).
+ */
+public class ConnectionPoolConfig {
+    private String url;                              // Cadena de conexión JDBC de las conexiones físicas.
+    private int minIdle = 2;                         // Conexiones ociosas que el pool intenta mantener abiertas.
+    private int maxSize = 10;                        // Máximo de conexiones físicas abiertas al mismo tiempo.
+    private long borrowTimeoutMillis = 10_000;       // Tiempo máximo de espera para obtener una conexión.
+    private long idleTimeoutMillis = 600_000;        // Tiempo tras el cual una conexión ociosa sobrante se cierra.
+    private long maxLifetimeMillis = 1_800_000;      // Vida máxima de una conexión física antes de reemplazarla.
+    private long validateAfterIdleMillis = 500;      // Ociosidad a partir de la cual se valida la conexión al prestarla.
+    private int validationTimeoutSeconds = 2;        // Tiempo máximo para Connection.isValid durante la validación.
+    private long housekeepingPeriodMillis = 30_000;  // Periodo de la tarea de mantenimiento (desalojo y relleno).
+    private int statementCacheSize = 32;             // Sentencias preparadas en caché por conexión (0 la desactiva).
+
+    public ConnectionPoolConfig(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Crea una configuración con los valores por defecto, sobrescritos por las propiedades
+     * del sistema {@code esfe.pool.*} que estén definidas.
+     *
+     * @param url La cadena de conexión JDBC.
+     * @return La configuración resultante.
+     */
+    public static ConnectionPoolConfig fromSystemProperties(String url) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig(url);
+        config.setMinIdle(Integer.getInteger("esfe.pool.minIdle", config.getMinIdle()));
+        config.setMaxSize(Integer.getInteger("esfe.pool.maxSize", config.getMaxSize()));
+        config.setBorrowTimeoutMillis(Long.getLong("esfe.pool.borrowTimeoutMillis", config.getBorrowTimeoutMillis()));
+        config.setIdleTimeoutMillis(Long.getLong("esfe.pool.idleTimeoutMillis", config.getIdleTimeoutMillis()));
+        config.setMaxLifetimeMillis(Long.getLong("esfe.pool.maxLifetimeMillis", config.getMaxLifetimeMillis()));
+        config.setValidateAfterIdleMillis(Long.getLong("esfe.pool.validateAfterIdleMillis", config.getValidateAfterIdleMillis()));
+        config.setValidationTimeoutSeconds(Integer.getInteger("esfe.pool.validationTimeoutSeconds", config.getValidationTimeoutSeconds()));
+        config.setHousekeepingPeriodMillis(Long.getLong("esfe.pool.housekeepingPeriodMillis", config.getHousekeepingPeriodMillis()));
+        config.setStatementCacheSize(Integer.getInteger("esfe.pool.statementCacheSize", config.getStatementCacheSize()));
+        return config;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    public long getValidateAfterIdleMillis() {
+        return validateAfterIdleMillis;
+    }
+
+    public void setValidateAfterIdleMillis(long validateAfterIdleMillis) {
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getHousekeepingPeriodMillis() {
+        return housekeepingPeriodMillis;
+    }
+
+    public void setHousekeepingPeriodMillis(long housekeepingPeriodMillis) {
+        this.housekeepingPeriodMillis = housekeepingPeriodMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+}
@@ -0,0 +1,85 @@
+package esfe.persistencia;
+
+import java.sql.Connection;    // Conexión en la que se crea el esquema.
+import java.sql.SQLException;  // Errores de la base de datos.
+import java.sql.Statement;     // Sentencias de definición del esquema.
+
+/**
+ * Base de datos embebida para las pruebas, los benchmarks y las pruebas de carga: una H2 en
+ * memoria, en modo compatible con MySQL, dentro del mismo proceso. No necesita un servidor ni
+ * credenciales, y cada proceso empieza con una base de datos vacía.
+ *
+ * Se activa con {@code -Desfe.db.url=embedded} ({@link #ALIAS}, la configuración por defecto de
+ * {@code mvn test}) o con la URL completa {@link #URL}; {@link ConnectionManager} crea entonces las
+ * tablas al iniciar. El driver de H2
+ * debe estar en el classpath (en el proyecto principal solo lo está para las pruebas).
+ */
+public final class EmbeddedDatabase {
+    /**
+     * URL de la base de datos embebida.
+     *
+     * - jdbc:h2:mem:securitydb2025 : Base de datos en memoria con el nombre de la de MySQL.
+     * - MODE=MySQL : Acepta la sintaxis de MySQL que usan los DAO (LIMIT, AUTO_INCREMENT...).
+     * - DATABASE_TO_LOWER=TRUE : Nombres de tablas y columnas sin distinguir mayúsculas, como MySQL.
+     * - IGNORECASE=TRUE : Las columnas de texto comparan sin distinguir mayúsculas, como la
+     * intercalación por defecto de MySQL; sin ello {@code LIKE} y la unicidad del email se comportan
+     * distinto en las pruebas que en producción.
+     * - DB_CLOSE_DELAY=-1 : La base de datos vive mientras viva el proceso, aunque el pool cierre
+     * todas sus conexiones.
+     */
+    public static final String URL = "jdbc:h2:mem:securitydb2025;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Valor de {@code esfe.db.url} que equivale a {@link #URL}. Permite elegir la base de datos
+     * embebida (por ejemplo desde el pom.xml) sin repetir la URL fuera de esta clase.
+     */
+    public static final String ALIAS = "embedded";
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Convierte el valor de {@code esfe.db.url} en una cadena de conexión JDBC.
+     *
+     * @param url La cadena de conexión, o {@link #ALIAS}.
+     * @return {@link #URL} si se recibió {@link #ALIAS}; si no, la misma cadena.
+     */
+    public static String resolve(String url) {
+        return ALIAS.equals(url) ? URL : url;
+    }
+
+    /**
+     * Indica si una cadena de conexión apunta a una base de datos H2 (embebida), cuyo esquema se
+     * crea automáticamente.
+     *
+     * @param url La cadena de conexión JDBC, o {@link #ALIAS}.
+     * @return true si es una URL de H2.
+     */
+    public static boolean isEmbedded(String url) {
+        return resolve(url).startsWith("jdbc:h2:");
+    }
+
+    /**
+     * Crea las tablas Users y Herramientas si no existen, con las mismas columnas que en MySQL
+     * (ver script.sql). {@code CREATE TABLE IF NOT EXISTS} es válido en H2 y en MySQL, por lo que
+     * también puede usarse sobre una base de datos MySQL de pruebas.
+     *
+     * @param connection La conexión en la que se crea el esquema.
+     * @throws SQLException Si no se puede crear alguna tabla.
+     */
+    public static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS Users (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "name VARCHAR(100) NOT NULL, " +
+                    "passwordHash VARCHAR(255) NOT NULL, " +
+                    "email VARCHAR(200) NOT NULL UNIQUE, " +
+                    "status TINYINT NOT NULL)");
+            statement.execute("CREATE TABLE IF NOT EXISTS Herramientas (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "nombre VARCHAR(100), " +
+                    "tipo VARCHAR(100), " +
+                    "uso_principal VARCHAR(255))");
+        }
+    }
+}
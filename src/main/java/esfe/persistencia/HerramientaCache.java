@@ -0,0 +1,281 @@
+package esfe.persistencia;
+
+import esfe.dominio.Herramienta; // Entidad almacenada en la caché.
+
+import java.sql.SQLException;                    // Representa errores específicos de la base de datos.
+import java.util.ArrayList;                      // Resultados de búsqueda en caché.
+import java.util.Iterator;                       // Recorre las entradas para desalojar la menos usada.
+import java.util.LinkedHashMap;                  // Mapas en orden de acceso, base de la política LRU.
+import java.util.Map;                            // Entradas de los mapas.
+import java.util.concurrent.TimeUnit;            // Conversión del TTL a nanosegundos.
+import java.util.concurrent.atomic.LongAdder;    // Contadores de aciertos, fallos y desalojos.
+
+/**
+ * Caché de lectura para el catálogo de herramientas, que es pequeño y se lee mucho más de lo que
+ * se modifica. Guarda tres mapas: herramientas por ID, resultados de búsqueda por término y
+ * páginas de búsqueda por (término, afterId, limit). Cada uno tiene un máximo de entradas (se
+ * desaloja la menos usada) y un tiempo de vida (TTL).
+ *
+ * {@link HerramientaDAO} consulta la caché antes de ir a la base de datos y la invalida en sus
+ * propias operaciones create/update/delete. Un contador de generación evita que una lectura que
+ * empezó antes de una invalidación guarde en la caché un resultado ya obsoleto.
+ *
+ * Configuración: {@code esfe.herramientaCache.enabled} (por defecto true),
+ * {@code esfe.herramientaCache.maxEntries} (1000) y {@code esfe.herramientaCache.ttlMillis} (60000).
+ */
+public class HerramientaCache {
+    private static HerramientaCache instance;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, Entry<Herramienta>> byId = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry<ArrayList<Herramienta>>> queries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<PageKey, Entry<Page<Herramienta>>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation; // Aumenta en cada invalidación; protegido por el monitor de la instancia.
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Valor en caché con su instante de expiración.
+     */
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    /**
+     * Clave de una página de búsqueda: la misma página se pide siempre con los mismos tres valores.
+     */
+    private record PageKey(String nombre, int afterId, int limit) {
+    }
+
+    HerramientaCache(boolean enabled, int maxEntries, long ttlMillis) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * @return La instancia compartida por todos los HerramientaDAO del proceso.
+     */
+    public static synchronized HerramientaCache getInstance() {
+        if (instance == null) {
+            instance = new HerramientaCache(
+                    Boolean.parseBoolean(System.getProperty("esfe.herramientaCache.enabled", "true")),
+                    Integer.getInteger("esfe.herramientaCache.maxEntries", 1000),
+                    Long.getLong("esfe.herramientaCache.ttlMillis", 60_000L));
+        }
+        return instance;
+    }
+
+    /** @return true si la caché guarda valores; si no, cada lectura va a la base de datos. */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Devuelve la herramienta con el ID indicado desde la caché o, si no está, la carga con el
+     * cargador recibido y la guarda. Las herramientas inexistentes (null) no se guardan.
+     *
+     * @param id     El ID de la herramienta.
+     * @param loader La consulta a la base de datos.
+     * @return Una copia de la herramienta, o null si no existe.
+     * @throws SQLException Si la consulta falla.
+     */
+    Herramienta getById(int id, AsyncDAOExecutor.SqlSupplier<Herramienta> loader) throws SQLException {
+        if (!enabled) {
+            return loader.get();
+        }
+        long startGeneration;
+        synchronized (this) {
+            Herramienta cached = lookup(byId, id);
+            if (cached != null) {
+                return copy(cached);
+            }
+            startGeneration = generation;
+        }
+        Herramienta loaded = loader.get(); // Fuera del monitor: la consulta no bloquea a los demás lectores.
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == startGeneration) {
+                    store(byId, id, copy(loaded));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Devuelve el resultado de una búsqueda por nombre desde la caché o, si no está, lo carga con
+     * el cargador recibido y lo guarda.
+     *
+     * @param nombre El término buscado.
+     * @param loader La consulta a la base de datos.
+     * @return Una copia de la lista de herramientas encontradas.
+     * @throws SQLException Si la consulta falla.
+     */
+    ArrayList<Herramienta> search(String nombre, AsyncDAOExecutor.SqlSupplier<ArrayList<Herramienta>> loader) throws SQLException {
+        if (!enabled) {
+            return loader.get();
+        }
+        long startGeneration;
+        synchronized (this) {
+            ArrayList<Herramienta> cached = lookup(queries, nombre);
+            if (cached != null) {
+                return copy(cached);
+            }
+            startGeneration = generation;
+        }
+        ArrayList<Herramienta> loaded = loader.get();
+        synchronized (this) {
+            if (generation == startGeneration) {
+                store(queries, nombre, copy(loaded));
+                for (Herramienta herramienta : loaded) {
+                    store(byId, herramienta.getId(), copy(herramienta)); // Aprovechar la búsqueda para getById.
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Devuelve una página de una búsqueda por nombre desde la caché o, si no está, la carga con el
+     * cargador recibido y la guarda. Solo se guarda la página pedida, no el resultado completo de
+     * la búsqueda, de modo que una búsqueda paginada con muchos resultados no ocupa más memoria ni
+     * tarda más en la primera página que la consulta por conjunto de claves.
+     *
+     * @param nombre  El término buscado.
+     * @param afterId El ID a partir del cual empieza la página.
+     * @param limit   El número máximo de herramientas de la página.
+     * @param loader  La consulta a la base de datos.
+     * @return Una copia de la página de herramientas encontradas.
+     * @throws SQLException Si la consulta falla.
+     */
+    Page<Herramienta> searchPage(String nombre, int afterId, int limit,
+                                 AsyncDAOExecutor.SqlSupplier<Page<Herramienta>> loader) throws SQLException {
+        if (!enabled) {
+            return loader.get();
+        }
+        PageKey key = new PageKey(nombre, afterId, limit);
+        long startGeneration;
+        synchronized (this) {
+            Page<Herramienta> cached = lookup(pages, key);
+            if (cached != null) {
+                return copy(cached);
+            }
+            startGeneration = generation;
+        }
+        Page<Herramienta> loaded = loader.get();
+        synchronized (this) {
+            if (generation == startGeneration) {
+                store(pages, key, copy(loaded));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Registra una herramienta recién creada o modificada: la guarda por ID y descarta los
+     * resultados y páginas de búsqueda, que podrían incluirla o dejar de incluirla.
+     *
+     * @param herramienta La herramienta con sus valores actuales.
+     */
+    synchronized void put(Herramienta herramienta) {
+        generation++;
+        queries.clear();
+        pages.clear();
+        if (enabled) {
+            store(byId, herramienta.getId(), copy(herramienta));
+        }
+    }
+
+    /**
+     * Quita una herramienta eliminada y descarta los resultados y páginas de búsqueda.
+     *
+     * @param id El ID de la herramienta eliminada.
+     */
+    synchronized void remove(int id) {
+        generation++;
+        queries.clear();
+        pages.clear();
+        byId.remove(id);
+    }
+
+    /**
+     * Vacía la caché, por ejemplo tras cambios hechos por otro proceso.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        queries.clear();
+        pages.clear();
+        byId.clear();
+    }
+
+    /** @return El número de lecturas respondidas desde la caché. */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return El número de lecturas que tuvieron que ir a la base de datos. */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** @return El número de entradas desalojadas por tamaño o por expiración. */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /** @return El número de entradas actualmente en caché (por ID, por búsqueda y por página). */
+    public synchronized int size() {
+        return byId.size() + queries.size() + pages.size();
+    }
+
+    private <K, V> V lookup(LinkedHashMap<K, Entry<V>> map, K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            map.remove(key); // Expirada: contar como desalojo y como fallo.
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    private <K, V> void store(LinkedHashMap<K, Entry<V>> map, K key, V value) {
+        map.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+        while (map.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove(); // La primera entrada es la menos usada recientemente.
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Copia defensiva: quien recibe la herramienta puede modificarla (por ejemplo el formulario
+     * de edición) sin alterar el valor guardado en la caché.
+     */
+    private static Herramienta copy(Herramienta herramienta) {
+        return new Herramienta(herramienta.getId(), herramienta.getNombre(),
+                herramienta.getTipo(), herramienta.getUso_principal());
+    }
+
+    private static ArrayList<Herramienta> copy(ArrayList<Herramienta> herramientas) {
+        ArrayList<Herramienta> copies = new ArrayList<>(herramientas.size());
+        for (Herramienta herramienta : herramientas) {
+            copies.add(copy(herramienta));
+        }
+        return copies;
+    }
+
+    private static Page<Herramienta> copy(Page<Herramienta> page) {
+        return new Page<>(copy(new ArrayList<>(page.getItems())), page.getNextAfterId(), page.hasMore());
+    }
+}
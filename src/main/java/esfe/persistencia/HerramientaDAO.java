@@ -5,14 +5,34 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import esfe.dominio.Herramienta;
 
 public class HerramientaDAO {
+    /**
+     * Número de filas que el cursor del servidor entrega por cada ida y vuelta en las búsquedas en streaming.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    // Latencias, filas y errores de cada operación (ver QueryMetrics).
+    private static final QueryMetrics METRICS = QueryMetrics.getInstance();
+    private static final QueryMetrics.Operation CREATE = METRICS.operation("HerramientaDAO.create");
+    private static final QueryMetrics.Operation UPDATE = METRICS.operation("HerramientaDAO.update");
+    private static final QueryMetrics.Operation DELETE = METRICS.operation("HerramientaDAO.delete");
+    private static final QueryMetrics.Operation SEARCH = METRICS.operation("HerramientaDAO.search");
+    private static final QueryMetrics.Operation SEARCH_PAGE = METRICS.operation("HerramientaDAO.searchPage");
+    private static final QueryMetrics.Operation SEARCH_STREAM = METRICS.operation("HerramientaDAO.searchStream");
+    private static final QueryMetrics.Operation GET_BY_ID = METRICS.operation("HerramientaDAO.getById");
+
     private ConnectionManager connManager; // Renombrado a connManager para mayor claridad
+    private final HerramientaCache cache;   // Caché de lectura compartida, invalidada por create/update/delete
 
     public HerramientaDAO() {
         connManager = ConnectionManager.getInstance(); // Obtener la instancia del gestor de conexiones
+        cache = HerramientaCache.getInstance();
     }
 
     /**
@@ -22,9 +42,25 @@ public class HerramientaDAO {
      * @return El objeto Herramienta recién creado, incluyendo el ID generado por la base de datos,
      * o null si ocurre algún error durante la creación.
      * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     * @see #create(Herramienta, boolean)
      */
     public Herramienta create(Herramienta herramienta) throws SQLException {
-        Herramienta res = null;
+        return create(herramienta, false);
+    }
+
+    /**
+     * Crea una nueva herramienta en la base de datos. Sin {@code refresh}, la herramienta
+     * retornada se construye con los datos recibidos y el ID generado, sin una segunda consulta;
+     * con {@code refresh} se vuelve a leer la fila para obtener los valores asignados por la base de datos.
+     *
+     * @param herramienta El objeto Herramienta que contiene la información de la nueva herramienta a crear.
+     * @param refresh     true para releer la fila insertada de la base de datos.
+     * @return El objeto Herramienta recién creado, o null si no se insertó ninguna fila.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public Herramienta create(Herramienta herramienta, boolean refresh) throws SQLException {
+        long started = CREATE.start();
+        int idGenerado = 0; // ID asignado por la base de datos; 0 si no se insertó ninguna fila.
         Connection connection = null; // Declarar la conexión localmente
         try {
             connection = connManager.connect(); // Obtener la conexión
@@ -42,9 +78,7 @@ public class HerramientaDAO {
                 if (affectedRows != 0) {
                     try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
                         if (generatedKeys.next()) {
-                            int idGenerado = generatedKeys.getInt(1);
-                            // Llamar a getById para obtener la herramienta completa con su nuevo ID
-                            res = getById(idGenerado); // Esto abrirá/cerrará su propia conexión
+                            idGenerado = generatedKeys.getInt(1);
                         } else {
                             throw new SQLException("La creación de la herramienta falló, no se obtuvo ID.");
                         }
@@ -52,6 +86,7 @@ public class HerramientaDAO {
                 }
             } // ps se cierra automáticamente aquí
         } catch (SQLException ex) {
+            CREATE.failure(started);
             System.err.println("Error al crear la herramienta: " + ex.getMessage()); // Imprimir el error para depuración
             throw new SQLException("Error al crear la herramienta: " + ex.getMessage(), ex);
         } finally {
@@ -64,7 +99,25 @@ public class HerramientaDAO {
                 }
             }
         }
-        return res;
+        CREATE.success(started, idGenerado == 0 ? 0 : 1); // Sin la relectura con refresh.
+        if (idGenerado == 0) {
+            return null;
+        }
+        if (refresh) {
+            // Releer la fila de la base de datos (no de la caché, que devolvería los mismos valores
+            // recibidos), después de devolver la conexión de la inserción al pool (retenerla
+            // mientras se pide otra puede agotar el pool). Se guarda en la caché la fila leída.
+            Herramienta leida = loadById(idGenerado);
+            if (leida == null) {
+                cache.remove(idGenerado); // Eliminada entre la inserción y la lectura.
+            } else {
+                cache.put(leida);
+            }
+            return leida;
+        }
+        Herramienta creada = new Herramienta(idGenerado, herramienta.getNombre(), herramienta.getTipo(), herramienta.getUso_principal());
+        cache.put(creada); // La nueva herramienta puede aparecer en búsquedas ya guardadas en la caché.
+        return creada;
     }
 
     /**
@@ -75,6 +128,7 @@ public class HerramientaDAO {
      * @throws SQLException Si ocurre un error al interactuar con la base de datos.
      */
     public boolean update(Herramienta herramienta) throws SQLException {
+        long started = UPDATE.start();
         boolean res = false;
         Connection connection = null; // Declarar la conexión localmente
         try {
@@ -92,6 +146,8 @@ public class HerramientaDAO {
                 }
             } // ps se cierra automáticamente aquí
         } catch (SQLException ex) {
+            UPDATE.failure(started);
+            cache.remove(herramienta.getId()); // Estado incierto: que la próxima lectura vaya a la base de datos.
             System.err.println("Error al modificar la herramienta: " + ex.getMessage()); // Imprimir el error
             throw new SQLException("Error al modificar la herramienta: " + ex.getMessage(), ex);
         } finally {
@@ -104,6 +160,10 @@ public class HerramientaDAO {
                 }
             }
         }
+        UPDATE.success(started, res ? 1 : 0);
+        if (res) {
+            cache.put(herramienta); // Guardar los valores nuevos y descartar las búsquedas afectadas.
+        }
         return res;
     }
 
@@ -115,6 +175,7 @@ public class HerramientaDAO {
      * @throws SQLException Si ocurre un error al interactuar con la base de datos.
      */
     public boolean delete(Herramienta herramienta) throws SQLException {
+        long started = DELETE.start();
         boolean res = false;
         Connection connection = null; // Declarar la conexión localmente
         try {
@@ -129,6 +190,7 @@ public class HerramientaDAO {
                 }
             } // ps se cierra automáticamente aquí
         } catch (SQLException ex) {
+            DELETE.failure(started);
             System.err.println("Error al eliminar la herramienta: " + ex.getMessage()); // Imprimir el error
             throw new SQLException("Error al eliminar la herramienta: " + ex.getMessage(), ex);
         } finally {
@@ -140,18 +202,34 @@ public class HerramientaDAO {
                     e.printStackTrace();
                 }
             }
+            cache.remove(herramienta.getId()); // También si falló: la fila pudo eliminarse igualmente.
         }
+        DELETE.success(started, res ? 1 : 0);
         return res;
     }
 
     /**
      * Busca herramientas en la base de datos cuyo nombre contenga la cadena de búsqueda proporcionada.
+     * Los resultados se sirven desde {@link HerramientaCache} mientras sigan vigentes.
      *
      * @param nombre La cadena de texto a buscar.
      * @return Un ArrayList de objetos Herramienta que coinciden con el criterio de búsqueda.
      * @throws SQLException Si ocurre un error al interactuar con la base de datos.
      */
     public ArrayList<Herramienta> search(String nombre) throws SQLException {
+        long started = SEARCH.start(); // Incluye los aciertos de la caché: es la latencia que percibe quien llama.
+        ArrayList<Herramienta> records;
+        try {
+            records = cache.search(nombre, () -> loadSearch(nombre));
+        } catch (SQLException ex) {
+            SEARCH.failure(started);
+            throw ex;
+        }
+        SEARCH.success(started, records.size());
+        return records;
+    }
+
+    private ArrayList<Herramienta> loadSearch(String nombre) throws SQLException {
         ArrayList<Herramienta> records = new ArrayList<>();
         Connection connection = null; // Declarar la conexión localmente
         try {
@@ -163,12 +241,7 @@ public class HerramientaDAO {
 
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        Herramienta herramienta = new Herramienta();
-                        herramienta.setId(rs.getInt("id")); // Usar nombre de columna para mayor claridad
-                        herramienta.setNombre(rs.getString("nombre"));
-                        herramienta.setTipo(rs.getString("tipo"));
-                        herramienta.setUso_principal(rs.getString("uso_principal"));
-                        records.add(herramienta);
+                        records.add(readHerramienta(rs));
                     }
                 } // rs se cierra automáticamente aquí
             } // ps se cierra automáticamente aquí
@@ -188,14 +261,149 @@ public class HerramientaDAO {
         return records;
     }
 
+    /**
+     * Busca herramientas cuyo nombre contenga la cadena indicada, devolviendo una sola página
+     * de resultados ordenada por ID (paginación por conjunto de claves). Las páginas se sirven
+     * desde {@link HerramientaCache} mientras sigan vigentes; la caché guarda solo cada página
+     * pedida, no el resultado completo de la búsqueda.
+     *
+     * @param nombre  La cadena de texto a buscar.
+     * @param afterId Se devuelven solo herramientas con ID mayor que éste (0 para la primera página).
+     * @param limit   El número máximo de herramientas de la página (como máximo {@link Page#MAX_SIZE}).
+     * @return La página de herramientas encontradas.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public Page<Herramienta> search(String nombre, int afterId, int limit) throws SQLException {
+        int pageLimit = Page.checkLimit(limit); // Como máximo Page.MAX_SIZE.
+        long started = SEARCH_PAGE.start();
+        Page<Herramienta> page;
+        try {
+            page = cache.searchPage(nombre, afterId, pageLimit, () -> loadSearchPage(nombre, afterId, pageLimit));
+        } catch (SQLException ex) {
+            SEARCH_PAGE.failure(started);
+            throw ex;
+        }
+        SEARCH_PAGE.success(started, page.getItems().size());
+        return page;
+    }
+
+    private Page<Herramienta> loadSearchPage(String nombre, int afterId, int limit) throws SQLException {
+        ArrayList<Herramienta> records = new ArrayList<>(limit);
+        boolean hasMore = false;
+        // Se pide una fila extra para saber si existe una página siguiente.
+        try (Connection connection = connManager.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "SELECT id, nombre, tipo, uso_principal FROM Herramientas " +
+                             "WHERE nombre LIKE ? AND id > ? ORDER BY id LIMIT ?")) {
+
+            ps.setString(1, "%" + nombre + "%");
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (records.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    records.add(readHerramienta(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            System.err.println("Error al buscar herramientas: " + ex.getMessage()); // Imprimir el error
+            throw new SQLException("Error al buscar herramientas: " + ex.getMessage(), ex);
+        }
+        int lastId = records.isEmpty() ? afterId : records.get(records.size() - 1).getId();
+        return new Page<>(records, lastId, hasMore);
+    }
+
+    /**
+     * Busca herramientas cuyo nombre contenga la cadena indicada y las entrega como un Stream
+     * perezoso, usando {@link #DEFAULT_FETCH_SIZE} como tamaño de bloque del cursor.
+     *
+     * @param nombre La cadena de texto a buscar.
+     * @return Un Stream de herramientas que debe cerrarse (por ejemplo con try-with-resources).
+     * @throws SQLException Si ocurre un error al ejecutar la consulta.
+     */
+    public Stream<Herramienta> searchStream(String nombre) throws SQLException {
+        return searchStream(nombre, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Busca herramientas cuyo nombre contenga la cadena indicada y las entrega como un Stream
+     * perezoso leído con un cursor del servidor en bloques de {@code fetchSize}. El Stream conserva
+     * una conexión del pool hasta que se cierra.
+     *
+     * @param nombre    La cadena de texto a buscar.
+     * @param fetchSize El número de filas que el servidor entrega por cada ida y vuelta.
+     * @return Un Stream de herramientas que debe cerrarse.
+     * @throws SQLException Si ocurre un error al ejecutar la consulta.
+     */
+    public Stream<Herramienta> searchStream(String nombre, int fetchSize) throws SQLException {
+        long started = SEARCH_STREAM.start(); // Solo se mide la apertura: las filas se leen al recorrer el Stream.
+        Connection connection = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            connection = connManager.connect();
+            ps = connection.prepareStatement(
+                    "SELECT id, nombre, tipo, uso_principal FROM Herramientas WHERE nombre LIKE ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, "%" + nombre + "%");
+            rs = ps.executeQuery();
+            Stream<Herramienta> herramientas = ResultSetStream.of(connection, ps, rs, HerramientaDAO::readHerramienta); // El Stream libera los recursos al cerrarse
+            SEARCH_STREAM.success(started, 0);
+            return herramientas;
+        } catch (SQLException ex) {
+            SEARCH_STREAM.failure(started);
+            ResultSetStream.closeQuietly(rs, ps, connection);
+            System.err.println("Error al buscar herramientas: " + ex.getMessage()); // Imprimir el error
+            throw new SQLException("Error al buscar herramientas: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Recorre las herramientas cuyo nombre contenga la cadena indicada, entregando cada una a la
+     * acción recibida sin acumularlas en memoria.
+     *
+     * @param nombre La cadena de texto a buscar.
+     * @param action La acción que recibe cada herramienta encontrada.
+     * @throws SQLException Si ocurre un error al ejecutar la consulta o al leer los resultados.
+     */
+    public void searchEach(String nombre, Consumer<Herramienta> action) throws SQLException {
+        try (Stream<Herramienta> herramientas = searchStream(nombre)) {
+            herramientas.forEach(action);
+        } catch (IllegalStateException ex) {
+            if (ex.getCause() instanceof SQLException sqlEx) {
+                throw new SQLException("Error al buscar herramientas: " + sqlEx.getMessage(), sqlEx);
+            }
+            throw ex;
+        }
+    }
+
     /**
      * Obtiene una herramienta de la base de datos basada en su ID.
+     * La herramienta se sirve desde {@link HerramientaCache} mientras siga vigente.
      *
      * @param id El ID de la herramienta que se desea obtener.
      * @return Un objeto Herramienta si se encuentra, null si no se encuentra.
      * @throws SQLException Si ocurre un error al interactuar con la base de datos.
      */
     public Herramienta getById(int id) throws SQLException {
+        long started = GET_BY_ID.start(); // Incluye los aciertos de la caché.
+        Herramienta herramienta;
+        try {
+            herramienta = cache.getById(id, () -> loadById(id));
+        } catch (SQLException ex) {
+            GET_BY_ID.failure(started);
+            throw ex;
+        }
+        GET_BY_ID.success(started, herramienta == null ? 0 : 1);
+        return herramienta;
+    }
+
+    private Herramienta loadById(int id) throws SQLException {
         Herramienta herramienta = null;
         Connection connection = null; // Declarar la conexión localmente
         try {
@@ -207,11 +415,7 @@ public class HerramientaDAO {
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        herramienta = new Herramienta();
-                        herramienta.setId(rs.getInt("id"));
-                        herramienta.setNombre(rs.getString("nombre"));
-                        herramienta.setTipo(rs.getString("tipo"));
-                        herramienta.setUso_principal(rs.getString("uso_principal"));
+                        herramienta = readHerramienta(rs);
                     }
                 } // rs se cierra automáticamente aquí
             } // ps se cierra automáticamente aquí
@@ -230,4 +434,85 @@ public class HerramientaDAO {
         }
         return herramienta;
     }
-}
\ No newline at end of file
+
+    // Variantes asíncronas: ejecutan el método síncrono en un hilo virtual del AsyncDAOExecutor
+    // y devuelven un CompletableFuture, que falla con la SQLException original si hay error.
+
+    /**
+     * Versión asíncrona de {@link #create(Herramienta)}.
+     *
+     * @param herramienta La herramienta a crear.
+     * @return Un futuro con la herramienta creada.
+     */
+    public CompletableFuture<Herramienta> createAsync(Herramienta herramienta) {
+        return AsyncDAOExecutor.getInstance().submit(() -> create(herramienta));
+    }
+
+    /**
+     * Versión asíncrona de {@link #update(Herramienta)}.
+     *
+     * @param herramienta La herramienta con la información actualizada.
+     * @return Un futuro con true si se actualizó alguna fila.
+     */
+    public CompletableFuture<Boolean> updateAsync(Herramienta herramienta) {
+        return AsyncDAOExecutor.getInstance().submit(() -> update(herramienta));
+    }
+
+    /**
+     * Versión asíncrona de {@link #delete(Herramienta)}.
+     *
+     * @param herramienta La herramienta a eliminar.
+     * @return Un futuro con true si se eliminó alguna fila.
+     */
+    public CompletableFuture<Boolean> deleteAsync(Herramienta herramienta) {
+        return AsyncDAOExecutor.getInstance().submit(() -> delete(herramienta));
+    }
+
+    /**
+     * Versión asíncrona de {@link #search(String)}.
+     *
+     * @param nombre La cadena de texto a buscar.
+     * @return Un futuro con la lista de herramientas encontradas.
+     */
+    public CompletableFuture<ArrayList<Herramienta>> searchAsync(String nombre) {
+        return AsyncDAOExecutor.getInstance().submit(() -> search(nombre));
+    }
+
+    /**
+     * Versión asíncrona de {@link #search(String, int, int)}.
+     *
+     * @param nombre  La cadena de texto a buscar.
+     * @param afterId El ID después del cual empieza la página.
+     * @param limit   El número máximo de herramientas de la página.
+     * @return Un futuro con la página de herramientas encontradas.
+     */
+    public CompletableFuture<Page<Herramienta>> searchAsync(String nombre, int afterId, int limit) {
+        return AsyncDAOExecutor.getInstance().submit(() -> search(nombre, afterId, limit));
+    }
+
+    /**
+     * Versión asíncrona de {@link #getById(int)}.
+     *
+     * @param id El ID de la herramienta.
+     * @return Un futuro con la herramienta encontrada, o con null si no existe.
+     */
+    public CompletableFuture<Herramienta> getByIdAsync(int id) {
+        return AsyncDAOExecutor.getInstance().submit(() -> getById(id));
+    }
+
+    /**
+     * Construye una Herramienta a partir de la fila actual de un ResultSet.
+     *
+     * @param rs El ResultSet posicionado en la fila a leer.
+     * @return Una nueva Herramienta con los valores de la fila.
+     * @throws SQLException Si ocurre un error al leer las columnas.
+     */
+    private static Herramienta readHerramienta(ResultSet rs) throws SQLException {
+        Herramienta herramienta = new Herramienta();
+        herramienta.setId(rs.getInt("id")); // Usar nombre de columna para mayor claridad
+        herramienta.setNombre(rs.getString("nombre"));
+        herramienta.setTipo(rs.getString("tipo"));
+        herramienta.setUso_principal(rs.getString("uso_principal"));
+        return herramienta;
+    }
+}
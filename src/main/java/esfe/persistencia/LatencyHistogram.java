@@ -0,0 +1,169 @@
+package esfe.persistencia;
+
+import java.util.concurrent.TimeUnit;              // Conversión de las latencias al informarlas.
+import java.util.concurrent.atomic.AtomicLong;     // Latencia máxima observada.
+import java.util.concurrent.atomic.AtomicLongArray; // Contadores de los intervalos, sin bloqueos.
+
+/**
+ * Histograma de latencias sin bloqueos, pensado para registrarse en cada llamada a la base de
+ * datos: registrar un valor es calcular un índice con operaciones de bits e incrementar un
+ * contador atómico, sin asignar memoria.
+ *
+ * Los intervalos son log-lineales, como en HdrHistogram: los valores menores que 16 ns tienen un
+ * intervalo propio y cada potencia de dos siguiente se divide en 16 intervalos iguales, de modo
+ * que el error relativo de un percentil es como máximo 1/16 (6,25 %) en todo el rango, desde
+ * nanosegundos hasta {@link #MAX_TRACKABLE_NANOS} (unos 18 minutos; los valores mayores se
+ * cuentan en el último intervalo).
+ *
+ * Los percentiles se calculan sobre una {@link Snapshot}, una copia de los contadores: tomarla
+ * mientras otros hilos registran puede mezclar registros de un instante y del siguiente, lo que
+ * es aceptable para métricas.
+ */
+public class LatencyHistogram {
+    /** Mayor latencia con intervalo propio (2^40 - 1 ns, unos 18 minutos). */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = index(MAX_TRACKABLE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos La latencia en nanosegundos; los valores negativos se cuentan como 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(Math.min(value, MAX_TRACKABLE_NANOS)));
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max); // Solo compite quien supera el máximo actual.
+        }
+    }
+
+    /**
+     * @return Una copia de los contadores, sobre la que se calculan los percentiles.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, max.get());
+    }
+
+    /**
+     * Vacía el histograma. Los registros concurrentes con el vaciado pueden conservarse o perderse.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);    // Posición del bit más alto (>= 4).
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1); // Los 4 bits siguientes al más alto.
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    /** @return El mayor valor que se cuenta en el intervalo indicado. */
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + mantissa) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Copia inmutable de un histograma.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        /** @return El número de latencias registradas. */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return La latencia máxima en nanosegundos, o 0 si no hay registros. */
+        public long getMaxNanos() {
+            return max;
+        }
+
+        /**
+         * Devuelve la latencia media, calculada con el punto medio de cada intervalo (con el mismo
+         * error relativo que los percentiles). No se lleva una suma exacta para no agregar otra
+         * operación atómica a cada registro.
+         *
+         * @return La latencia media en nanosegundos, o 0 si no hay registros.
+         */
+        public double getMeanNanos() {
+            if (count == 0) {
+                return 0;
+            }
+            double total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    long highest = Math.min(highestEquivalent(i), max);
+                    long lowest = i == 0 ? 0 : highestEquivalent(i - 1) + 1;
+                    total += counts[i] * ((lowest + Math.max(lowest, highest)) / 2.0);
+                }
+            }
+            return total / count;
+        }
+
+        /**
+         * Devuelve un percentil. El valor es el límite superior del intervalo que lo contiene
+         * (nunca mayor que el máximo observado), por lo que nunca subestima la latencia.
+         *
+         * @param percentile El percentil, entre 0 y 100 (por ejemplo 99.9).
+         * @return La latencia en nanosegundos, o 0 si no hay registros.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("El percentil debe estar entre 0 y 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestEquivalent(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @param percentile El percentil, entre 0 y 100.
+         * @return La latencia en microsegundos, para informarla.
+         */
+        public long getPercentileMicros(double percentile) {
+            return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(percentile));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package esfe.persistencia;
+
+import java.util.ArrayList;                           // Candidatas a desalojar.
+import java.util.Comparator;                          // Ordena las candidatas por antigüedad.
+import java.util.Locale;                              // Normalización de los emails.
+import java.util.Map;                                 // Entradas recorridas al desalojar.
+import java.util.concurrent.ConcurrentHashMap;        // Cubetas por clave, sin bloqueo global.
+import java.util.concurrent.ThreadLocalRandom;        // Decide, sin contención, cuándo barrer entradas inactivas.
+import java.util.concurrent.atomic.AtomicLong;        // Momento del último barrido.
+import java.util.concurrent.atomic.AtomicReference;   // Estado de cada cubeta, actualizado con CAS.
+import java.util.concurrent.atomic.LongAdder;         // Contador de intentos rechazados.
+import java.util.function.LongSupplier;               // Reloj en milisegundos (reemplazable en las pruebas).
+
+/**
+ * Limita los intentos de inicio de sesión antes de que lleguen a JDBC y al cálculo del hash.
+ *
+ * Cada email, y cada origen cuando se conoce (por ejemplo la dirección remota de un servicio),
+ * tiene una cubeta de fichas: cada intento consume una ficha y las fichas se reponen a ritmo
+ * constante. Tras varios fallos seguidos la clave queda bloqueada durante un tiempo que se duplica
+ * con cada fallo adicional. El estado de cada cubeta es inmutable y se reemplaza con
+ * compare-and-set, por lo que no hay candados ni siquiera para una clave muy disputada.
+ *
+ * La memoria está acotada: las entradas inactivas (sin bloqueo vigente) se eliminan en barridos
+ * ocasionales y, si aun así se alcanza el máximo de entradas, se desalojan las entradas sin bloqueo
+ * vigente usadas hace más tiempo. Las claves nuevas nunca comparten una cubeta común: con ella,
+ * quien probara miles de emails distintos agotaría las fichas de todos los usuarios legítimos. Si
+ * todas las entradas están bloqueadas, la clave nueva se limita solo por su origen.
+ */
+public final class LoginThrottle {
+    private static final int SWEEP_ONE_IN = 1024;     // Probabilidad (1/n) de barrer en cada intento.
+    private static final long MIN_SWEEP_INTERVAL = 1_000; // Milisegundos mínimos entre dos barridos.
+    private static final int EVICT_FRACTION = 16;     // Con el máximo alcanzado se desaloja 1/16 de las entradas de una vez.
+
+    private static LoginThrottle instance;
+
+    /**
+     * Límites de una dimensión (email u origen).
+     *
+     * @param capacity          Intentos que pueden hacerse seguidos con la cubeta llena.
+     * @param refillPerSecond   Fichas que se reponen por segundo.
+     * @param freeFailures      Fallos seguidos tolerados antes de empezar a bloquear.
+     * @param baseBackoffMillis Duración del primer bloqueo; cada fallo adicional la duplica.
+     * @param maxBackoffMillis  Duración máxima de un bloqueo.
+     */
+    public record Limits(int capacity, double refillPerSecond, int freeFailures,
+                         long baseBackoffMillis, long maxBackoffMillis) {
+    }
+
+    /**
+     * Estado inmutable de una cubeta.
+     */
+    private record State(double tokens, long updatedAt, int failures, long blockedUntil) {
+    }
+
+    /**
+     * Cubetas de una dimensión.
+     */
+    private static final class Dimension {
+        final Limits limits;
+        final ConcurrentHashMap<String, AtomicReference<State>> buckets = new ConcurrentHashMap<>();
+
+        Dimension(Limits limits) {
+            this.limits = limits;
+        }
+    }
+
+    /**
+     * Entrada que se puede desalojar, con la antigüedad de su último uso.
+     */
+    private record Candidate(Dimension dimension, String key, AtomicReference<State> ref, long updatedAt) {
+    }
+
+    private final Dimension emails;
+    private final Dimension sources;
+    private final int maxEntries;
+    private final long idleMillis;
+    private final LongSupplier clock;
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    LoginThrottle(Limits emailLimits, Limits sourceLimits, int maxEntries, long idleMillis, LongSupplier clock) {
+        this.clock = clock;
+        this.emails = new Dimension(emailLimits);
+        this.sources = new Dimension(sourceLimits);
+        this.maxEntries = maxEntries;
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * Devuelve la instancia compartida. Por email: 5 intentos seguidos, una ficha cada 6 segundos,
+     * 3 fallos tolerados y bloqueos de 1 segundo a 5 minutos. Por origen: 50 intentos seguidos y
+     * 5 fichas por segundo. Máximo de entradas: {@code esfe.login.maxEntries} (100000).
+     *
+     * @return La instancia compartida por todos los UserDAO del proceso.
+     */
+    public static synchronized LoginThrottle getInstance() {
+        if (instance == null) {
+            instance = new LoginThrottle(
+                    new Limits(5, 1 / 6.0, 3, 1_000, 300_000),
+                    new Limits(50, 5, 20, 1_000, 300_000),
+                    Integer.getInteger("esfe.login.maxEntries", 100_000),
+                    900_000, System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    /**
+     * Registra un intento de inicio de sesión, o lo rechaza si el email o el origen superaron su límite.
+     *
+     * @param email  El email con el que se intenta iniciar sesión.
+     * @param source El origen del intento, o null si no se conoce (se limita solo por email).
+     * @throws LoginThrottledException Si el intento debe rechazarse.
+     */
+    public void acquire(String email, String source) throws LoginThrottledException {
+        long now = clock.getAsLong();
+        if (ThreadLocalRandom.current().nextInt(SWEEP_ONE_IN) == 0) {
+            sweep(now);
+        }
+        long wait = 0;
+        if (source != null) {
+            wait = tryAcquire(sources, bucket(sources, source, now), now);
+        }
+        if (wait == 0) {
+            wait = tryAcquire(emails, bucket(emails, normalize(email), now), now);
+        }
+        if (wait > 0) {
+            rejected.increment();
+            throw new LoginThrottledException(wait);
+        }
+    }
+
+    /**
+     * Registra un inicio de sesión fallido: cuenta el fallo y, superados los tolerados, bloquea la
+     * clave con un tiempo que se duplica en cada fallo.
+     *
+     * @param email  El email usado.
+     * @param source El origen del intento, o null.
+     */
+    public void recordFailure(String email, String source) {
+        long now = clock.getAsLong();
+        fail(emails, bucket(emails, normalize(email), now), now);
+        if (source != null) {
+            fail(sources, bucket(sources, source, now), now);
+        }
+    }
+
+    /**
+     * Registra un inicio de sesión correcto: reinicia los fallos del email. Los del origen se
+     * conservan, para que una cuenta válida no sirva para reiniciar los ataques desde ese origen.
+     *
+     * @param email El email autenticado.
+     */
+    public void recordSuccess(String email) {
+        AtomicReference<State> ref = emails.buckets.get(normalize(email));
+        if (ref == null) {
+            return;
+        }
+        State current;
+        do {
+            current = ref.get();
+        } while (!ref.compareAndSet(current, new State(current.tokens(), current.updatedAt(), 0, 0)));
+    }
+
+    /** @return El número de intentos rechazados. */
+    public long getRejectedAttempts() {
+        return rejected.sum();
+    }
+
+    /** @return El número de claves (emails y orígenes) con estado en memoria. */
+    public long getTrackedKeys() {
+        return emails.buckets.mappingCount() + sources.buckets.mappingCount();
+    }
+
+    /**
+     * Consume una ficha de la cubeta.
+     *
+     * @param ref La cubeta, o null si la clave no tiene cubeta (ver {@link #bucket}).
+     * @return 0 si se concedió el intento, o los milisegundos a esperar.
+     */
+    private static long tryAcquire(Dimension dimension, AtomicReference<State> ref, long now) {
+        if (ref == null) {
+            return 0;
+        }
+        Limits limits = dimension.limits;
+        while (true) {
+            State current = ref.get();
+            if (now < current.blockedUntil()) {
+                return current.blockedUntil() - now;
+            }
+            double tokens = refill(limits, current, now);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) * 1000 / limits.refillPerSecond());
+            }
+            State next = new State(tokens - 1, now, current.failures(), current.blockedUntil());
+            if (ref.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private static void fail(Dimension dimension, AtomicReference<State> ref, long now) {
+        if (ref == null) {
+            return;
+        }
+        Limits limits = dimension.limits;
+        State current;
+        State next;
+        do {
+            current = ref.get();
+            int failures = current.failures() + 1;
+            long blockedUntil = current.blockedUntil();
+            if (failures > limits.freeFailures()) {
+                int doublings = Math.min(failures - limits.freeFailures() - 1, 30);
+                long backoff = Math.min(limits.maxBackoffMillis(), limits.baseBackoffMillis() << doublings);
+                blockedUntil = Math.max(blockedUntil, now + backoff);
+            }
+            next = new State(refill(limits, current, now), now, failures, blockedUntil);
+        } while (!ref.compareAndSet(current, next));
+    }
+
+    private static double refill(Limits limits, State state, long now) {
+        double elapsedSeconds = Math.max(0, now - state.updatedAt()) / 1000.0;
+        return Math.min(limits.capacity(), state.tokens() + elapsedSeconds * limits.refillPerSecond());
+    }
+
+    /**
+     * Obtiene o crea la cubeta de una clave. Si se alcanzó el máximo de entradas incluso después
+     * de barrer las inactivas, se desalojan las más antiguas sin bloqueo vigente; si todas están
+     * bloqueadas, devuelve null y la clave no se limita en esta dimensión.
+     */
+    private AtomicReference<State> bucket(Dimension dimension, String key, long now) {
+        AtomicReference<State> ref = dimension.buckets.get(key);
+        if (ref != null) {
+            return ref;
+        }
+        if (getTrackedKeys() >= maxEntries) {
+            sweep(now);
+            if (getTrackedKeys() >= maxEntries && !evictOldest(now)) {
+                return null;
+            }
+        }
+        return dimension.buckets.computeIfAbsent(key,
+                k -> new AtomicReference<>(new State(dimension.limits.capacity(), now, 0, 0)));
+    }
+
+    /**
+     * Elimina las entradas sin actividad reciente y sin un bloqueo vigente. Sus fallos se olvidan:
+     * una clave inactiva durante {@code idleMillis} vuelve a empezar con la cubeta llena.
+     * Como mucho un hilo barre por segundo, para que una ráfaga de claves nuevas no provoque un
+     * recorrido completo por cada intento.
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < MIN_SWEEP_INTERVAL || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Dimension dimension : new Dimension[]{emails, sources}) {
+            for (Map.Entry<String, AtomicReference<State>> entry : dimension.buckets.entrySet()) {
+                State state = entry.getValue().get();
+                if (now - state.updatedAt() > idleMillis && now >= state.blockedUntil()) {
+                    dimension.buckets.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Desaloja, de ambas dimensiones, la fracción {@link #EVICT_FRACTION} de las entradas sin bloqueo
+     * vigente que se usaron hace más tiempo. Desalojar por lotes reparte el costo del recorrido
+     * entre muchas claves nuevas. Las entradas bloqueadas se conservan: desalojarlas levantaría el
+     * bloqueo. Sincronizado para que una ráfaga de claves nuevas no provoque varios recorridos a la vez.
+     *
+     * @return false si no había ninguna entrada que desalojar.
+     */
+    private synchronized boolean evictOldest(long now) {
+        if (getTrackedKeys() < maxEntries) {
+            return true; // Otro hilo acaba de desalojar.
+        }
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        for (Dimension dimension : new Dimension[]{emails, sources}) {
+            for (Map.Entry<String, AtomicReference<State>> entry : dimension.buckets.entrySet()) {
+                State state = entry.getValue().get();
+                if (now >= state.blockedUntil()) {
+                    candidates.add(new Candidate(dimension, entry.getKey(), entry.getValue(), state.updatedAt()));
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        candidates.sort(Comparator.comparingLong(Candidate::updatedAt));
+        int count = Math.min(candidates.size(), Math.max(1, maxEntries / EVICT_FRACTION));
+        for (int i = 0; i < count; i++) {
+            Candidate candidate = candidates.get(i);
+            candidate.dimension().buckets.remove(candidate.key(), candidate.ref());
+        }
+        return true;
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
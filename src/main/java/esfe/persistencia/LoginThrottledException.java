@@ -0,0 +1,21 @@
+package esfe.persistencia;
+
+import java.sql.SQLException; // Tipo base de los errores de los DAO.
+
+/**
+ * Se lanza cuando {@link UserDAO#authenticate} rechaza un intento de inicio de sesión por
+ * exceso de intentos, antes de consultar la base de datos o calcular el hash.
+ */
+public class LoginThrottledException extends SQLException {
+    private final long retryAfterMillis;
+
+    public LoginThrottledException(long retryAfterMillis) {
+        super("Demasiados intentos de inicio de sesión. Intente de nuevo en " + Math.max(1, (retryAfterMillis + 999) / 1000) + " segundos.");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /** @return El tiempo, en milisegundos, que debe esperarse antes de volver a intentar. */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,120 @@
+package esfe.persistencia;
+
+import java.util.ArrayList;   // Lista de elementos de la página.
+import java.util.Collections; // Envuelve la lista en una vista inmodificable.
+import java.util.List;        // Vista de solo lectura de los elementos.
+import java.util.function.ToIntFunction; // Obtiene el ID de cada elemento al recortar una lista.
+
+/**
+ * Página de resultados de una búsqueda paginada por conjunto de claves (keyset). Contiene los
+ * elementos de la página y, si hay más resultados, un token de continuación que se pasa a la
+ * siguiente llamada para obtener la página que sigue.
+ *
+ * El token es opaco para quien llama: internamente codifica el último ID devuelto, de modo que la
+ * siguiente página se obtiene con {@code WHERE id > ? ORDER BY id} usando el índice de la clave
+ * primaria, sin importar cuántas páginas se hayan recorrido.
+ *
+ * @param <T> El tipo de los elementos.
+ */
+public class Page<T> {
+    /**
+     * Tamaño máximo de una página. Los límites mayores se reducen a este valor: la búsqueda sigue
+     * siendo correcta (la página indica que hay más resultados) y no se reservan arreglos enormes ni
+     * se desborda el {@code LIMIT limit + 1} de la consulta.
+     */
+    public static final int MAX_SIZE = 10_000;
+
+    private final ArrayList<T> items;
+    private final int lastId;       // ID del último elemento devuelto.
+    private final boolean hasMore;  // true si existen más resultados después de esta página.
+
+    public Page(ArrayList<T> items, int lastId, boolean hasMore) {
+        this.items = items;
+        this.lastId = lastId;
+        this.hasMore = hasMore;
+    }
+
+    /** @return Los elementos de la página, en orden ascendente de ID. */
+    public List<T> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /** @return true si existen más resultados después de esta página. */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return El token para pedir la página siguiente, o null si ésta es la última página.
+     */
+    public String getNextToken() {
+        return hasMore ? Integer.toString(lastId) : null;
+    }
+
+    /**
+     * @return El último ID de la página, que se puede pasar como {@code afterId} a la siguiente búsqueda.
+     */
+    public int getNextAfterId() {
+        return lastId;
+    }
+
+    /**
+     * Valida el límite de una búsqueda paginada y lo reduce a {@link #MAX_SIZE}.
+     *
+     * @param limit El número máximo de elementos pedido.
+     * @return El límite a usar, entre 1 y {@link #MAX_SIZE}.
+     * @throws IllegalArgumentException Si el límite no es mayor que cero.
+     */
+    public static int checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit debe ser mayor que cero: " + limit);
+        }
+        return Math.min(limit, MAX_SIZE);
+    }
+
+    /**
+     * Recorta de una lista ya ordenada por ID la página que sigue a {@code afterId}, con la misma
+     * semántica que la consulta {@code WHERE id > ? ORDER BY id LIMIT ?}. Permite responder una
+     * búsqueda paginada desde un resultado completo en memoria (índice o caché).
+     *
+     * @param items   Los elementos, en orden ascendente de ID.
+     * @param id      La función que obtiene el ID de un elemento.
+     * @param afterId Se devuelven solo elementos con ID mayor que éste.
+     * @param limit   El número máximo de elementos, ya validado con {@link #checkLimit(int)}.
+     * @return La página de elementos.
+     */
+    static <T> Page<T> slice(List<T> items, ToIntFunction<T> id, int afterId, int limit) {
+        // Búsqueda binaria del primer elemento con ID mayor que afterId.
+        int from = 0;
+        int to = items.size();
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (id.applyAsInt(items.get(mid)) <= afterId) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        int end = (int) Math.min((long) from + limit, items.size());
+        ArrayList<T> page = new ArrayList<>(items.subList(from, end));
+        int lastId = page.isEmpty() ? afterId : id.applyAsInt(page.get(page.size() - 1));
+        return new Page<>(page, lastId, end < items.size());
+    }
+
+    /**
+     * Convierte un token de continuación en el ID a partir del cual continuar la búsqueda.
+     *
+     * @param token El token obtenido de {@link #getNextToken()}, o null para empezar desde el principio.
+     * @return El ID a partir del cual continuar (0 para la primera página).
+     */
+    public static int afterId(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Token de continuación inválido: " + token, ex);
+        }
+    }
+}
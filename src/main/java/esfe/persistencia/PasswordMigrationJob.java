@@ -0,0 +1,254 @@
+package esfe.persistencia;
+
+import esfe.dominio.User;         // Usuario con su ID y el hash leído.
+import esfe.utils.PasswordHasher; // Protege los hashes del formato anterior.
+
+import java.io.IOException;                      // Errores al leer o escribir el punto de control.
+import java.io.Reader;                           // Lectura del punto de control.
+import java.io.Writer;                           // Escritura del punto de control.
+import java.nio.charset.StandardCharsets;        // Codificación del archivo de punto de control.
+import java.nio.file.AtomicMoveNotSupportedException; // El sistema de archivos no permite reemplazos atómicos.
+import java.nio.file.Files;                      // Operaciones sobre el archivo de punto de control.
+import java.nio.file.Path;                       // Ubicación del punto de control.
+import java.nio.file.Paths;                      // Ruta recibida en la línea de comandos.
+import java.nio.file.StandardCopyOption;         // Reemplazo atómico del punto de control.
+import java.sql.SQLException;                    // Errores de la base de datos.
+import java.util.ArrayList;                      // Usuarios de cada bloque que deben migrarse.
+import java.util.Arrays;                         // Vista de lista de los hashes nuevos.
+import java.util.List;                           // Usuarios leídos de cada bloque.
+import java.util.Properties;                     // Formato del punto de control.
+import java.util.concurrent.ForkJoinPool;        // Calcula los hashes de cada bloque en paralelo.
+import java.util.concurrent.RecursiveAction;     // División del bloque entre los hilos del pool.
+import java.util.concurrent.TimeUnit;            // Conversión de las pausas de la limitación.
+
+/**
+ * Migra a PBKDF2 los hashes de contraseña del formato anterior (SHA-256 sin sal) de toda la tabla
+ * Users, sin detener la aplicación y sin esperar a que cada usuario vuelva a iniciar sesión.
+ *
+ * Como la contraseña no se conoce, cada hash anterior se protege con
+ * {@link PasswordHasher#wrapLegacyHash(String)}: el resultado verifica la misma contraseña y el
+ * siguiente inicio de sesión lo reemplaza por el formato actual.
+ *
+ * La tabla se recorre en bloques por rango de ID con {@link UserDAO#getPasswordHashes(int, int)}.
+ * Los hashes de cada bloque se calculan en un {@link ForkJoinPool} propio, con el paralelismo
+ * indicado, y se guardan con una ejecución por lotes condicional
+ * ({@link UserDAO#replacePasswordHashes(List, List)}): una fila cuya contraseña cambió mientras
+ * tanto se deja como está. El recorrido se limita a un número de filas por segundo para no
+ * competir con la carga normal de la base de datos.
+ *
+ * Tras confirmar cada bloque se guarda el último ID procesado en un archivo de punto de control.
+ * Si el proceso se interrumpe, la siguiente ejecución continúa desde ese ID; si se interrumpió
+ * entre la confirmación y el punto de control, el bloque se vuelve a leer y sus filas ya
+ * migradas simplemente no se modifican. Al terminar la tabla el archivo se elimina.
+ */
+public class PasswordMigrationJob {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final int SPLIT_THRESHOLD = 4; // Hashes por tarea; cada uno cuesta varios milisegundos.
+    private static final String LAST_ID = "lastId";
+
+    private final UserDAO userDAO;
+    private final Path checkpointFile;
+    private final int chunkSize;
+    private final double rowsPerSecond;
+    private final int parallelism;
+    private volatile boolean stopped;
+
+    /**
+     * Resultado de una ejecución.
+     *
+     * @param lastId        El último ID procesado.
+     * @param scanned       Las filas leídas en esta ejecución.
+     * @param migrated      Las filas cuyo hash se reemplazó.
+     * @param skipped       Las filas del formato anterior que cambiaron antes de poder reemplazarse.
+     * @param completed     true si se recorrió toda la tabla; false si se detuvo con {@link #stop()}.
+     * @param elapsedMillis La duración de la ejecución.
+     */
+    public record Result(int lastId, long scanned, long migrated, long skipped, boolean completed, long elapsedMillis) {
+    }
+
+    /**
+     * @param userDAO        El DAO con el que se leen y actualizan los usuarios.
+     * @param checkpointFile El archivo donde se guarda el progreso.
+     * @param chunkSize      Las filas por bloque, por lote y por transacción.
+     * @param rowsPerSecond  Las filas leídas por segundo como máximo; 0 o menos para no limitar.
+     * @param parallelism    Los hilos que calculan los hashes.
+     */
+    public PasswordMigrationJob(UserDAO userDAO, Path checkpointFile, int chunkSize, double rowsPerSecond, int parallelism) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize debe ser mayor que cero: " + chunkSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism debe ser mayor que cero: " + parallelism);
+        }
+        this.userDAO = userDAO;
+        this.checkpointFile = checkpointFile;
+        this.chunkSize = chunkSize;
+        this.rowsPerSecond = rowsPerSecond;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Recorre la tabla desde el punto de control (o desde el principio si no existe) hasta el
+     * final o hasta que se llame a {@link #stop()}.
+     *
+     * @return El resultado de la ejecución.
+     * @throws SQLException Si falla la lectura o la actualización de un bloque; el bloque se
+     *                      revierte y el punto de control queda en el bloque anterior.
+     * @throws IOException  Si no se puede leer o escribir el punto de control.
+     */
+    public Result run() throws SQLException, IOException {
+        long start = System.nanoTime();
+        int lastId = readCheckpoint();
+        long scanned = 0;
+        long migrated = 0;
+        long skipped = 0;
+        boolean completed = false;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (!stopped) {
+                Page<User> page = userDAO.getPasswordHashes(lastId, chunkSize);
+                List<User> users = page.getItems();
+
+                ArrayList<User> legacy = new ArrayList<>();
+                for (User user : users) {
+                    if (PasswordHasher.isLegacyHash(user.getPasswordHash())) {
+                        legacy.add(user);
+                    }
+                }
+                if (!legacy.isEmpty()) {
+                    String[] hashes = new String[legacy.size()];
+                    pool.invoke(new WrapTask(legacy, hashes, 0, hashes.length));
+                    int updated = userDAO.replacePasswordHashes(legacy, Arrays.asList(hashes));
+                    migrated += updated;
+                    skipped += legacy.size() - updated;
+                }
+
+                scanned += users.size();
+                lastId = page.getNextAfterId();
+                if (!page.hasMore()) {
+                    completed = true;
+                    break;
+                }
+                writeCheckpoint(lastId);
+                throttle(start, scanned);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt(); // Se detiene como con stop(): el punto de control ya está guardado.
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (completed) {
+            Files.deleteIfExists(checkpointFile);
+        }
+        return new Result(lastId, scanned, migrated, skipped, completed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Pide detener la ejecución después del bloque en curso. El punto de control se conserva.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Espera lo necesario para no superar {@code rowsPerSecond} desde el inicio de la ejecución.
+     */
+    private void throttle(long start, long scanned) throws InterruptedException {
+        if (rowsPerSecond <= 0) {
+            return;
+        }
+        long expected = (long) (scanned / rowsPerSecond * 1_000_000_000L);
+        long ahead = expected - (System.nanoTime() - start);
+        if (ahead > 0) {
+            TimeUnit.NANOSECONDS.sleep(ahead);
+        }
+    }
+
+    /**
+     * @return El último ID procesado según el punto de control, o 0 si no existe.
+     */
+    private int readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            return Integer.parseInt(properties.getProperty(LAST_ID, "0").trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Punto de control inválido en " + checkpointFile + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Guarda el progreso en un archivo temporal y lo mueve sobre el punto de control, para que un
+     * fallo durante la escritura nunca deje un punto de control a medias.
+     */
+    private void writeCheckpoint(int lastId) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(LAST_ID, Integer.toString(lastId));
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Progreso de la migración de hashes de contraseña");
+        }
+        try {
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Calcula los hashes de un rango del bloque, dividiéndolo entre los hilos del pool.
+     */
+    private static final class WrapTask extends RecursiveAction {
+        private final List<User> users;
+        private final String[] hashes;
+        private final int from;
+        private final int to;
+
+        WrapTask(List<User> users, String[] hashes, int from, int to) {
+            this.users = users;
+            this.hashes = hashes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    hashes[i] = PasswordHasher.wrapLegacyHash(users.get(i).getPasswordHash());
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new WrapTask(users, hashes, from, middle), new WrapTask(users, hashes, middle, to));
+        }
+    }
+
+    /**
+     * Ejecuta la migración contra la base de datos configurada.
+     *
+     * Argumentos opcionales: archivo de punto de control ({@code password-migration.properties}),
+     * filas por segundo (200) e hilos (la mitad de los procesadores).
+     */
+    public static void main(String[] args) throws Exception {
+        Path checkpoint = Paths.get(args.length > 0 ? args[0] : "password-migration.properties");
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 200;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        PasswordMigrationJob job = new PasswordMigrationJob(new UserDAO(), checkpoint, DEFAULT_CHUNK_SIZE, rate, threads);
+        Result result = job.run();
+        System.out.println("Filas leídas: " + result.scanned() + ", migradas: " + result.migrated()
+                + ", omitidas: " + result.skipped() + ", último ID: " + result.lastId()
+                + (result.completed() ? " (completada)" : " (detenida)")
+                + " en " + result.elapsedMillis() + " ms.");
+    }
+}
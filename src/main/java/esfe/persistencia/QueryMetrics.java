@@ -0,0 +1,200 @@
+package esfe.persistencia;
+
+import java.util.ArrayList;                        // Lista de estadísticas exportadas.
+import java.util.List;                             // Estadísticas de todas las operaciones.
+import java.util.Locale;                           // Formato numérico independiente del idioma del sistema.
+import java.util.concurrent.ConcurrentHashMap;     // Operaciones registradas, por nombre.
+import java.util.concurrent.ConcurrentMap;         // Tipo del mapa de operaciones.
+import java.util.concurrent.atomic.LongAdder;      // Contadores de filas y errores sin contención.
+
+/**
+ * Registro de métricas de la capa de persistencia: para cada operación (cada método de los DAO y
+ * el préstamo de conexiones del pool) guarda un {@link LatencyHistogram} de latencias, y
+ * contadores de filas devueltas y de errores.
+ *
+ * Cada clase obtiene una vez el {@link Operation} de sus operaciones (normalmente en un campo
+ * estático) y lo usa en cada llamada, de modo que medir no busca en ningún mapa:
+ *
+ * <pre>{@code
+ * long started = GET_BY_ID.start();
+ * ... consulta ...
+ * GET_BY_ID.success(started, user == null ? 0 : 1); // o GET_BY_ID.failure(started) en el catch
+ * }</pre>
+ *
+ * El costo por llamada es el de dos lecturas de {@code System.nanoTime()} y dos incrementos
+ * atómicos sin bloqueos (el intervalo del histograma y las filas). Con
+ * {@code esfe.metrics.enabled=false} las operaciones no leen el reloj ni registran nada.
+ *
+ * Las métricas se consultan en el proceso con {@link #snapshot()} y se exportan como texto con
+ * {@link #export()}.
+ */
+public class QueryMetrics {
+    /** Operación que mide la espera para obtener una conexión del pool. */
+    public static final String POOL_BORROW = "pool.borrow";
+
+    private static QueryMetrics instance;
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+
+    QueryMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return La instancia compartida por todo el proceso.
+     */
+    public static synchronized QueryMetrics getInstance() {
+        if (instance == null) {
+            instance = new QueryMetrics(Boolean.parseBoolean(System.getProperty("esfe.metrics.enabled", "true")));
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve la operación con el nombre indicado, creándola la primera vez.
+     *
+     * @param name El nombre de la operación, por ejemplo {@code "UserDAO.getById"}.
+     * @return La operación, que debe guardarse para registrar las llamadas.
+     */
+    public Operation operation(String name) {
+        return operations.computeIfAbsent(name, key -> new Operation(key, enabled));
+    }
+
+    /**
+     * @return true si se están registrando métricas.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Las estadísticas actuales de las operaciones que tienen al menos una llamada,
+     * ordenadas por nombre.
+     */
+    public List<Stats> snapshot() {
+        ArrayList<Stats> stats = new ArrayList<>();
+        for (Operation operation : operations.values()) {
+            Stats current = operation.snapshot();
+            if (current.calls() > 0) {
+                stats.add(current);
+            }
+        }
+        stats.sort((a, b) -> a.name().compareTo(b.name()));
+        return stats;
+    }
+
+    /**
+     * Exporta las estadísticas actuales como texto separado por tabuladores, con una línea de
+     * encabezado y una línea por operación; las latencias van en microsegundos.
+     *
+     * @return El texto exportado.
+     */
+    public String export() {
+        StringBuilder out = new StringBuilder("operation\tcalls\terrors\trows\tmean_us\tp50_us\tp90_us\tp99_us\tp999_us\tmax_us\n");
+        for (Stats stats : snapshot()) {
+            LatencyHistogram.Snapshot latency = stats.latency();
+            out.append(stats.name()).append('\t')
+                    .append(stats.calls()).append('\t')
+                    .append(stats.errors()).append('\t')
+                    .append(stats.rows()).append('\t')
+                    .append(String.format(Locale.ROOT, "%.1f", latency.getMeanNanos() / 1_000.0)).append('\t')
+                    .append(latency.getPercentileMicros(50)).append('\t')
+                    .append(latency.getPercentileMicros(90)).append('\t')
+                    .append(latency.getPercentileMicros(99)).append('\t')
+                    .append(latency.getPercentileMicros(99.9)).append('\t')
+                    .append(latency.getMaxNanos() / 1_000).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Vacía las métricas de todas las operaciones (por ejemplo, al empezar una medición).
+     */
+    public void reset() {
+        for (Operation operation : operations.values()) {
+            operation.reset();
+        }
+    }
+
+    /**
+     * Estadísticas de una operación en un instante.
+     *
+     * @param name    El nombre de la operación.
+     * @param calls   Las llamadas registradas (correctas y con error).
+     * @param errors  Las llamadas que terminaron con error.
+     * @param rows    Las filas devueltas o modificadas por las llamadas correctas.
+     * @param latency Las latencias de todas las llamadas.
+     */
+    public record Stats(String name, long calls, long errors, long rows, LatencyHistogram.Snapshot latency) {
+    }
+
+    /**
+     * Métricas de una operación. Es segura para usarse desde varios hilos a la vez.
+     */
+    public static final class Operation {
+        private final String name;
+        private final boolean enabled;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        private Operation(String name, boolean enabled) {
+            this.name = name;
+            this.enabled = enabled;
+        }
+
+        /**
+         * Marca el inicio de una llamada.
+         *
+         * @return El instante de inicio, que se pasa a {@link #success(long, long)} o {@link #failure(long)}.
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : 0L;
+        }
+
+        /**
+         * Registra una llamada correcta.
+         *
+         * @param started El valor devuelto por {@link #start()}.
+         * @param count   Las filas devueltas o modificadas.
+         */
+        public void success(long started, long count) {
+            if (enabled) {
+                latency.record(System.nanoTime() - started);
+                if (count > 0) {
+                    rows.add(count);
+                }
+            }
+        }
+
+        /**
+         * Registra una llamada que terminó con error; su latencia también se cuenta.
+         *
+         * @param started El valor devuelto por {@link #start()}.
+         */
+        public void failure(long started) {
+            if (enabled) {
+                latency.record(System.nanoTime() - started);
+                errors.increment();
+            }
+        }
+
+        /** @return El nombre de la operación. */
+        public String getName() {
+            return name;
+        }
+
+        /** @return Las estadísticas actuales de la operación. */
+        public Stats snapshot() {
+            LatencyHistogram.Snapshot current = latency.snapshot();
+            return new Stats(name, current.getCount(), errors.sum(), rows.sum(), current);
+        }
+
+        private void reset() {
+            latency.reset();
+            errors.reset();
+            rows.reset();
+        }
+    }
+}
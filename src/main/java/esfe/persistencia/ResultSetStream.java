@@ -0,0 +1,79 @@
+package esfe.persistencia;
+
+import java.sql.Connection;          // Conexión prestada que se mantiene mientras el Stream esté abierto.
+import java.sql.PreparedStatement;   // Sentencia cuyo cursor se recorre.
+import java.sql.ResultSet;           // Cursor de resultados que alimenta el Stream.
+import java.sql.SQLException;        // Representa errores específicos de la base de datos.
+import java.util.Spliterator;        // Características del recorrido.
+import java.util.Spliterators;       // Base del Spliterator que avanza fila por fila.
+import java.util.function.Consumer;  // Acción que recibe cada elemento.
+import java.util.stream.Stream;      // Resultado perezoso de la búsqueda.
+import java.util.stream.StreamSupport; // Construye el Stream a partir del Spliterator.
+
+/**
+ * Convierte un ResultSet abierto en un {@link Stream} perezoso: cada elemento se lee del cursor
+ * cuando el Stream lo pide, por lo que la memoria usada no depende del número de filas.
+ * Al cerrar el Stream se cierran el ResultSet, la sentencia y se devuelve la conexión al pool.
+ */
+final class ResultSetStream {
+
+    /**
+     * Convierte la fila actual de un ResultSet en un objeto.
+     *
+     * @param <T> El tipo del objeto.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private ResultSetStream() {
+    }
+
+    /**
+     * Crea el Stream sobre un cursor ya ejecutado. Los errores de lectura se propagan como
+     * {@link IllegalStateException} cuya causa es la SQLException original.
+     *
+     * @param connection La conexión prestada que se devolverá al cerrar el Stream.
+     * @param ps         La sentencia que produjo el cursor.
+     * @param rs         El cursor a recorrer.
+     * @param mapper     La función que convierte cada fila.
+     * @param <T>        El tipo de los elementos.
+     * @return Un Stream que debe cerrarse (por ejemplo con try-with-resources).
+     */
+    static <T> Stream<T> of(Connection connection, PreparedStatement ps, ResultSet rs, RowMapper<T> mapper) {
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException ex) {
+                    throw new IllegalStateException("Error al recorrer los resultados: " + ex.getMessage(), ex);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(rs, ps, connection));
+    }
+
+    /**
+     * Cierra los recursos en orden inverso a su apertura, ignorando los nulos y los errores.
+     *
+     * @param resources Los recursos a cerrar.
+     */
+    static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception ex) {
+                    System.err.println("Error al cerrar un recurso JDBC: " + ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package esfe.persistencia;
+
+import java.io.BufferedWriter;                    // Escritura del archivo de registro.
+import java.io.IOException;                       // Errores al escribir o rotar el archivo.
+import java.lang.reflect.InvocationHandler;       // Intercepta las llamadas hechas sobre la sentencia.
+import java.lang.reflect.InvocationTargetException; // Envuelve las excepciones lanzadas por la sentencia.
+import java.lang.reflect.Method;                  // Representa el método invocado sobre el proxy.
+import java.lang.reflect.Proxy;                   // Crea la sentencia medida que envuelve a la real.
+import java.nio.charset.StandardCharsets;         // Codificación del archivo de registro.
+import java.nio.file.Files;                       // Operaciones sobre los archivos de registro.
+import java.nio.file.Path;                        // Ubicación del archivo de registro.
+import java.nio.file.Paths;                       // Ruta configurada por propiedad.
+import java.nio.file.StandardCopyOption;          // Reemplazo de los archivos al rotar.
+import java.nio.file.StandardOpenOption;          // Apertura en modo de agregado.
+import java.sql.PreparedStatement;                // Sentencia cuyas ejecuciones se miden.
+import java.time.Instant;                         // Marca de tiempo de cada ejecución.
+import java.util.ArrayList;                       // Ejecuciones más lentas de una huella.
+import java.util.Arrays;                          // Copia de la forma de los parámetros.
+import java.util.Comparator;                      // Orden de las ejecuciones por duración.
+import java.util.HashMap;                         // Copia de las ejecuciones más lentas.
+import java.util.LinkedHashMap;                   // Huellas registradas, en orden de aparición.
+import java.util.List;                            // Ejecuciones más lentas de una huella.
+import java.util.Locale;                          // Formato numérico independiente del idioma del sistema.
+import java.util.Map;                             // Huellas con sus ejecuciones.
+import java.util.PriorityQueue;                   // Las N ejecuciones más lentas de cada huella.
+import java.util.concurrent.ArrayBlockingQueue;   // Cola acotada entre las consultas y el hilo escritor.
+import java.util.concurrent.BlockingQueue;        // Tipo de la cola.
+import java.util.concurrent.ConcurrentHashMap;    // Huellas por texto SQL y umbrales por huella.
+import java.util.concurrent.CountDownLatch;       // Espera a que el hilo escritor vacíe la cola.
+import java.util.concurrent.TimeUnit;             // Conversión de los umbrales.
+import java.util.concurrent.atomic.LongAdder;     // Ejecuciones descartadas por la cola llena.
+import java.util.regex.Pattern;                   // Normalización del texto SQL.
+
+/**
+ * Registro de consultas lentas de la capa de persistencia. El pool envuelve cada sentencia
+ * preparada de los DAO con {@link #track(PreparedStatement, String)}; cada ejecución que tarda
+ * al menos el umbral se registra con:
+ *
+ * <ul>
+ *     <li>La huella del SQL: el texto normalizado (minúsculas, espacios colapsados, literales y
+ *     listas {@code IN (...)} reemplazados por {@code ?}), que agrupa las ejecuciones de la misma
+ *     consulta.</li>
+ *     <li>La forma de los parámetros: el tipo con que se asignó cada uno ({@code setString},
+ *     {@code setInt}...), nunca su valor, ya que por aquí pasan los hashes de contraseña.</li>
+ *     <li>La duración, el número de filas del lote (en las ejecuciones por lotes) y el hilo.</li>
+ * </ul>
+ *
+ * El hilo de la consulta solo compara la duración con el umbral y, si la supera, deja la
+ * ejecución en una cola acotada (si está llena, se descarta y se cuenta). Un hilo en segundo
+ * plano mantiene las {@code topN} ejecuciones más lentas de cada huella y las agrega a un
+ * archivo de texto que rota al superar su tamaño máximo ({@code archivo.1}, {@code archivo.2}...).
+ *
+ * El umbral general y los umbrales por huella pueden cambiarse en tiempo de ejecución.
+ *
+ * Configuración: {@code esfe.slowQuery.enabled} (true), {@code esfe.slowQuery.thresholdMillis}
+ * (200), {@code esfe.slowQuery.topN} (10), {@code esfe.slowQuery.file} (slow-queries.log),
+ * {@code esfe.slowQuery.maxFileBytes} (5 MB) y {@code esfe.slowQuery.maxFiles} (3, contando el
+ * archivo actual).
+ */
+public class SlowQueryLog {
+    private static final int QUEUE_CAPACITY = 4_096;
+    private static final int MAX_CACHED_FINGERPRINTS = 1_024; // Textos SQL distintos con huella en caché.
+    private static final int MAX_FINGERPRINTS = 1_000;        // Huellas con ejecuciones guardadas.
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static SlowQueryLog instance;
+
+    private final boolean enabled;
+    private final int topN;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private volatile long thresholdNanos;
+    private final ConcurrentHashMap<String, Long> thresholdOverrides = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LinkedHashMap<String, PriorityQueue<Execution>> slowest = new LinkedHashMap<>(); // Protegido por su monitor.
+    private final LongAdder dropped = new LongAdder();
+    private BufferedWriter writer; // Solo lo usa el hilo escritor.
+
+    /**
+     * Ejecución lenta de una sentencia.
+     *
+     * @param fingerprint La huella del SQL.
+     * @param shape       La forma de los parámetros, por ejemplo {@code (String, Int)}.
+     * @param batchSize   Las filas del lote, o 0 si no fue una ejecución por lotes.
+     * @param elapsedNanos La duración de la ejecución.
+     * @param timestamp   El instante en que terminó.
+     * @param thread      El nombre del hilo que la ejecutó.
+     * @param failed      true si terminó con una excepción.
+     */
+    public record Execution(String fingerprint, String shape, int batchSize, long elapsedNanos,
+                            Instant timestamp, String thread, boolean failed) {
+    }
+
+    SlowQueryLog(boolean enabled, long thresholdMillis, int topN, Path file, long maxFileBytes, int maxFiles) {
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.topN = topN;
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        if (enabled) {
+            Thread flusher = new Thread(this::drain, "esfe-slow-query-log");
+            flusher.setDaemon(true); // No debe impedir que la aplicación termine.
+            flusher.start();
+        }
+    }
+
+    /**
+     * @return La instancia compartida, configurada con las propiedades {@code esfe.slowQuery.*}.
+     */
+    public static synchronized SlowQueryLog getInstance() {
+        if (instance == null) {
+            instance = new SlowQueryLog(
+                    Boolean.parseBoolean(System.getProperty("esfe.slowQuery.enabled", "true")),
+                    Long.getLong("esfe.slowQuery.thresholdMillis", 200L),
+                    Integer.getInteger("esfe.slowQuery.topN", 10),
+                    Paths.get(System.getProperty("esfe.slowQuery.file", "slow-queries.log")),
+                    Long.getLong("esfe.slowQuery.maxFileBytes", 5L * 1024 * 1024),
+                    Integer.getInteger("esfe.slowQuery.maxFiles", 3));
+        }
+        return instance;
+    }
+
+    /**
+     * Envuelve una sentencia para medir sus ejecuciones. Si el registro está deshabilitado,
+     * devuelve la misma sentencia.
+     *
+     * @param statement La sentencia preparada.
+     * @param sql       El texto SQL con el que se preparó.
+     * @return La sentencia a entregar al DAO.
+     */
+    public PreparedStatement track(PreparedStatement statement, String sql) {
+        if (!enabled) {
+            return statement;
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                SlowQueryLog.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Tracker(statement, fingerprintOf(sql)));
+    }
+
+    /**
+     * Cambia el umbral general, a partir de la siguiente ejecución.
+     *
+     * @param millis La duración mínima para registrar una ejecución.
+     */
+    public void setThresholdMillis(long millis) {
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /** @return El umbral general en milisegundos. */
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    /**
+     * Define un umbral propio para una huella (por ejemplo, uno más bajo para la consulta del
+     * inicio de sesión, o uno más alto para las importaciones por lotes).
+     *
+     * @param fingerprint La huella, tal como la devuelve {@link #fingerprint(String)}.
+     * @param millis      El umbral en milisegundos, o un valor negativo para volver al general.
+     */
+    public void setThresholdMillis(String fingerprint, long millis) {
+        if (millis < 0) {
+            thresholdOverrides.remove(fingerprint);
+        } else {
+            thresholdOverrides.put(fingerprint, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    /**
+     * @return Las ejecuciones más lentas de cada huella, de la más lenta a la más rápida.
+     */
+    public Map<String, List<Execution>> getSlowest() {
+        HashMap<String, List<Execution>> copy = new HashMap<>();
+        synchronized (slowest) {
+            for (Map.Entry<String, PriorityQueue<Execution>> entry : slowest.entrySet()) {
+                ArrayList<Execution> executions = new ArrayList<>(entry.getValue());
+                executions.sort(Comparator.comparingLong(Execution::elapsedNanos).reversed());
+                copy.put(entry.getKey(), executions);
+            }
+        }
+        return copy;
+    }
+
+    /** @return Las ejecuciones lentas descartadas porque la cola estaba llena. */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** @return El archivo de registro actual. */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Espera a que el hilo escritor procese y escriba las ejecuciones registradas hasta ahora.
+     *
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public void flush() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        CountDownLatch flushed = new CountDownLatch(1);
+        queue.put(flushed);
+        flushed.await();
+    }
+
+    /**
+     * Normaliza un texto SQL para agrupar las ejecuciones de la misma consulta.
+     *
+     * @param sql El texto SQL.
+     * @return La huella.
+     */
+    public static String fingerprint(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+        return IN_LIST.matcher(normalized).replaceAll("in (?+)");
+    }
+
+    private String fingerprintOf(String sql) {
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String computed = fingerprint(sql);
+        if (fingerprints.size() < MAX_CACHED_FINGERPRINTS) {
+            fingerprints.putIfAbsent(sql, computed); // Los DAO usan textos constantes: la caché se llena pronto y no crece.
+        }
+        return computed;
+    }
+
+    private void record(Execution execution) {
+        if (!queue.offer(execution)) {
+            dropped.increment(); // Nunca bloquear el hilo de la consulta.
+        }
+    }
+
+    private void drain() {
+        ArrayList<Object> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            queue.drainTo(batch);
+            for (Object item : batch) {
+                if (item instanceof Execution execution) {
+                    remember(execution);
+                    write(execution);
+                }
+            }
+            flushWriter();
+            for (Object item : batch) {
+                if (item instanceof CountDownLatch flushed) {
+                    flushed.countDown();
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void remember(Execution execution) {
+        synchronized (slowest) {
+            PriorityQueue<Execution> executions = slowest.get(execution.fingerprint());
+            if (executions == null) {
+                if (slowest.size() >= MAX_FINGERPRINTS) {
+                    return; // Demasiadas consultas distintas: solo se escriben en el archivo.
+                }
+                // Montículo de mínimos: la cabeza es la más rápida de las guardadas, la primera en salir.
+                executions = new PriorityQueue<>(Comparator.comparingLong(Execution::elapsedNanos));
+                slowest.put(execution.fingerprint(), executions);
+            }
+            executions.add(execution);
+            if (executions.size() > topN) {
+                executions.poll();
+            }
+        }
+    }
+
+    private void write(Execution execution) {
+        String line = execution.timestamp() + "\t"
+                + String.format(Locale.ROOT, "%.3f", execution.elapsedNanos() / 1_000_000.0) + " ms\t"
+                + execution.thread() + "\t"
+                + (execution.failed() ? "error" : "ok") + "\t"
+                + execution.shape() + (execution.batchSize() > 0 ? " x" + execution.batchSize() : "") + "\t"
+                + execution.fingerprint();
+        try {
+            if (writer == null) {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException ex) {
+            System.err.println("No se pudo escribir el registro de consultas lentas: " + ex.getMessage());
+            closeWriter();
+        }
+    }
+
+    private void flushWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            if (Files.size(file) >= maxFileBytes) {
+                closeWriter();
+                rotate();
+            }
+        } catch (IOException ex) {
+            System.err.println("No se pudo escribir el registro de consultas lentas: " + ex.getMessage());
+            closeWriter();
+        }
+    }
+
+    /**
+     * archivo.(n-1) → archivo.n, ..., archivo → archivo.1; el más antiguo se elimina.
+     */
+    private void rotate() throws IOException {
+        Files.deleteIfExists(rotated(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            if (Files.exists(rotated(i))) {
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // El archivo se volverá a abrir en la siguiente escritura.
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Manejador del proxy de una sentencia medida. Anota el tipo de cada parámetro asignado y mide
+     * las ejecuciones; todas las llamadas se redirigen a la sentencia real.
+     */
+    private final class Tracker implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final String fingerprint;
+        private String[] types = new String[4]; // Tipo de cada parámetro, por índice (desde 1).
+        private int batchSize;
+
+        Tracker(PreparedStatement statement, String fingerprint) {
+            this.statement = statement;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                return execute(method, name.endsWith("Batch"));
+            }
+            switch (name) {
+                case "clearParameters" -> Arrays.fill(types, null);
+                case "addBatch" -> batchSize++;
+                case "clearBatch" -> batchSize = 0;
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                            && method.getDeclaringClass() == PreparedStatement.class) {
+                        setType(index, name.equals("setNull") || args[1] == null ? "Null"
+                                : name.equals("setObject") ? args[1].getClass().getSimpleName() : name.substring(3));
+                    }
+                }
+            }
+            return invokeStatement(method, args);
+        }
+
+        private Object execute(Method method, boolean batch) throws Throwable {
+            long started = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invokeStatement(method, null);
+                failed = false;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                Long override = thresholdOverrides.isEmpty() ? null : thresholdOverrides.get(fingerprint);
+                if (elapsed >= (override != null ? override : thresholdNanos)) {
+                    record(new Execution(fingerprint, shape(), batch ? batchSize : 0, elapsed,
+                            Instant.now(), Thread.currentThread().getName(), failed));
+                }
+                if (batch) {
+                    batchSize = 0; // executeBatch vacía el lote.
+                }
+            }
+        }
+
+        private Object invokeStatement(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause(); // Propagar la excepción original del driver.
+            }
+        }
+
+        private void setType(int index, String type) {
+            if (index >= types.length) {
+                types = Arrays.copyOf(types, Math.max(index + 1, types.length * 2));
+            }
+            types[index] = type;
+        }
+
+        private String shape() {
+            StringBuilder shape = new StringBuilder("(");
+            int last = types.length - 1;
+            while (last > 0 && types[last] == null) {
+                last--;
+            }
+            for (int i = 1; i <= last; i++) {
+                if (i > 1) {
+                    shape.append(", ");
+                }
+                shape.append(types[i] == null ? "?" : types[i]);
+            }
+            return shape.append(')').toString();
+        }
+    }
+}
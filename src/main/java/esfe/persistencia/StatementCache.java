@@ -0,0 +1,268 @@
+package esfe.persistencia;
+
+import java.lang.reflect.InvocationHandler;       // Intercepta las llamadas hechas sobre la sentencia en caché.
+import java.lang.reflect.InvocationTargetException; // Envuelve las excepciones lanzadas por la sentencia física.
+import java.lang.reflect.Method;                   // Representa el método invocado sobre el proxy.
+import java.lang.reflect.Proxy;                    // Crea la sentencia entregada que envuelve a la física.
+import java.sql.Connection;                        // Conexión física sobre la que se preparan las sentencias.
+import java.sql.PreparedStatement;                 // Sentencia preparada que se reutiliza.
+import java.sql.SQLException;                      // Representa errores específicos de la base de datos.
+import java.util.Iterator;                         // Recorre las entradas para desalojar la menos usada.
+import java.util.LinkedHashMap;                    // Mapa en orden de acceso, base de la política LRU.
+import java.util.Map;                              // Entradas del mapa de sentencias.
+import java.util.Set;                              // Métodos que cambian la configuración de la sentencia.
+import java.util.concurrent.atomic.LongAdder;      // Contadores de aciertos y fallos sin contención.
+import java.util.concurrent.locks.ReentrantLock;   // Protege el mapa sin fijar el hilo portador de los hilos virtuales.
+
+/**
+ * Caché de sentencias preparadas asociada a una conexión física del pool. Las sentencias se
+ * identifican por su texto SQL (y por el indicador de claves generadas) y se desalojan con una
+ * política LRU cuando se supera el tamaño configurado.
+ *
+ * La sentencia entregada es un envoltorio: su {@code close()} limpia los parámetros y la deja
+ * disponible para el siguiente {@code prepareStatement} con el mismo SQL, sin volver a
+ * prepararla en el servidor. La configuración que el llamador haya cambiado (fetch size, máximo
+ * de filas, tiempo de espera...) se restablece a la que tenía al prepararse, o la sentencia se
+ * descarta si no puede restablecerse, para que el siguiente llamador no la herede.
+ *
+ * Si la sentencia en caché está en uso (el mismo SQL preparado dos veces dentro del mismo
+ * préstamo), se prepara una sentencia normal, fuera de la caché.
+ */
+class StatementCache {
+    // Configuración que se restablece al devolver la sentencia a la caché.
+    private static final Set<String> RESTORABLE_SETTINGS = Set.of(
+            "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout");
+    // Configuración que no se puede restablecer (o no vale la pena): la sentencia se descarta.
+    private static final Set<String> DISCARDING_SETTINGS = Set.of(
+            "setCursorName", "setEscapeProcessing", "setPoolable", "closeOnCompletion");
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Counters counters;
+    private final LinkedHashMap<Key, CachedStatement> statements;
+    // Un candado y no synchronized: preparar una sentencia es una ida y vuelta al servidor, y un
+    // hilo virtual bloqueado dentro de un monitor fija su hilo portador mientras espera.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    StatementCache(Connection connection, int maxSize, Counters counters) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        // accessOrder = true: cada get() mueve la entrada al final, la primera es la menos usada.
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Devuelve una sentencia preparada para el SQL indicado, reutilizando la de la caché si existe.
+     *
+     * @param lease             La conexión prestada que verá el llamador en {@code getConnection()}.
+     * @param sql               El texto SQL de la sentencia.
+     * @param autoGeneratedKeys El indicador de claves generadas, o {@code null} si no se indicó.
+     * @return La sentencia preparada.
+     * @throws SQLException Si ocurre un error al preparar la sentencia.
+     */
+    PreparedStatement prepare(Connection lease, String sql, Integer autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            return prepareUncached(sql, autoGeneratedKeys);
+        }
+        Key key = new Key(sql, autoGeneratedKeys == null ? -1 : autoGeneratedKeys);
+        lock.lock();
+        try {
+            CachedStatement cached = statements.get(key);
+            if (cached != null) {
+                if (cached.inUse) {
+                    counters.misses.increment();
+                    return prepareUncached(sql, autoGeneratedKeys);
+                }
+                counters.hits.increment();
+                return cached.checkout(lease);
+            }
+            counters.misses.increment();
+            PreparedStatement physical = prepareUncached(sql, autoGeneratedKeys);
+            try {
+                cached = new CachedStatement(physical);
+            } catch (SQLException ex) {
+                physical.close(); // No se pudo leer su configuración: no queda en la caché.
+                throw ex;
+            }
+            statements.put(key, cached);
+            evictIfNeeded();
+            return cached.checkout(lease);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cierra físicamente todas las sentencias de la caché. Se llama cuando la conexión
+     * física sale del pool.
+     */
+    void closeAll() {
+        lock.lock();
+        try {
+            for (CachedStatement cached : statements.values()) {
+                cached.closePhysical();
+            }
+            statements.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PreparedStatement prepareUncached(String sql, Integer autoGeneratedKeys) throws SQLException {
+        return autoGeneratedKeys == null
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            counters.evictions.increment();
+            if (eldest.inUse) {
+                eldest.evicted = true; // Se cerrará físicamente cuando el llamador la cierre.
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * Contadores de aciertos, fallos y desalojos compartidos por todas las cachés de un pool.
+     */
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    /**
+     * Sentencia física guardada en la caché, con su estado de uso.
+     */
+    private final class CachedStatement {
+        private final PreparedStatement physical;
+        // Configuración al prepararla, restablecida si el llamador la cambió.
+        private final int fetchSize;
+        private final int fetchDirection;
+        private final int maxRows;
+        private final int maxFieldSize;
+        private final int queryTimeout;
+        private boolean inUse;           // true mientras un llamador tiene la sentencia abierta.
+        private boolean evicted;         // true si salió de la caché mientras estaba en uso.
+        private boolean settingsChanged; // true si el llamador cambió alguna configuración restablecible.
+        private boolean discard;         // true si el llamador cambió una configuración que no se restablece.
+
+        CachedStatement(PreparedStatement physical) throws SQLException {
+            this.physical = physical;
+            this.fetchSize = physical.getFetchSize();
+            this.fetchDirection = physical.getFetchDirection();
+            this.maxRows = physical.getMaxRows();
+            this.maxFieldSize = physical.getMaxFieldSize();
+            this.queryTimeout = physical.getQueryTimeout();
+        }
+
+        PreparedStatement checkout(Connection lease) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handler(this, lease));
+        }
+
+        void checkin() {
+            lock.lock();
+            try {
+                try {
+                    physical.clearParameters(); // El siguiente uso no debe ver los parámetros anteriores.
+                    physical.clearBatch();
+                    if (settingsChanged && !discard) {
+                        // Tampoco debe heredar la configuración: se restablece la que tenía al prepararse.
+                        physical.setMaxRows(maxRows); // Antes que el fetch size, que no puede superarlo en algunos drivers.
+                        physical.setFetchSize(fetchSize);
+                        physical.setFetchDirection(fetchDirection);
+                        physical.setMaxFieldSize(maxFieldSize);
+                        physical.setQueryTimeout(queryTimeout);
+                        settingsChanged = false;
+                    }
+                } catch (SQLException ex) {
+                    discard = true; // Sentencia en mal estado.
+                }
+                if (discard) {
+                    evicted = true; // No reutilizarla.
+                    statements.values().remove(this);
+                }
+                inUse = false;
+                if (evicted) {
+                    closePhysical();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException ex) {
+                System.err.println("Error al cerrar una sentencia de la caché: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Manejador del proxy de una sentencia en caché. Redirige todas las llamadas a la sentencia
+     * física, salvo {@code close()}, que la devuelve a la caché.
+     */
+    private static final class Handler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection lease;
+        private boolean closed;
+
+        Handler(CachedStatement cached, Connection lease) {
+            this.cached = cached;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.checkin();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "getConnection":
+                    return lease; // No exponer la conexión física al llamador.
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Sentencia en caché " + cached.physical;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("La sentencia ya fue cerrada.");
+            }
+            if (RESTORABLE_SETTINGS.contains(method.getName())) {
+                cached.settingsChanged = true;
+            } else if (DISCARDING_SETTINGS.contains(method.getName())) {
+                cached.discard = true;
+            }
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause(); // Propagar la excepción original del driver.
+            }
+        }
+    }
+}
@@ -1,20 +1,76 @@
 package esfe.persistencia;
 
+import java.sql.Connection;        // Interfaz que representa una conexión prestada por el pool.
 import java.sql.PreparedStatement; // Clase para ejecutar consultas SQL preparadas, previniendo inyecciones SQL.
 import java.sql.ResultSet;        // Interfaz para representar el resultado de una consulta SQL.
 import java.sql.SQLException;     // Clase para manejar errores relacionados con la base de datos SQL.
 import java.util.ArrayList;       // Clase para crear listas dinámicas de objetos.
+import java.util.Arrays;          // Borra de memoria las copias de las contraseñas.
+import java.util.Collection;      // Colección de usuarios a crear en lote.
+import java.util.Iterator;        // Fuente de usuarios para la importación por bloques.
+import java.util.List;            // Usuarios de cada bloque cuyas contraseñas se hashean.
+import java.util.concurrent.CompletableFuture; // Resultado de las variantes asíncronas de los métodos.
+import java.util.concurrent.ForkJoinPool;      // Calcula los hashes de cada bloque importado en paralelo.
+import java.util.concurrent.RecursiveAction;   // Tarea que divide el bloque entre los hilos del pool.
+import java.util.function.Consumer; // Acción que recibe cada usuario en la búsqueda por recorrido.
+import java.util.stream.Stream;     // Resultado perezoso de la búsqueda en streaming.
 
 import esfe.dominio.User;        // Clase que representa la entidad de usuario en el dominio de la aplicación.
 import esfe.utils.PasswordHasher; // Clase utilitaria para el manejo seguro de contraseñas (hash, verificación).
+import esfe.utils.SessionStore;   // Sesiones de los usuarios autenticados.
 
+/**
+ * Acceso a datos de la tabla Users. La clase no guarda estado JDBC entre llamadas: cada método
+ * obtiene su propia conexión, sentencia y resultado como variables locales y los libera con
+ * try-with-resources, por lo que una misma instancia puede ser usada por varios hilos a la vez.
+ *
+ * Cada método público registra su latencia, las filas devueltas o modificadas y sus errores en
+ * {@link QueryMetrics}, con el nombre {@code UserDAO.<método>}.
+ */
 public class UserDAO {
-    private ConnectionManager conn; // Objeto para gestionar la conexión con la base de datos.
-    private PreparedStatement ps;   // Objeto para ejecutar consultas SQL preparadas.
-    private ResultSet rs;           // Objeto para almacenar el resultado de una consulta SQL.
+    /**
+     * Número de usuarios insertados y confirmados por cada transacción en las importaciones masivas.
+     */
+    public static final int DEFAULT_IMPORT_CHUNK_SIZE = 500;
+
+    /**
+     * Hilos que calculan los hashes de una importación masiva ({@code esfe.import.threads}, por
+     * defecto la mitad de los procesadores, como el motor de hash).
+     */
+    private static final int IMPORT_THREADS = Math.max(1, Integer.getInteger("esfe.import.threads",
+            Runtime.getRuntime().availableProcessors() / 2));
+    private static final int HASH_SPLIT_THRESHOLD = 4; // Hashes por tarea; cada uno cuesta varios milisegundos.
+
+    /**
+     * Número de filas que el cursor del servidor entrega por cada ida y vuelta en las búsquedas en streaming.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    // Latencias, filas y errores de cada operación (ver QueryMetrics).
+    private static final QueryMetrics METRICS = QueryMetrics.getInstance();
+    private static final QueryMetrics.Operation CREATE = METRICS.operation("UserDAO.create");
+    private static final QueryMetrics.Operation IMPORT = METRICS.operation("UserDAO.importUsers");
+    private static final QueryMetrics.Operation UPDATE = METRICS.operation("UserDAO.update");
+    private static final QueryMetrics.Operation DELETE = METRICS.operation("UserDAO.delete");
+    private static final QueryMetrics.Operation SEARCH = METRICS.operation("UserDAO.search");
+    private static final QueryMetrics.Operation SEARCH_PAGE = METRICS.operation("UserDAO.searchPage");
+    private static final QueryMetrics.Operation SEARCH_STREAM = METRICS.operation("UserDAO.searchStream");
+    private static final QueryMetrics.Operation GET_BY_ID = METRICS.operation("UserDAO.getById");
+    private static final QueryMetrics.Operation AUTHENTICATE = METRICS.operation("UserDAO.authenticate");
+    private static final QueryMetrics.Operation UPDATE_PASSWORD = METRICS.operation("UserDAO.updatePassword");
+    private static final QueryMetrics.Operation GET_PASSWORD_HASHES = METRICS.operation("UserDAO.getPasswordHashes");
+    private static final QueryMetrics.Operation REPLACE_PASSWORD_HASHES = METRICS.operation("UserDAO.replacePasswordHashes");
+
+    private final ConnectionManager conn; // Objeto para gestionar la conexión con la base de datos (seguro entre hilos).
+    private final UserSearchIndex searchIndex; // Índice opcional de trigramas para las búsquedas por nombre.
+    private final LoginThrottle throttle;      // Límite de intentos de inicio de sesión por email y origen.
+    private final SessionStore sessions;       // Sesiones abiertas, revocadas al cambiar la contraseña o eliminar el usuario.
 
     public UserDAO(){
         conn = ConnectionManager.getInstance();
+        searchIndex = UserSearchIndex.getInstance();
+        throttle = LoginThrottle.getInstance();
+        sessions = SessionStore.getInstance();
     }
 
     /**
@@ -28,18 +84,40 @@ public class UserDAO {
      * o null si ocurre algún error durante la creación.
      * @throws SQLException Si ocurre un error al interactuar con la base de datos
      * durante la creación del usuario.
+     * @see #create(User, boolean)
      */
     public User create(User user) throws SQLException {
-        User res = null; // Variable para almacenar el usuario creado que se retornará.
-        try{
-            // Preparar la sentencia SQL para la inserción de un nuevo usuario.
-            // Se especifica que se retornen las claves generadas automáticamente.
-            PreparedStatement ps = conn.connect().prepareStatement(
-                    "INSERT INTO " +
-                            "Users (name, passwordHash, email, status)" +
-                            "VALUES (?, ?, ?, ?)",
-                    java.sql.Statement.RETURN_GENERATED_KEYS
-            );
+        return create(user, false);
+    }
+
+    /**
+     * Crea un nuevo usuario en la base de datos.
+     *
+     * Sin {@code refresh}, el usuario retornado se construye con los datos recibidos y el ID
+     * generado, en una sola ida y vuelta a la base de datos. Con {@code refresh} se vuelve a leer
+     * la fila con {@link #getById(int)}, útil si alguna columna recibe su valor de la base de datos
+     * (valores por defecto, triggers, truncamientos).
+     *
+     * @param user    El objeto User con la información del nuevo usuario (ver {@link #create(User)}).
+     * @param refresh true para releer la fila insertada desde la base de datos.
+     * @return El objeto User recién creado, con el ID generado y sin la contraseña,
+     * o null si no se insertó ninguna fila.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos
+     * durante la creación del usuario.
+     */
+    public User create(User user, boolean refresh) throws SQLException {
+        long started = CREATE.start();
+        int idGenerado = 0; // ID asignado por la base de datos; 0 si no se insertó ninguna fila.
+        // Preparar la sentencia SQL para la inserción de un nuevo usuario.
+        // Se especifica que se retornen las claves generadas automáticamente.
+        // La conexión y la sentencia se cierran automáticamente al salir del bloque try.
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO " +
+                             "Users (name, passwordHash, email, status)" +
+                             "VALUES (?, ?, ?, ?)",
+                     java.sql.Statement.RETURN_GENERATED_KEYS
+             )) {
             // Establecer los valores de los parámetros en la sentencia preparada.
             ps.setString(1, user.getName()); // Asignar el nombre del usuario.
             ps.setString(2, PasswordHasher.hashPassword(user.getPasswordHash())); // Hashear la contraseña antes de guardarla.
@@ -52,28 +130,174 @@ public class UserDAO {
             // Verificar si la inserción fue exitosa (al menos una fila afectada).
             if (affectedRows != 0) {
                 // Obtener las claves generadas automáticamente por la base de datos (en este caso, el ID).
-                ResultSet  generatedKeys = ps.getGeneratedKeys();
-                // Mover el cursor al primer resultado (si existe).
-                if (generatedKeys.next()) {
-                    // Obtener el ID generado. Generalmente la primera columna contiene la clave primaria.
-                    int idGenerado= generatedKeys.getInt(1);
-                    // Recuperar el usuario completo utilizando el ID generado.
-                    res = getById(idGenerado);
-                } else {
-                    // Lanzar una excepción si la creación del usuario falló y no se obtuvo un ID.
-                    throw new SQLException("Creating user failed, no ID obtained.");
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    // Mover el cursor al primer resultado (si existe).
+                    if (generatedKeys.next()) {
+                        // Obtener el ID generado. Generalmente la primera columna contiene la clave primaria.
+                        idGenerado = generatedKeys.getInt(1);
+                    } else {
+                        // Lanzar una excepción si la creación del usuario falló y no se obtuvo un ID.
+                        throw new SQLException("Creating user failed, no ID obtained.");
+                    }
                 }
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
-        }catch (SQLException ex){
+        } catch (SQLException ex) {
+            CREATE.failure(started);
             // Capturar cualquier excepción SQL que ocurra durante el proceso.
             throw new SQLException("Error al crear el usuario: " + ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            CREATE.failure(started); // Por ejemplo, el motor de hash saturado (RejectedExecutionException).
+            throw ex;
+        }
+        CREATE.success(started, idGenerado == 0 ? 0 : 1); // La relectura con refresh se mide en getById.
+        if (idGenerado == 0) {
+            return null; // No se insertó ninguna fila.
+        }
+        User res;
+        if (refresh) {
+            // Recuperar el usuario completo utilizando el ID generado, una vez devuelta la conexión
+            // de la inserción al pool (retenerla mientras se pide otra puede agotar el pool).
+            res = getById(idGenerado);
+        } else {
+            // Construir el usuario creado a partir de los datos insertados; al igual que getById,
+            // no se devuelve la contraseña.
+            res = new User(idGenerado, user.getName(), null, user.getEmail(), user.getStatus());
+        }
+        if (res != null) {
+            searchIndex.put(res); // Mantener sincronizado el índice de búsqueda, si está activo.
+        }
+        return res;
+    }
+
+    /**
+     * Crea varios usuarios en la base de datos usando inserciones por lotes de JDBC
+     * ({@code addBatch}/{@code executeBatch}), confirmando cada {@link #DEFAULT_IMPORT_CHUNK_SIZE} usuarios.
+     *
+     * @param users Los usuarios a crear, con la contraseña en texto plano en 'passwordHash'.
+     * @return Los IDs generados, en el mismo orden que la colección recibida.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     * @see #importUsers(Iterator, int)
+     */
+    public ArrayList<Integer> createAll(Collection<User> users) throws SQLException {
+        return importUsers(users.iterator(), DEFAULT_IMPORT_CHUNK_SIZE);
+    }
+
+    /**
+     * Importa usuarios desde un iterador, sin cargarlos todos en memoria. Los usuarios se toman
+     * en bloques de {@code chunkSize}; las contraseñas de cada bloque se hashean en paralelo, en un
+     * {@link ForkJoinPool} propio de la importación y no en el motor de hash que usan los inicios
+     * de sesión, y el bloque se inserta con una sola ejecución por lotes y se confirma en su propia transacción.
+     * Los IDs se leen de las claves generadas, sin volver a consultar cada fila.
+     *
+     * Si un bloque falla se revierte únicamente ese bloque; los bloques anteriores ya quedaron
+     * confirmados y el mensaje de la excepción indica cuántos usuarios se importaron.
+     *
+     * @param users     El iterador con los usuarios a importar.
+     * @param chunkSize El número de usuarios por lote y por transacción.
+     * @return Los IDs generados, en el orden en que el iterador entregó los usuarios.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public ArrayList<Integer> importUsers(Iterator<User> users, int chunkSize) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize debe ser mayor que cero: " + chunkSize);
+        }
+        long started = IMPORT.start();
+        ArrayList<Integer> ids = new ArrayList<>(); // IDs generados de todos los bloques confirmados.
+        ArrayList<User> chunk = new ArrayList<>(chunkSize);
+        // Usuarios confirmados que se agregan al índice de búsqueda (solo si está activo) al
+        // devolver la conexión: el índice puede estar cargándose, y esa carga pide su propia conexión.
+        ArrayList<User> committed = new ArrayList<>();
+        boolean indexed = searchIndex.isEnabled();
+        ForkJoinPool hashPool = new ForkJoinPool(IMPORT_THREADS);
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO Users (name, passwordHash, email, status) VALUES (?, ?, ?, ?)",
+                     java.sql.Statement.RETURN_GENERATED_KEYS)) {
+            connection.setAutoCommit(false); // Cada bloque se confirma explícitamente (el pool restablece el modo al devolverla).
+            while (users.hasNext()) {
+                chunk.clear();
+                while (users.hasNext() && chunk.size() < chunkSize) {
+                    chunk.add(users.next());
+                }
+                // El hash es la parte costosa en CPU: se calcula en paralelo, conservando el orden del bloque.
+                String[] hashes = new String[chunk.size()];
+                hashPool.invoke(new HashTask(chunk, hashes, 0, hashes.length));
+                int before = ids.size(); // IDs confirmados antes de este bloque.
+                try {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        User user = chunk.get(i);
+                        ps.setString(1, user.getName());
+                        ps.setString(2, hashes[i]);
+                        ps.setString(3, user.getEmail());
+                        ps.setByte(4, user.getStatus());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                        while (generatedKeys.next()) {
+                            ids.add(generatedKeys.getInt(1));
+                        }
+                    }
+                    if (ids.size() - before != chunk.size()) {
+                        throw new SQLException("Se esperaban " + chunk.size() + " IDs generados y se obtuvieron " + (ids.size() - before) + ".");
+                    }
+                    connection.commit();
+                    if (indexed) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            User user = chunk.get(i);
+                            committed.add(new User(ids.get(before + i), user.getName(), null, user.getEmail(), user.getStatus()));
+                        }
+                    }
+                } catch (SQLException ex) {
+                    connection.rollback(); // Revertir solo el bloque actual.
+                    ids.subList(before, ids.size()).clear(); // Sus IDs ya no existen.
+                    throw ex;
+                }
+            }
+        } catch (SQLException ex) {
+            IMPORT.failure(started);
+            throw new SQLException("Error al importar usuarios (" + ids.size() + " importados antes del error): " + ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            IMPORT.failure(started); // Por ejemplo, una contraseña nula: los bloques anteriores ya se confirmaron.
+            throw ex;
         } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            conn.disconnect(); // Desconectar de la base de datos.
+            hashPool.shutdown();
+            // La conexión ya se devolvió al pool; también se indexan los bloques confirmados antes de un error.
+            for (User user : committed) {
+                searchIndex.put(user);
+            }
+        }
+        IMPORT.success(started, ids.size());
+        return ids;
+    }
+
+    /**
+     * Calcula los hashes de un rango del bloque importado, dividiéndolo entre los hilos del pool.
+     */
+    private static final class HashTask extends RecursiveAction {
+        private final List<User> users;
+        private final String[] hashes;
+        private final int from;
+        private final int to;
+
+        HashTask(List<User> users, String[] hashes, int from, int to) {
+            this.users = users;
+            this.hashes = hashes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= HASH_SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    hashes[i] = PasswordHasher.hashPasswordInCaller(users.get(i).getPasswordHash());
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new HashTask(users, hashes, from, middle), new HashTask(users, hashes, middle, to));
         }
-        return res; // Retornar el usuario creado (con su ID asignado) o null si hubo un error.
     }
 
     /**
@@ -88,15 +312,15 @@ public class UserDAO {
      * durante la actualización del usuario.
      */
     public boolean update(User user) throws SQLException{
+        long started = UPDATE.start();
         boolean res = false; // Variable para indicar si la actualización fue exitosa.
-        try{
-            // Preparar la sentencia SQL para actualizar la información de un usuario.
-            ps = conn.connect().prepareStatement(
-                    "UPDATE Users " +
-                            "SET name = ?, email = ?, status = ? " +
-                            "WHERE id = ?"
-            );
-
+        // Preparar la sentencia SQL para actualizar la información de un usuario.
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "UPDATE Users " +
+                             "SET name = ?, email = ?, status = ? " +
+                             "WHERE id = ?"
+             )) {
             // Establecer los valores de los parámetros en la sentencia preparada.
             ps.setString(1, user.getName());  // Asignar el nuevo nombre del usuario.
             ps.setString(2, user.getEmail()); // Asignar el nuevo correo electrónico del usuario.
@@ -107,16 +331,16 @@ public class UserDAO {
             if(ps.executeUpdate() > 0){
                 res = true; // Si executeUpdate() retorna un valor mayor que 0, significa que la actualización fue exitosa.
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
         }catch (SQLException ex){
+            UPDATE.failure(started);
             // Capturar cualquier excepción SQL que ocurra durante el proceso.
             throw new SQLException("Error al modificar el usuario: " + ex.getMessage(), ex);
-        } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            conn.disconnect(); // Desconectar de la base de datos.
         }
+        UPDATE.success(started, res ? 1 : 0);
 
+        if (res) {
+            searchIndex.put(user); // Reflejar el nuevo nombre y email en el índice de búsqueda.
+        }
         return res; // Retornar el resultado de la operación de actualización.
     }
 
@@ -131,12 +355,13 @@ public class UserDAO {
      * durante la eliminación del usuario.
      */
     public boolean delete(User user) throws SQLException{
+        long started = DELETE.start();
         boolean res = false; // Variable para indicar si la eliminación fue exitosa.
-        try{
-            // Preparar la sentencia SQL para eliminar un usuario por su ID.
-            ps = conn.connect().prepareStatement(
-                    "DELETE FROM Users WHERE id = ?"
-            );
+        // Preparar la sentencia SQL para eliminar un usuario por su ID.
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "DELETE FROM Users WHERE id = ?"
+             )) {
             // Establecer el valor del parámetro en la sentencia preparada (el ID del usuario a eliminar).
             ps.setInt(1, user.getId());
 
@@ -144,16 +369,17 @@ public class UserDAO {
             if(ps.executeUpdate() > 0){
                 res = true; // Si executeUpdate() retorna un valor mayor que 0, significa que la eliminación fue exitosa.
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
         }catch (SQLException ex){
+            DELETE.failure(started);
             // Capturar cualquier excepción SQL que ocurra durante el proceso.
             throw new SQLException("Error al eliminar el usuario: " + ex.getMessage(), ex);
-        } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            conn.disconnect(); // Desconectar de la base de datos.
         }
+        DELETE.success(started, res ? 1 : 0);
 
+        if (res) {
+            searchIndex.remove(user.getId()); // Quitar el usuario del índice de búsqueda.
+            sessions.revokeUser(user.getId()); // Cerrar las sesiones abiertas del usuario eliminado.
+        }
         return res; // Retornar el resultado de la operación de eliminación.
     }
 
@@ -161,6 +387,8 @@ public class UserDAO {
      * Busca usuarios en la base de datos cuyo nombre contenga la cadena de búsqueda proporcionada.
      * La búsqueda se realiza de forma parcial, es decir, si el nombre del usuario contiene
      * la cadena de búsqueda (ignorando mayúsculas y minúsculas), será incluido en los resultados.
+     * Si el {@link UserSearchIndex} está activo, los términos de tres o más caracteres se
+     * responden desde el índice en memoria en lugar de con {@code LIKE '%...%'}.
      *
      * @param name La cadena de texto a buscar dentro de los nombres de los usuarios.
      * @return Un ArrayList de objetos User que coinciden con el criterio de búsqueda.
@@ -169,47 +397,184 @@ public class UserDAO {
      * durante la búsqueda de usuarios.
      */
     public ArrayList<User> search(String name) throws SQLException{
+        long started = SEARCH.start();
+        // Si el índice de trigramas está activo y el término es indexable, responder desde memoria.
+        ArrayList<User> indexed;
+        try {
+            indexed = searchIndex.searchName(name, this);
+        } catch (SQLException ex) {
+            SEARCH.failure(started); // Falló la carga del índice.
+            throw ex;
+        }
+        if (indexed != null) {
+            SEARCH.success(started, indexed.size());
+            return indexed;
+        }
         ArrayList<User> records  = new ArrayList<>(); // Lista para almacenar los usuarios encontrados.
 
-        try {
-            // Preparar la sentencia SQL para buscar usuarios por nombre (usando LIKE para búsqueda parcial).
-            ps = conn.connect().prepareStatement("SELECT id, name, email, status " +
-                    "FROM Users " +
-                    "WHERE name LIKE ?");
+        // Preparar la sentencia SQL para buscar usuarios por nombre (usando LIKE para búsqueda parcial).
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT id, name, email, status " +
+                     "FROM Users " +
+                     "WHERE name LIKE ?")) {
 
             // Establecer el valor del parámetro en la sentencia preparada.
             // El '%' al inicio y al final permiten la búsqueda de la cadena 'name' en cualquier parte del nombre del usuario.
             ps.setString(1, "%" + name + "%");
 
             // Ejecutar la consulta SQL y obtener el resultado.
-            rs = ps.executeQuery();
-
-            // Iterar a través de cada fila del resultado.
-            while (rs.next()){
-                // Crear un nuevo objeto User para cada registro encontrado.
-                User user = new User();
-                // Asignar los valores de las columnas a los atributos del objeto User.
-                user.setId(rs.getInt(1));       // Obtener el ID del usuario.
-                user.setName(rs.getString(2));   // Obtener el nombre del usuario.
-                user.setEmail(rs.getString(3));  // Obtener el correo electrónico del usuario.
-                user.setStatus(rs.getByte(4));    // Obtener el estado del usuario.
-                // Agregar el objeto User a la lista de resultados.
-                records.add(user);
+            try (ResultSet rs = ps.executeQuery()) {
+                // Iterar a través de cada fila del resultado.
+                while (rs.next()){
+                    // Crear un nuevo objeto User para cada registro encontrado y agregarlo a la lista de resultados.
+                    records.add(readUser(rs));
+                }
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
-            rs.close(); // Cerrar el conjunto de resultados para liberar recursos.
         } catch (SQLException ex){
+            SEARCH.failure(started);
             // Capturar cualquier excepción SQL que ocurra durante el proceso.
             throw new SQLException("Error al buscar usuarios: " + ex.getMessage(), ex);
-        } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            rs = null;         // Establecer el conjunto de resultados a null.
-            conn.disconnect(); // Desconectar de la base de datos.
         }
+        SEARCH.success(started, records.size());
         return records; // Retornar la lista de usuarios encontrados.
     }
 
+    /**
+     * Busca usuarios cuyo nombre contenga la cadena indicada, devolviendo una sola página de
+     * resultados. Usa paginación por conjunto de claves: los resultados se ordenan por ID y cada
+     * página continúa después del último ID de la anterior, de modo que solo se leen y se
+     * mantienen en memoria las filas que se van a mostrar. Si el {@link UserSearchIndex} está
+     * activo y puede responder el término, la página se recorta del resultado del índice.
+     *
+     * @param name    La cadena de texto a buscar dentro de los nombres de los usuarios.
+     * @param afterId Se devuelven solo usuarios con ID mayor que éste (0 para la primera página;
+     *                para las siguientes, {@link Page#getNextAfterId()} o {@link Page#afterId(String)}).
+     * @param limit   El número máximo de usuarios de la página (como máximo {@link Page#MAX_SIZE}).
+     * @return La página de usuarios encontrados.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos
+     * durante la búsqueda de usuarios.
+     */
+    public Page<User> search(String name, int afterId, int limit) throws SQLException {
+        limit = Page.checkLimit(limit); // Como máximo Page.MAX_SIZE.
+        long started = SEARCH_PAGE.start();
+        // El índice devuelve las coincidencias ordenadas por ID: se recorta la página pedida.
+        ArrayList<User> indexed;
+        try {
+            indexed = searchIndex.searchName(name, this);
+        } catch (SQLException ex) {
+            SEARCH_PAGE.failure(started);
+            throw ex;
+        }
+        if (indexed != null) {
+            Page<User> page = Page.slice(indexed, User::getId, afterId, limit);
+            SEARCH_PAGE.success(started, page.getItems().size());
+            return page;
+        }
+        ArrayList<User> records = new ArrayList<>(limit); // Usuarios de la página.
+        boolean hasMore = false; // true si la consulta devolvió una fila más allá del límite.
+
+        // Se pide una fila extra para saber si existe una página siguiente sin contar el total.
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT id, name, email, status " +
+                     "FROM Users " +
+                     "WHERE name LIKE ? AND id > ? " +
+                     "ORDER BY id " +
+                     "LIMIT ?")) {
+            ps.setString(1, "%" + name + "%");
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (records.size() == limit) {
+                        hasMore = true; // Fila extra: no se devuelve, solo indica que hay más.
+                        break;
+                    }
+                    records.add(readUser(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            SEARCH_PAGE.failure(started);
+            throw new SQLException("Error al buscar usuarios: " + ex.getMessage(), ex);
+        }
+        SEARCH_PAGE.success(started, records.size());
+        int lastId = records.isEmpty() ? afterId : records.get(records.size() - 1).getId();
+        return new Page<>(records, lastId, hasMore);
+    }
+
+    /**
+     * Busca usuarios cuyo nombre contenga la cadena indicada y los entrega como un Stream perezoso,
+     * usando {@link #DEFAULT_FETCH_SIZE} como tamaño de bloque del cursor.
+     *
+     * @param name La cadena de texto a buscar dentro de los nombres de los usuarios.
+     * @return Un Stream de usuarios que debe cerrarse (por ejemplo con try-with-resources).
+     * @throws SQLException Si ocurre un error al ejecutar la consulta.
+     * @see #searchStream(String, int)
+     */
+    public Stream<User> searchStream(String name) throws SQLException {
+        return searchStream(name, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Busca usuarios cuyo nombre contenga la cadena indicada y los entrega como un Stream perezoso.
+     * Las filas se leen con un cursor del servidor en bloques de {@code fetchSize}, por lo que la
+     * memoria usada no depende del número de usuarios encontrados; útil para exportaciones y
+     * procesos por lotes sobre toda la tabla.
+     *
+     * El Stream conserva una conexión del pool hasta que se cierra, así que debe usarse con
+     * try-with-resources. Un error de lectura durante el recorrido se lanza como
+     * IllegalStateException cuya causa es la SQLException original.
+     *
+     * @param name      La cadena de texto a buscar dentro de los nombres de los usuarios.
+     * @param fetchSize El número de filas que el servidor entrega por cada ida y vuelta.
+     * @return Un Stream de usuarios que debe cerrarse.
+     * @throws SQLException Si ocurre un error al ejecutar la consulta.
+     */
+    public Stream<User> searchStream(String name, int fetchSize) throws SQLException {
+        long started = SEARCH_STREAM.start(); // Solo se mide la apertura: las filas se leen después, al recorrer el Stream.
+        Connection connection = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            connection = conn.connect();
+            // Sentencia fuera de la caché: de solo avance y solo lectura, para que el driver use un cursor.
+            ps = connection.prepareStatement("SELECT id, name, email, status " +
+                            "FROM Users " +
+                            "WHERE name LIKE ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, "%" + name + "%");
+            rs = ps.executeQuery();
+            // A partir de aquí los recursos pertenecen al Stream y se liberan al cerrarlo.
+            Stream<User> users = ResultSetStream.of(connection, ps, rs, UserDAO::readUser);
+            SEARCH_STREAM.success(started, 0);
+            return users;
+        } catch (SQLException ex) {
+            SEARCH_STREAM.failure(started);
+            ResultSetStream.closeQuietly(rs, ps, connection);
+            throw new SQLException("Error al buscar usuarios: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Recorre los usuarios cuyo nombre contenga la cadena indicada, entregando cada uno a la acción
+     * recibida sin acumularlos en memoria. Los recursos se liberan al terminar, incluso si la acción falla.
+     *
+     * @param name   La cadena de texto a buscar dentro de los nombres de los usuarios.
+     * @param action La acción que recibe cada usuario encontrado.
+     * @throws SQLException Si ocurre un error al ejecutar la consulta o al leer los resultados.
+     */
+    public void searchEach(String name, Consumer<User> action) throws SQLException {
+        try (Stream<User> users = searchStream(name)) {
+            users.forEach(action);
+        } catch (IllegalStateException ex) {
+            if (ex.getCause() instanceof SQLException sqlEx) {
+                throw new SQLException("Error al buscar usuarios: " + sqlEx.getMessage(), sqlEx);
+            }
+            throw ex;
+        }
+    }
+
     /**
      * Obtiene un usuario de la base de datos basado en su ID.
      *
@@ -220,42 +585,32 @@ public class UserDAO {
      * durante la obtención del usuario.
      */
     public User getById(int id) throws SQLException{
-        User user  = new User(); // Inicializar un objeto User que se retornará.
+        long started = GET_BY_ID.start();
+        User user = null; // Usuario que se retornará; permanece null si no se encuentra.
 
-        try {
-            // Preparar la sentencia SQL para seleccionar un usuario por su ID.
-            ps = conn.connect().prepareStatement("SELECT id, name, email, status " +
-                    "FROM Users " +
-                    "WHERE id = ?");
+        // Preparar la sentencia SQL para seleccionar un usuario por su ID.
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT id, name, email, status " +
+                     "FROM Users " +
+                     "WHERE id = ?")) {
 
             // Establecer el valor del parámetro en la sentencia preparada (el ID a buscar).
             ps.setInt(1, id);
 
             // Ejecutar la consulta SQL y obtener el resultado.
-            rs = ps.executeQuery();
-
-            // Verificar si se encontró algún registro.
-            if (rs.next()) {
-                // Si se encontró un usuario, asignar los valores de las columnas al objeto User.
-                user.setId(rs.getInt(1));       // Obtener el ID del usuario.
-                user.setName(rs.getString(2));   // Obtener el nombre del usuario.
-                user.setEmail(rs.getString(3));  // Obtener el correo electrónico del usuario.
-                user.setStatus(rs.getByte(4));    // Obtener el estado del usuario.
-            } else {
-                // Si no se encontró ningún usuario con el ID especificado, establecer el objeto User a null.
-                user = null;
+            try (ResultSet rs = ps.executeQuery()) {
+                // Verificar si se encontró algún registro.
+                if (rs.next()) {
+                    // Si se encontró un usuario, asignar los valores de las columnas al objeto User.
+                    user = readUser(rs);
+                }
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
-            rs.close(); // Cerrar el conjunto de resultados para liberar recursos.
         } catch (SQLException ex){
+            GET_BY_ID.failure(started);
             // Capturar cualquier excepción SQL que ocurra durante el proceso.
             throw new SQLException("Error al obtener un usuario por id: " + ex.getMessage(), ex);
-        } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            rs = null;         // Establecer el conjunto de resultados a null.
-            conn.disconnect(); // Desconectar de la base de datos.
         }
+        GET_BY_ID.success(started, user == null ? 0 : 1);
         return user; // Retornar el objeto User encontrado o null si no existe.
     }
 
@@ -274,44 +629,149 @@ public class UserDAO {
      * durante el proceso de autenticación.
      */
     public User authenticate(User user) throws SQLException{
+        char[] password = user.getPasswordHash().toCharArray();
+        try {
+            return authenticate(user.getEmail(), password);
+        } finally {
+            Arrays.fill(password, '\0'); // Borrar la copia de la contraseña.
+        }
+    }
 
-        User userAutenticate = new User(); // Inicializar un objeto User para almacenar el usuario autenticado.
+    /**
+     * Autentica un usuario con la contraseña recibida como arreglo de caracteres, tal como la
+     * entrega {@code JPasswordField.getPassword()}, sin convertirla en un String.
+     * El arreglo no se modifica; quien llama debe borrarlo después de usarlo.
+     *
+     * La base de datos solo se consulta por email (una búsqueda puntual en el índice único de la
+     * columna); la contraseña y el estado se verifican en Java, con una comparación de tiempo
+     * constante, después de devolver la conexión al pool. Si la contraseña es correcta y el hash
+     * almacenado usa un formato o costo anterior, la misma verificación entrega el hash nuevo,
+     * que se guarda en ese momento.
+     *
+     * @param email    El correo electrónico del usuario.
+     * @param password La contraseña en texto plano.
+     * @return El usuario autenticado, o null si las credenciales no son válidas o el usuario está inactivo.
+     * @throws LoginThrottledException Si el intento se rechaza por exceso de intentos.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public User authenticate(String email, char[] password) throws SQLException {
+        return authenticate(email, password, null);
+    }
 
+    /**
+     * Autentica un usuario indicando el origen del intento (por ejemplo la dirección remota de un
+     * servicio que reutilice este DAO), para limitar los intentos también por origen.
+     * Ver {@link #authenticate(String, char[])}.
+     *
+     * Antes de consultar la base de datos el intento pasa por {@link LoginThrottle}: si el email o
+     * el origen superaron su límite de intentos se rechaza sin usar JDBC ni calcular el hash.
+     *
+     * @param email    El correo electrónico del usuario.
+     * @param password La contraseña en texto plano.
+     * @param source   El origen del intento, o null si no se conoce.
+     * @return El usuario autenticado, o null si las credenciales no son válidas o el usuario está inactivo.
+     * @throws LoginThrottledException Si el intento se rechaza por exceso de intentos.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public User authenticate(String email, char[] password, String source) throws SQLException {
+        long started = AUTHENTICATE.start(); // Incluye la verificación del hash: es la latencia que percibe el usuario.
+        User user;
         try {
-            // Preparar la sentencia SQL para seleccionar un usuario por su correo electrónico,
-            // contraseña hasheada y estado activo (status = 1).
-            ps = conn.connect().prepareStatement("SELECT id, name, email, status " +
-                    "FROM Users " +
-                    "WHERE email = ? AND passwordHash = ? AND status = 1");
+            throttle.acquire(email, source);
+            user = verifyCredentials(email, password);
+        } catch (SQLException ex) {
+            AUTHENTICATE.failure(started); // También los intentos rechazados por el límite de intentos.
+            throw ex;
+        } catch (RuntimeException ex) {
+            // Por ejemplo, el motor de hash saturado. No se registra un fallo en el limitador: no se
+            // llegó a comprobar la contraseña. La ficha consumida sí se conserva, de modo que los
+            // reintentos durante una sobrecarga siguen limitados.
+            AUTHENTICATE.failure(started);
+            throw ex;
+        }
+        if (user == null) {
+            throttle.recordFailure(email, source);
+        } else {
+            throttle.recordSuccess(email);
+        }
+        AUTHENTICATE.success(started, user == null ? 0 : 1);
+        return user;
+    }
 
-            // Establecer los valores de los parámetros en la sentencia preparada.
-            ps.setString(1, user.getEmail()); // Asignar el correo electrónico del usuario a autenticar.
-            ps.setString(2, PasswordHasher.hashPassword(user.getPasswordHash())); // Hashear la contraseña proporcionada para compararla con la almacenada.
-            rs = ps.executeQuery(); // Ejecutar la consulta SQL y obtener el resultado.
-
-            // Verificar si se encontró un registro que coincida con las credenciales y el estado.
-            if (rs.next()) {
-                // Si se encontró un usuario, asignar los valores de las columnas al objeto userAutenticate.
-                userAutenticate.setId(rs.getInt(1));       // Obtener el ID del usuario autenticado.
-                userAutenticate.setName(rs.getString(2));   // Obtener el nombre del usuario autenticado.
-                userAutenticate.setEmail(rs.getString(3));  // Obtener el correo electrónico del usuario autenticado.
-                userAutenticate.setStatus(rs.getByte(4));    // Obtener el estado del usuario autenticado.
-            } else {
-                // Si no se encontraron coincidencias, la autenticación falla y se establece userAutenticate a null.
-                userAutenticate = null;
+    private User verifyCredentials(String email, char[] password) throws SQLException {
+        Credentials credentials = getCredentials(email);
+        if (credentials == null) {
+            // Calcular igualmente un hash (sin hash almacenado, PasswordHasher calcula uno de relleno
+            // con el costo actual), para que un email inexistente no responda más rápido.
+            PasswordHasher.verify(password, null);
+            return null;
+        }
+        // Se verifica la contraseña aunque el usuario esté inactivo, por la misma razón.
+        PasswordHasher.Verification verification = PasswordHasher.verify(password, credentials.passwordHash());
+        if (!verification.matches() || credentials.user().getStatus() != 1) {
+            return null;
+        }
+        if (verification.needsRehash()) {
+            storeUpgradedHash(credentials.user().getId(), credentials.passwordHash(), verification.upgradedHash());
+        }
+        return credentials.user(); // Retornar el objeto User autenticado.
+    }
+
+    /**
+     * Datos de un usuario junto con su hash de contraseña almacenado.
+     */
+    private record Credentials(User user, String passwordHash) {
+    }
+
+    /**
+     * Obtiene un usuario y su hash de contraseña por su correo electrónico, sin filtrar por estado.
+     *
+     * @param email El correo electrónico del usuario.
+     * @return Los datos del usuario, o null si no existe.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    private Credentials getCredentials(String email) throws SQLException {
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT id, name, email, status, passwordHash " +
+                     "FROM Users " +
+                     "WHERE email = ?")) {
+
+            ps.setString(1, email); // Asignar el correo electrónico del usuario a autenticar.
+
+            // Ejecutar la consulta SQL y obtener el resultado.
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new Credentials(readUser(rs), rs.getString(5));
+                }
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
-            rs.close(); // Cerrar el conjunto de resultados para liberar recursos.
         } catch (SQLException ex){
             // Capturar cualquier excepción SQL que ocurra durante el proceso de autenticación.
-            throw new SQLException("Error al autenticar un usuario por id: " + ex.getMessage(), ex);
-        } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            rs = null;         // Establecer el conjunto de resultados a null.
-            conn.disconnect(); // Desconectar de la base de datos.
+            throw new SQLException("Error al autenticar un usuario por email: " + ex.getMessage(), ex);
+        }
+        return null;
+    }
+
+    /**
+     * Reemplaza el hash de la contraseña, recién verificada, por el calculado con el algoritmo y
+     * costo actuales. La actualización es condicional: si la contraseña cambió mientras tanto (el
+     * hash almacenado ya no es el verificado), no se modifica nada. Un fallo aquí no impide el
+     * inicio de sesión: el hash anterior sigue siendo válido y se reintentará la próxima vez.
+     *
+     * @param id          El ID del usuario.
+     * @param currentHash El hash almacenado que se verificó.
+     * @param upgradedHash El hash nuevo.
+     */
+    private void storeUpgradedHash(int id, String currentHash, String upgradedHash) {
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "UPDATE Users SET passwordHash = ? WHERE id = ? AND passwordHash = ?")) {
+            ps.setString(1, upgradedHash);
+            ps.setInt(2, id);
+            ps.setString(3, currentHash);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            System.err.println("Error al actualizar el hash de la contraseña del usuario " + id + ": " + ex.getMessage());
         }
-        return userAutenticate; // Retornar el objeto User autenticado o null si la autenticación falló.
     }
 
     /**
@@ -328,14 +788,15 @@ public class UserDAO {
      * durante la actualización de la contraseña.
      */
     public boolean updatePassword(User user) throws SQLException{
+        long started = UPDATE_PASSWORD.start();
         boolean res = false; // Variable para indicar si la actualización de la contraseña fue exitosa.
-        try{
-            // Preparar la sentencia SQL para actualizar solo la columna 'passwordHash' de un usuario.
-            ps = conn.connect().prepareStatement(
-                    "UPDATE Users " +
-                            "SET passwordHash = ? " +
-                            "WHERE id = ?"
-            );
+        // Preparar la sentencia SQL para actualizar solo la columna 'passwordHash' de un usuario.
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "UPDATE Users " +
+                             "SET passwordHash = ? " +
+                             "WHERE id = ?"
+             )) {
             // Hashear la nueva contraseña proporcionada antes de establecerla en la consulta.
             ps.setString(1, PasswordHasher.hashPassword(user.getPasswordHash()));
             // Establecer el ID del usuario cuya contraseña se va a actualizar en la cláusula WHERE.
@@ -345,17 +806,249 @@ public class UserDAO {
             if(ps.executeUpdate() > 0){
                 res = true; // Si executeUpdate() retorna un valor mayor que 0, la actualización fue exitosa.
             }
-            ps.close(); // Cerrar la sentencia preparada para liberar recursos.
         }catch (SQLException ex){
+            UPDATE_PASSWORD.failure(started);
             // Capturar cualquier excepción SQL que ocurra durante el proceso.
             throw new SQLException("Error al modificar el password del usuario: " + ex.getMessage(), ex);
-        } finally {
-            // Bloque finally para asegurar que los recursos se liberen.
-            ps = null;         // Establecer la sentencia preparada a null.
-            conn.disconnect(); // Desconectar de la base de datos.
+        } catch (RuntimeException ex) {
+            UPDATE_PASSWORD.failure(started); // Por ejemplo, el motor de hash saturado.
+            throw ex;
         }
+        UPDATE_PASSWORD.success(started, res ? 1 : 0);
 
+        if (res) {
+            sessions.revokeUser(user.getId()); // Las sesiones abiertas con la contraseña anterior dejan de ser válidas.
+        }
         return res; // Retornar el resultado de la operación de actualización de la contraseña.
     }
-}
 
+    /**
+     * Lee los hashes de contraseña de un rango de usuarios, en orden de ID, para procesos por
+     * lotes como {@link PasswordMigrationJob}. Usa paginación por conjunto de claves, igual que
+     * {@link #search(String, int, int)}, por lo que recorrer toda la tabla no se vuelve más lento
+     * a medida que avanza.
+     *
+     * @param afterId El ID a partir del cual leer (exclusivo); 0 para empezar desde el principio.
+     * @param limit   El número máximo de usuarios a devolver (como máximo {@link Page#MAX_SIZE}).
+     * @return Una página de usuarios con solo 'id' y 'passwordHash' establecidos.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public Page<User> getPasswordHashes(int afterId, int limit) throws SQLException {
+        limit = Page.checkLimit(limit); // Como máximo Page.MAX_SIZE.
+        long started = GET_PASSWORD_HASHES.start();
+        ArrayList<User> records = new ArrayList<>(limit);
+        boolean hasMore = false;
+
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT id, passwordHash " +
+                     "FROM Users " +
+                     "WHERE id > ? " +
+                     "ORDER BY id " +
+                     "LIMIT ?")) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit + 1); // Fila extra para saber si hay más, como en la búsqueda paginada.
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (records.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    User user = new User();
+                    user.setId(rs.getInt(1));
+                    user.setPasswordHash(rs.getString(2));
+                    records.add(user);
+                }
+            }
+        } catch (SQLException ex) {
+            GET_PASSWORD_HASHES.failure(started);
+            throw new SQLException("Error al leer los hashes de contraseña: " + ex.getMessage(), ex);
+        }
+        GET_PASSWORD_HASHES.success(started, records.size());
+        int lastId = records.isEmpty() ? afterId : records.get(records.size() - 1).getId();
+        return new Page<>(records, lastId, hasMore);
+    }
+
+    /**
+     * Reemplaza los hashes de contraseña de varios usuarios con una sola ejecución por lotes, en
+     * una transacción. Cada actualización es condicional, como en el recálculo al iniciar sesión:
+     * solo se aplica si el hash almacenado sigue siendo el leído, de modo que un cambio de
+     * contraseña o un recálculo simultáneo nunca se sobrescribe.
+     *
+     * Las sesiones abiertas no se revocan: el hash nuevo verifica las mismas contraseñas.
+     *
+     * @param current      Los usuarios con 'id' y el 'passwordHash' que se leyó.
+     * @param replacements Los hashes nuevos, en el mismo orden.
+     * @return El número de filas actualizadas.
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos; el lote se revierte.
+     */
+    public int replacePasswordHashes(List<User> current, List<String> replacements) throws SQLException {
+        if (current.size() != replacements.size()) {
+            throw new IllegalArgumentException("Se esperaban " + current.size() + " hashes nuevos y se recibieron " + replacements.size() + ".");
+        }
+        if (current.isEmpty()) {
+            return 0;
+        }
+        long started = REPLACE_PASSWORD_HASHES.start();
+        int updated = 0;
+        try (Connection connection = conn.connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "UPDATE Users SET passwordHash = ? WHERE id = ? AND passwordHash = ?")) {
+            connection.setAutoCommit(false); // El pool restablece el modo al devolverla.
+            try {
+                for (int i = 0; i < current.size(); i++) {
+                    User user = current.get(i);
+                    ps.setString(1, replacements.get(i));
+                    ps.setInt(2, user.getId());
+                    ps.setString(3, user.getPasswordHash());
+                    ps.addBatch();
+                }
+                for (int count : ps.executeBatch()) {
+                    // Algunos controladores informan SUCCESS_NO_INFO (-2) en lugar del número de filas.
+                    updated += count == java.sql.Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            }
+        } catch (SQLException ex) {
+            REPLACE_PASSWORD_HASHES.failure(started);
+            throw new SQLException("Error al reemplazar los hashes de contraseña: " + ex.getMessage(), ex);
+        }
+        REPLACE_PASSWORD_HASHES.success(started, updated);
+        return updated;
+    }
+
+    /**
+     * Prepara lo que necesita el primer inicio de sesión, para que no lo pague el usuario: prepara
+     * y ejecuta una vez la consulta de credenciales (queda en la caché de sentencias de la conexión
+     * que el pool, por ser LIFO, entregará a continuación) y calcula una vez el hash de relleno de
+     * los emails inexistentes, que deja compilado por el JIT el cálculo de PBKDF2.
+     * Se llama durante el arranque, en segundo plano.
+     *
+     * @throws SQLException Si ocurre un error al interactuar con la base de datos.
+     */
+    public void warmUp() throws SQLException {
+        getCredentials(""); // Ningún usuario tiene un email vacío.
+        PasswordHasher.verify(new char[0], null); // El mismo cálculo que un email inexistente.
+    }
+
+    /**
+     * Construye un objeto User a partir de la fila actual de un ResultSet cuyas columnas
+     * son, en este orden, id, name, email y status.
+     *
+     * @param rs El ResultSet posicionado en la fila a leer.
+     * @return Un nuevo objeto User con los valores de la fila.
+     * @throws SQLException Si ocurre un error al leer las columnas.
+     */
+    private static User readUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getInt(1));       // Obtener el ID del usuario.
+        user.setName(rs.getString(2));   // Obtener el nombre del usuario.
+        user.setEmail(rs.getString(3));  // Obtener el correo electrónico del usuario.
+        user.setStatus(rs.getByte(4));    // Obtener el estado del usuario.
+        return user;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Variantes asíncronas. Ejecutan el método síncrono correspondiente en un hilo virtual del
+    // AsyncDAOExecutor y devuelven inmediatamente un CompletableFuture, sin bloquear al llamador
+    // (por ejemplo, el hilo de despacho de eventos de Swing). Si la operación falla, el futuro
+    // se completa excepcionalmente con la SQLException original.
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Versión asíncrona de {@link #create(User)}.
+     *
+     * @param user El usuario a crear.
+     * @return Un futuro con el usuario creado.
+     */
+    public CompletableFuture<User> createAsync(User user) {
+        return AsyncDAOExecutor.getInstance().submit(() -> create(user));
+    }
+
+    /**
+     * Versión asíncrona de {@link #update(User)}.
+     *
+     * @param user El usuario con la información actualizada.
+     * @return Un futuro con true si se actualizó alguna fila.
+     */
+    public CompletableFuture<Boolean> updateAsync(User user) {
+        return AsyncDAOExecutor.getInstance().submit(() -> update(user));
+    }
+
+    /**
+     * Versión asíncrona de {@link #delete(User)}.
+     *
+     * @param user El usuario a eliminar.
+     * @return Un futuro con true si se eliminó alguna fila.
+     */
+    public CompletableFuture<Boolean> deleteAsync(User user) {
+        return AsyncDAOExecutor.getInstance().submit(() -> delete(user));
+    }
+
+    /**
+     * Versión asíncrona de {@link #search(String)}.
+     *
+     * @param name La cadena de texto a buscar dentro de los nombres de los usuarios.
+     * @return Un futuro con la lista de usuarios encontrados.
+     */
+    public CompletableFuture<ArrayList<User>> searchAsync(String name) {
+        return AsyncDAOExecutor.getInstance().submit(() -> search(name));
+    }
+
+    /**
+     * Versión asíncrona de {@link #search(String, int, int)}.
+     *
+     * @param name    La cadena de texto a buscar dentro de los nombres de los usuarios.
+     * @param afterId El ID después del cual empieza la página.
+     * @param limit   El número máximo de usuarios de la página.
+     * @return Un futuro con la página de usuarios encontrados.
+     */
+    public CompletableFuture<Page<User>> searchAsync(String name, int afterId, int limit) {
+        return AsyncDAOExecutor.getInstance().submit(() -> search(name, afterId, limit));
+    }
+
+    /**
+     * Versión asíncrona de {@link #getById(int)}.
+     *
+     * @param id El ID del usuario.
+     * @return Un futuro con el usuario encontrado, o con null si no existe.
+     */
+    public CompletableFuture<User> getByIdAsync(int id) {
+        return AsyncDAOExecutor.getInstance().submit(() -> getById(id));
+    }
+
+    /**
+     * Versión asíncrona de {@link #authenticate(User)}.
+     *
+     * @param user El usuario con el correo electrónico y la contraseña a verificar.
+     * @return Un futuro con el usuario autenticado, o con null si la autenticación falla.
+     */
+    public CompletableFuture<User> authenticateAsync(User user) {
+        return AsyncDAOExecutor.getInstance().submit(() -> authenticate(user));
+    }
+
+    /**
+     * Versión asíncrona de {@link #authenticate(String, char[])}. El arreglo de la contraseña no
+     * se borra: quien llama puede borrarlo cuando el futuro se complete.
+     *
+     * @param email    El correo electrónico del usuario.
+     * @param password La contraseña en texto plano.
+     * @return Un futuro con el usuario autenticado, o con null si la autenticación falla.
+     */
+    public CompletableFuture<User> authenticateAsync(String email, char[] password) {
+        return AsyncDAOExecutor.getInstance().submit(() -> authenticate(email, password));
+    }
+
+    /**
+     * Versión asíncrona de {@link #updatePassword(User)}.
+     *
+     * @param user El usuario con su ID y la nueva contraseña.
+     * @return Un futuro con true si se actualizó la contraseña.
+     */
+    public CompletableFuture<Boolean> updatePasswordAsync(User user) {
+        return AsyncDAOExecutor.getInstance().submit(() -> updatePassword(user));
+    }
+}
@@ -0,0 +1,299 @@
+package esfe.persistencia;
+
+import esfe.dominio.User; // Entidad indexada.
+
+import java.sql.SQLException;                          // Representa errores específicos de la base de datos.
+import java.text.Normalizer;                           // Quita los acentos, como la intercalación de MySQL.
+import java.util.ArrayList;                            // Lista de resultados y de listas de candidatos.
+import java.util.Comparator;                           // Ordena los resultados por ID y las listas por tamaño.
+import java.util.HashMap;                              // Listas de IDs por trigrama y filas por ID.
+import java.util.HashSet;                              // Conjunto de IDs de cada trigrama.
+import java.util.Locale;                               // Conversión a minúsculas independiente del idioma del sistema.
+import java.util.concurrent.locks.ReentrantReadWriteLock; // Lecturas concurrentes, escrituras exclusivas.
+import java.util.regex.Pattern;                        // Marcas diacríticas.
+
+/**
+ * Índice en memoria de trigramas sobre {@code Users.name} y {@code Users.email}, para responder
+ * búsquedas por subcadena sin el recorrido completo de la tabla que provoca {@code LIKE '%x%'}.
+ *
+ * Cada valor se descompone en sus trigramas (subcadenas de tres caracteres, en minúsculas y sin
+ * acentos, como compara la intercalación por defecto de MySQL: "jose" encuentra "José") y para
+ * cada trigrama se guarda el conjunto de IDs que lo contienen. Una búsqueda intersecta los
+ * conjuntos de los trigramas del término, empezando por el más pequeño, y verifica los candidatos
+ * con {@code contains}. Los términos de menos de tres caracteres, o con comodines de LIKE
+ * ({@code %} o {@code _}), no se pueden responder con el índice y se dejan a la consulta SQL.
+ *
+ * El índice es opcional (propiedad del sistema {@code esfe.userIndex.enabled} o
+ * {@link #setEnabled(boolean)}), se carga completo la primera vez que se usa y se mantiene
+ * sincronizado con las operaciones create/update/delete de {@link UserDAO} de este proceso.
+ * Los cambios hechos por otros procesos no se ven hasta llamar a {@link #invalidate()}.
+ */
+public class UserSearchIndex {
+    private static final int GRAM = 3; // Longitud de los n-gramas indexados.
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static UserSearchIndex instance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<Integer, Row> rows = new HashMap<>();
+    private final HashMap<Long, HashSet<Integer>> nameGrams = new HashMap<>();
+    private final HashMap<Long, HashSet<Integer>> emailGrams = new HashMap<>();
+    private volatile boolean enabled = Boolean.getBoolean("esfe.userIndex.enabled");
+    private volatile boolean loaded;
+
+    /**
+     * Fila indexada: los datos públicos del usuario y sus valores normalizados ({@link #normalize(String)}).
+     */
+    private record Row(int id, String name, String email, byte status, String nameKey, String emailKey) {
+        User toUser() {
+            return new User(id, name, null, email, status); // Copia nueva: el llamador puede modificarla.
+        }
+    }
+
+    /**
+     * Campo sobre el que se busca.
+     */
+    private enum Field {
+        NAME, EMAIL
+    }
+
+    UserSearchIndex() {
+    }
+
+    /**
+     * @return La instancia compartida por todos los UserDAO del proceso.
+     */
+    public static synchronized UserSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new UserSearchIndex();
+        }
+        return instance;
+    }
+
+    /** @return true si las búsquedas de UserDAO deben intentar responderse con el índice. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Activa o desactiva el índice. Al desactivarlo se descarta su contenido.
+     *
+     * @param enabled true para activar el índice.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Descarta el contenido del índice; se volverá a cargar en la siguiente búsqueda.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca usuarios cuyo nombre contenga el término, sin distinguir mayúsculas y minúsculas.
+     *
+     * @param term El término a buscar.
+     * @param dao  El DAO con el que cargar el índice si aún no está cargado.
+     * @return Los usuarios encontrados ordenados por ID, o null si el índice no puede responder
+     * (desactivado o término no indexable) y la búsqueda debe hacerse en SQL.
+     * @throws SQLException Si ocurre un error al cargar el índice.
+     */
+    public ArrayList<User> searchName(String term, UserDAO dao) throws SQLException {
+        return search(Field.NAME, term, dao);
+    }
+
+    /**
+     * Busca usuarios cuyo email contenga el término, sin distinguir mayúsculas y minúsculas.
+     *
+     * @param term El término a buscar.
+     * @param dao  El DAO con el que cargar el índice si aún no está cargado.
+     * @return Los usuarios encontrados ordenados por ID, o null si el índice no puede responder.
+     * @throws SQLException Si ocurre un error al cargar el índice.
+     */
+    public ArrayList<User> searchEmail(String term, UserDAO dao) throws SQLException {
+        return search(Field.EMAIL, term, dao);
+    }
+
+    /**
+     * Agrega o reemplaza un usuario en el índice, si está cargado.
+     *
+     * @param user El usuario con sus valores actuales.
+     */
+    public void put(User user) {
+        if (!enabled) {
+            return;
+        }
+        // Siempre bajo el candado: si hay una carga en curso, se espera a que termine para
+        // aplicar el cambio sobre ella (la carga pudo leer la fila antes de modificarse).
+        lock.writeLock().lock();
+        try {
+            if (loaded) { // Si no está cargado, la carga completa lo incluirá.
+                removeRow(user.getId());
+                addRow(user);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un usuario del índice, si está cargado.
+     *
+     * @param id El ID del usuario eliminado.
+     */
+    public void remove(int id) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                removeRow(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ArrayList<User> search(Field field, String term, UserDAO dao) throws SQLException {
+        if (!enabled || term == null) {
+            return null;
+        }
+        String key = normalize(term);
+        if (key.length() < GRAM || key.indexOf('%') >= 0 || key.indexOf('_') >= 0) {
+            return null; // Término corto o con comodines de LIKE: lo resuelve SQL.
+        }
+        ensureLoaded(dao);
+
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null; // Invalidado entre la carga y la búsqueda: resolver en SQL.
+            }
+            HashMap<Long, HashSet<Integer>> grams = field == Field.NAME ? nameGrams : emailGrams;
+            ArrayList<HashSet<Integer>> postings = new ArrayList<>();
+            for (int i = 0; i + GRAM <= key.length(); i++) {
+                HashSet<Integer> ids = grams.get(gram(key, i));
+                if (ids == null) {
+                    return new ArrayList<>(); // Un trigrama sin usuarios: no hay coincidencias.
+                }
+                postings.add(ids);
+            }
+            // Recorrer el conjunto más pequeño y descartar los IDs que falten en los demás.
+            postings.sort(Comparator.comparingInt(HashSet::size));
+            ArrayList<User> result = new ArrayList<>();
+            for (Integer id : postings.get(0)) {
+                if (containsInAll(postings, id)) {
+                    Row row = rows.get(id);
+                    // Los trigramas pueden coincidir sin que el término aparezca seguido; verificar.
+                    String value = field == Field.NAME ? row.nameKey() : row.emailKey();
+                    if (value.contains(key)) {
+                        result.add(row.toUser());
+                    }
+                }
+            }
+            result.sort(Comparator.comparingInt(User::getId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded(UserDAO dao) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                clear();
+                dao.searchEach("", this::addRow); // Recorre toda la tabla con un cursor, sin acumularla.
+                loaded = true;
+            }
+        } catch (SQLException ex) {
+            clear();
+            throw ex;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean containsInAll(ArrayList<HashSet<Integer>> postings, Integer id) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clear() {
+        rows.clear();
+        nameGrams.clear();
+        emailGrams.clear();
+    }
+
+    private void addRow(User user) {
+        String nameKey = user.getName() == null ? "" : normalize(user.getName());
+        String emailKey = user.getEmail() == null ? "" : normalize(user.getEmail());
+        Row row = new Row(user.getId(), user.getName(), user.getEmail(), user.getStatus(), nameKey, emailKey);
+        rows.put(row.id(), row);
+        index(nameGrams, nameKey, row.id());
+        index(emailGrams, emailKey, row.id());
+    }
+
+    private void removeRow(int id) {
+        Row row = rows.remove(id);
+        if (row != null) {
+            unindex(nameGrams, row.nameKey(), id);
+            unindex(emailGrams, row.emailKey(), id);
+        }
+    }
+
+    private static void index(HashMap<Long, HashSet<Integer>> grams, String value, int id) {
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.computeIfAbsent(gram(value, i), k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void unindex(HashMap<Long, HashSet<Integer>> grams, String value, int id) {
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            Long gram = gram(value, i);
+            HashSet<Integer> ids = grams.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                grams.remove(gram); // No conservar trigramas vacíos.
+            }
+        }
+    }
+
+    /**
+     * Empaqueta los tres caracteres que empiezan en {@code i} en un long (16 bits por carácter),
+     * evitando crear una subcadena por trigrama.
+     */
+    private static long gram(String value, int i) {
+        return ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+    }
+
+    /**
+     * Normaliza un texto para compararlo como la intercalación por defecto de MySQL: sin acentos
+     * (descomposición NFD sin las marcas diacríticas) y en minúsculas.
+     *
+     * @param text El texto a normalizar.
+     * @return El texto normalizado.
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
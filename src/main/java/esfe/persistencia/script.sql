@@ -5,7 +5,12 @@ GO
 CREATE TABLE Users (
     id INT PRIMARY KEY IDENTITY(1,1),
     name VARCHAR(100) NOT NULL,
-    passwordHash VARCHAR(64) NOT NULL,
+    passwordHash VARCHAR(255) NOT NULL,
     email VARCHAR(200) NOT NULL UNIQUE,
     status TINYINT NOT NULL
-);
\ No newline at end of file
+);
+GO
+-- Bases de datos existentes: ampliar la columna para el formato pbkdf2-sha256$iteraciones$sal$hash.
+-- (MySQL: ALTER TABLE Users MODIFY passwordHash VARCHAR(255) NOT NULL;)
+ALTER TABLE Users ALTER COLUMN passwordHash VARCHAR(255) NOT NULL;
+GO
\ No newline at end of file
@@ -4,6 +4,8 @@ import esfe.dominio.User; // Importa la clase User, que probablemente representa
 import esfe.persistencia.UserDAO; // Importa la interfaz o clase UserDAO, que define o implementa el acceso a datos para la entidad User.
 
 import javax.swing.*; // Importa el paquete javax.swing, que proporciona clases para construir interfaces gráficas de usuario (GUIs) en Java.
+import java.awt.Cursor; // Importa la clase Cursor, utilizada para mostrar el cursor de espera mientras se guarda la contraseña.
+import java.util.concurrent.CompletionException; // Importa la clase CompletionException, que envuelve el error de la operación asíncrona.
 
 
 public class ChangePasswordForm extends JDialog {
@@ -30,49 +32,75 @@ public class ChangePasswordForm extends JDialog {
         btnChangePassword.addActionListener(e-> changePassword());
 
     }
+    /**
+     * Inicia el cambio de contraseña sin bloquear la interfaz: calcular el hash nuevo (PBKDF2) tarda
+     * cientos de milisegundos, por lo que se hace en el ejecutor de los DAO y el resultado se
+     * muestra en el hilo de eventos de Swing, como en {@link LoginForm}.
+     */
     private void changePassword() {
+        // Obtiene el usuario autenticado desde la ventana principal (MainForm).
+        User userAut = mainForm.getUserAutenticate();
+        // Crea un nuevo objeto User para almacenar los datos de actualización.
+        User user = new User();
+        // Establece el ID del usuario en el nuevo objeto User, utilizando el ID del usuario autenticado.
+        user.setId(userAut.getId());
+        // Establece la nueva contraseña en el objeto User, convirtiendo el array de caracteres del campo de contraseña a un String.
+        user.setPasswordHash(new String(txtPassword.getPassword()));
 
-        try {
-            // Obtiene el usuario autenticado desde la ventana principal (MainForm).
-            User userAut = mainForm.getUserAutenticate();
-            // Crea un nuevo objeto User para almacenar los datos de actualización.
-            User user = new User();
-            // Establece el ID del usuario en el nuevo objeto User, utilizando el ID del usuario autenticado.
-            user.setId(userAut.getId());
-            // Establece la nueva contraseña en el objeto User, convirtiendo el array de caracteres del campo de contraseña a un String.
-            user.setPasswordHash(new String(txtPassword.getPassword()));
-
-            // Valida si la nueva contraseña está vacía.
-            if (user.getPasswordHash().trim().isEmpty()) {
-                JOptionPane.showMessageDialog(null,
-                        "La contraseña es obligatoria",
-                        "Validacion", JOptionPane.WARNING_MESSAGE);
-                return; // Sale del método si la contraseña está vacía.
-            }
+        // Valida si la nueva contraseña está vacía.
+        if (user.getPasswordHash().trim().isEmpty()) {
+            JOptionPane.showMessageDialog(null,
+                    "La contraseña es obligatoria",
+                    "Validacion", JOptionPane.WARNING_MESSAGE);
+            return; // Sale del método si la contraseña está vacía.
+        }
 
-            // Intenta actualizar la contraseña del usuario en la base de datos a través del UserDAO.
-            boolean res = userDAO.updatePassword(user);
+        setBusy(true); // Evita un segundo cambio mientras se guarda el primero.
+        // Intenta actualizar la contraseña del usuario en la base de datos a través del UserDAO.
+        userDAO.updatePasswordAsync(user).whenComplete((res, error) ->
+                SwingUtilities.invokeLater(() -> finishChangePassword(res, error)));
+    }
 
-            // Verifica el resultado de la actualización.
-            if (res) {
-                // Si la actualización es exitosa, cierra la ventana actual (ChangePasswordForm).
-                this.dispose();
-                // Crea una nueva instancia de la ventana de inicio de sesión (LoginForm), pasando la ventana principal como parámetro.
-                LoginForm loginForm = new LoginForm(this.mainForm);
-                // Hace visible la ventana de inicio de sesión.
-                loginForm.setVisible(true); // Muestra la ventana de inicio de sesión para que el usuario pueda ingresar con la nueva contraseña.
-            } else {
-                // Si la actualización falla, muestra un mensaje de advertencia.
-                JOptionPane.showMessageDialog(null,
-                        "No se logro cambiar la contraseña",
-                        "Cambiar contraseña", JOptionPane.WARNING_MESSAGE);
-            }
-        } catch (Exception ex) {
+    /**
+     * Muestra el resultado del cambio de contraseña. Se ejecuta en el hilo de eventos de Swing.
+     *
+     * @param res   true si se actualizó la contraseña.
+     * @param error El error de la operación, o null si terminó sin errores.
+     */
+    private void finishChangePassword(Boolean res, Throwable error) {
+        setBusy(false);
+        if (error != null) {
             // Captura cualquier excepción que ocurra durante el proceso.
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
             JOptionPane.showMessageDialog(null,
-                    ex.getMessage(),
+                    cause.getMessage(),
                     "Sistema", JOptionPane.ERROR_MESSAGE); // Muestra un mensaje de error con la descripción de la excepción.
+            return;
         }
+        // Verifica el resultado de la actualización.
+        if (res) {
+            // Si la actualización es exitosa, cierra la ventana actual (ChangePasswordForm).
+            this.dispose();
+            // Crea una nueva instancia de la ventana de inicio de sesión (LoginForm), pasando la ventana principal como parámetro.
+            LoginForm loginForm = new LoginForm(this.mainForm);
+            // Hace visible la ventana de inicio de sesión.
+            loginForm.setVisible(true); // Muestra la ventana de inicio de sesión para que el usuario pueda ingresar con la nueva contraseña.
+        } else {
+            // Si la actualización falla, muestra un mensaje de advertencia.
+            JOptionPane.showMessageDialog(null,
+                    "No se logro cambiar la contraseña",
+                    "Cambiar contraseña", JOptionPane.WARNING_MESSAGE);
+        }
+    }
 
+    /**
+     * Deshabilita los controles y muestra el cursor de espera mientras se guarda la contraseña.
+     *
+     * @param busy true mientras la operación está en curso.
+     */
+    private void setBusy(boolean busy) {
+        btnChangePassword.setEnabled(!busy);
+        txtPassword.setEnabled(!busy);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
 }
@@ -5,10 +5,6 @@ import esfe.persistencia.HerramientaDAO;
 import esfe.utils.CUD;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
-import java.util.ArrayList;
 
 public class HerramientaReadingForm extends JDialog { // Extiende JDialog para ser una ventana modal
     private JTextField txtNombre; // Campo para buscar por nombre
@@ -20,6 +16,17 @@ public class HerramientaReadingForm extends JDialog { // Extiende JDialog para s
 
     private HerramientaDAO herramientaDAO; // Instancia para operaciones de base de datos de herramientas.
     private MainForm mainForm; // Referencia a la ventana principal de la aplicación.
+    private SearchController<PagedTableModel.Loaded<Herramienta>> searchController; // Búsqueda asíncrona mientras se escribe.
+    // Resultados recientes, filtrados en memoria al extender el texto de búsqueda
+    private final SearchSessionCache<Herramienta> searchCache = new SearchSessionCache<>(Herramienta::getNombre);
+
+    // Modelo de la tabla con los atributos de Herramienta, cargado por páginas al desplazarse
+    private final PagedTableModel<Herramienta> tableModel = new PagedTableModel<>(PagedTableModel.DEFAULT_PAGE_SIZE,
+            this::showError,
+            PagedTableModel.intColumn("Id", Herramienta::getId),
+            PagedTableModel.objectColumn("Nombre", String.class, Herramienta::getNombre),
+            PagedTableModel.objectColumn("Tipo", String.class, Herramienta::getTipo),
+            PagedTableModel.objectColumn("Uso Principal", String.class, Herramienta::getUso_principal));
 
     // Constructor de la clase HerramientaReadingForm.
     public HerramientaReadingForm(MainForm mainForm) {
@@ -31,25 +38,24 @@ public class HerramientaReadingForm extends JDialog { // Extiende JDialog para s
         pack();
         setLocationRelativeTo(mainForm);
 
-        // Listener de teclado para el campo de búsqueda txtNombre
-        txtNombre.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyReleased(KeyEvent e) {
-                if (!txtNombre.getText().trim().isEmpty()) {
-                    search(txtNombre.getText());
-                } else {
-                    DefaultTableModel emptyModel = new DefaultTableModel();
-                    tableHerramientas.setModel(emptyModel); // Limpia la tabla si el campo está vacío
-                }
-            }
-        });
+        tableHerramientas.setModel(tableModel);
+        hideCol(0); // Oculta la columna del ID
+
+        // Búsqueda mientras se escribe en txtNombre, fuera del hilo de eventos; las páginas
+        // siguientes se piden al desplazarse por la tabla
+        searchController = new SearchController<>(txtNombre, SearchController.DEFAULT_DELAY_MILLIS,
+                term -> searchCache.search(term, tableModel, (afterId, limit) -> herramientaDAO.searchAsync(term, afterId, limit)),
+                tableModel::show,
+                tableModel::clear, // Limpia la tabla si el campo está vacío
+                this::showError);
 
         // ActionListener para el botón 'Crear'
         irACrearButton.addActionListener(s -> {
             HerramientaWriteForm herramientaWriteForm = new HerramientaWriteForm(this.mainForm, CUD.CREATE, new Herramienta());
             herramientaWriteForm.setVisible(true);
-            DefaultTableModel emptyModel = new DefaultTableModel();
-            tableHerramientas.setModel(emptyModel); // Limpia la tabla para refrescar la lista
+            searchController.reset(); // Descarta una búsqueda en curso
+            searchCache.invalidate(); // Descarta los resultados guardados
+            tableModel.clear(); // Limpia la tabla para refrescar la lista
         });
 
         // ActionListener para el botón 'Modificar'
@@ -58,8 +64,9 @@ public class HerramientaReadingForm extends JDialog { // Extiende JDialog para s
             if (herramienta != null) {
                 HerramientaWriteForm herramientaWriteForm = new HerramientaWriteForm(this.mainForm, CUD.UPDATE, herramienta);
                 herramientaWriteForm.setVisible(true);
-                DefaultTableModel emptyModel = new DefaultTableModel();
-                tableHerramientas.setModel(emptyModel); // Limpia la tabla para refrescar la lista
+                searchController.reset(); // Descarta una búsqueda en curso
+                searchCache.invalidate(); // Descarta los resultados guardados
+                tableModel.clear(); // Limpia la tabla para refrescar la lista
             }
         });
 
@@ -69,52 +76,23 @@ public class HerramientaReadingForm extends JDialog { // Extiende JDialog para s
             if (herramienta != null) {
                 HerramientaWriteForm herramientaWriteForm = new HerramientaWriteForm(this.mainForm, CUD.DELETE, herramienta);
                 herramientaWriteForm.setVisible(true);
-                DefaultTableModel emptyModel = new DefaultTableModel();
-                tableHerramientas.setModel(emptyModel); // Limpia la tabla para refrescar la lista
+                searchController.reset(); // Descarta una búsqueda en curso
+                searchCache.invalidate(); // Descarta los resultados guardados
+                tableModel.clear(); // Limpia la tabla para refrescar la lista
             }
         });
     }
 
-    private void search(String query) {
-        try {
-            ArrayList<Herramienta> herramientas = herramientaDAO.search(query);
-            createTable(herramientas);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null,
-                    ex.getMessage(),
-                    "ERROR", JOptionPane.ERROR_MESSAGE);
-        }
+    @Override
+    public void dispose() {
+        searchController.close(); // Deja de observar el campo
+        super.dispose();
     }
 
-    public void createTable(ArrayList<Herramienta> herramientas) {
-        DefaultTableModel model = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Ninguna celda es editable
-            }
-        };
-
-        // Definición de las columnas de la tabla con los atributos de Herramienta
-        model.addColumn("Id");
-        model.addColumn("Nombre");
-        model.addColumn("Tipo");
-        model.addColumn("Uso Principal");
-
-        this.tableHerramientas.setModel(model);
-
-        Object row[] = null;
-
-        // Llenar la tabla con los datos de las herramientas
-        for (int i = 0; i < herramientas.size(); i++) {
-            Herramienta herramienta = herramientas.get(i);
-            model.addRow(row);
-            model.setValueAt(herramienta.getId(), i, 0);
-            model.setValueAt(herramienta.getNombre(), i, 1);
-            model.setValueAt(herramienta.getTipo(), i, 2);
-            model.setValueAt(herramienta.getUso_principal(), i, 3); // Usando getUso_principal() según tu especificación
-        }
-
-        hideCol(0); // Oculta la columna del ID
+    private void showError(Throwable ex) {
+        JOptionPane.showMessageDialog(null,
+                ex.getMessage(),
+                "ERROR", JOptionPane.ERROR_MESSAGE);
     }
 
     private void hideCol(int pColumna) {
@@ -3,9 +3,14 @@ package esfe.presentacion;
 import javax.swing.*; // Importa el paquete javax.swing, que proporciona clases para crear interfaces gráficas de usuario (GUI) en Java Swing (como JFrame, JPanel, JButton, JLabel, JTextField, JPasswordField, JOptionPane, etc.).
 import java.awt.event.WindowAdapter; // Importa la clase WindowAdapter desde el paquete java.awt.event. WindowAdapter es una clase abstracta que implementa la interfaz WindowListener y proporciona implementaciones vacías para sus métodos. Se utiliza para extenderla y solo sobrescribir los métodos de los eventos de ventana que nos interesan.
 import java.awt.event.WindowEvent; // Importa la clase WindowEvent desde el paquete java.awt.event. WindowEvent representa eventos que ocurren con las ventanas (como abrir, cerrar, minimizar, maximizar, etc.).
+import java.awt.Cursor; // Importa la clase Cursor, utilizada para mostrar el cursor de espera mientras se autentica.
+import java.util.Arrays; // Importa la clase Arrays, utilizada para borrar de memoria los caracteres de la contraseña después de autenticar.
+import java.util.concurrent.CompletionException; // Importa la clase CompletionException, que envuelve el error de la autenticación asíncrona.
 
+import esfe.StartupWarmup; // Importa la clase StartupWarmup desde el paquete esfe. Esta clase prepara en segundo plano lo que necesita el primer inicio de sesión e informa cuánto tardó.
 import esfe.dominio.User; // Importa la clase User desde el paquete esfe.dominio. Esta clase  representa la entidad de usuario con sus atributos (id, nombre, email, contraseña, estado, etc.).
 import esfe.persistencia.UserDAO; // Importa la clase UserDAO desde el paquete esfe.persistencia. Esta clase se encarga de la interacción con la base de datos para la entidad User (crear, leer, actualizar, eliminar, autenticar usuarios).
+import esfe.utils.SessionStore; // Importa la clase SessionStore desde el paquete esfe.utils. Esta clase emite y valida los tokens de sesión de los usuarios autenticados.
 
 /**
  * La clase LoginForm representa la ventana de inicio de sesión de la aplicación.
@@ -42,36 +47,72 @@ public class LoginForm extends JDialog {
             }
         });
     }
+    /**
+     * Inicia la autenticación sin bloquear la interfaz: verificar la contraseña (PBKDF2) tarda
+     * cientos de milisegundos, por lo que se hace en el ejecutor de los DAO y el resultado se
+     * muestra en el hilo de eventos de Swing. Mientras tanto los botones quedan deshabilitados.
+     */
     private void login() {
-        try{
-            User user = new User(); // Crea una nueva instancia de la clase User para almacenar las credenciales del usuario.
-            user.setEmail(txtEmail.getText()); // Obtiene el texto ingresado en el campo de texto 'txtEmail'  y lo establece como el correo electrónico del objeto 'user'.
-            user.setPasswordHash(new String(txtPassword.getPassword())); // Obtiene la contraseña ingresada en el campo de contraseña 'txtPassword' (como un array de caracteres), la convierte a un String y la establece como la contraseña hasheada del objeto 'user'.
-
-            User userAut = userDAO.authenticate(user); // Llama al método 'authenticate' del objeto 'userDAO' para verificar las credenciales del usuario contra la base de datos. El resultado (un objeto User si la autenticación es exitosa, o null si falla) se almacena en 'userAut'.
+        String email = txtEmail.getText(); // El correo electrónico ingresado en el campo de texto 'txtEmail'.
+        char[] password = txtPassword.getPassword(); // Obtiene la contraseña como un array de caracteres, sin convertirla a un String inmutable.
+        setBusy(true); // Evita un segundo intento mientras se verifica el primero.
+        long started = System.nanoTime(); // Inicio de la autenticación, para informar la duración del primer inicio de sesión.
+        userDAO.authenticateAsync(email, password).whenComplete((userAut, error) -> {
+            Arrays.fill(password, '\0'); // Borra la contraseña de memoria en cuanto ya no se necesita.
+            long elapsed = System.nanoTime() - started;
+            SwingUtilities.invokeLater(() -> finishLogin(email, userAut, error, elapsed));
+        });
+    }
 
-            // Verifica si la autenticación fue exitosa:
-            // 1. 'userAut' no es null (se encontró un usuario).
-            // 2. El ID del usuario autenticado es mayor que 0 (implica que es un usuario válido en la base de datos).
-            // 3. El correo electrónico del usuario autenticado coincide con el correo electrónico ingresado.
-            if(userAut != null && userAut.getId() > 0 && userAut.getEmail().equals((user.getEmail()))){
-                this.mainForm.setUserAutenticate(userAut); // Si la autenticación es exitosa, establece el usuario autenticado en el formulario principal ('mainForm'). Esto permite que el formulario principal acceda a la información del usuario logueado.
-                this.dispose(); // Cierra la ventana de inicio de sesión actual.
-            }
-            else{
-                // Si la autenticación falla, muestra un mensaje de diálogo de advertencia.
-                JOptionPane.showMessageDialog(null,
-                        "Email y password incorrecto", // El mensaje que se muestra al usuario.
-                        "Login", // El título de la ventana de diálogo.
-                        JOptionPane.WARNING_MESSAGE); // El tipo de icono que se muestra (advertencia).
-            }
-        }
-        catch (Exception ex){
+    /**
+     * Muestra el resultado de la autenticación. Se ejecuta en el hilo de eventos de Swing.
+     *
+     * @param email   El correo electrónico ingresado.
+     * @param userAut El usuario autenticado, o null si las credenciales no son válidas.
+     * @param error   El error de la autenticación, o null si terminó sin errores.
+     * @param elapsed La duración de la autenticación en nanosegundos.
+     */
+    private void finishLogin(String email, User userAut, Throwable error, long elapsed) {
+        setBusy(false);
+        if (error != null) {
             // Captura cualquier excepción que pueda ocurrir durante el proceso de inicio de sesión (por ejemplo, error de base de datos).
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
             JOptionPane.showMessageDialog(null,
-                    ex.getMessage(), // Muestra el mensaje de la excepción.
+                    cause.getMessage(), // Muestra el mensaje de la excepción.
                     "Sistem", // El título de la ventana de diálogo.
                     JOptionPane.ERROR_MESSAGE); // El tipo de icono que se muestra (error).
+            return;
         }
+        // Verifica si la autenticación fue exitosa:
+        // 1. 'userAut' no es null (se encontró un usuario).
+        // 2. El ID del usuario autenticado es mayor que 0 (implica que es un usuario válido en la base de datos).
+        // 3. El correo electrónico del usuario autenticado coincide con el correo electrónico ingresado.
+        if(userAut != null && userAut.getId() > 0 && userAut.getEmail().equals(email)){
+            StartupWarmup.getInstance().recordLogin(elapsed); // Informa el tiempo hasta el primer inicio de sesión (solo la primera vez).
+            SessionStore sessions = SessionStore.getInstance(); // Almacén de sesiones de los usuarios autenticados.
+            sessions.revoke(this.mainForm.getSessionToken()); // Si se está cambiando de usuario, cierra la sesión anterior.
+            this.mainForm.setSessionToken(sessions.create(userAut)); // Abre una sesión para el usuario autenticado y guarda su token en el formulario principal.
+            this.mainForm.setUserAutenticate(userAut); // Si la autenticación es exitosa, establece el usuario autenticado en el formulario principal ('mainForm'). Esto permite que el formulario principal acceda a la información del usuario logueado.
+            this.dispose(); // Cierra la ventana de inicio de sesión actual.
+        }
+        else{
+            // Si la autenticación falla, muestra un mensaje de diálogo de advertencia.
+            JOptionPane.showMessageDialog(null,
+                    "Email y password incorrecto", // El mensaje que se muestra al usuario.
+                    "Login", // El título de la ventana de diálogo.
+                    JOptionPane.WARNING_MESSAGE); // El tipo de icono que se muestra (advertencia).
+        }
+    }
+
+    /**
+     * Deshabilita los controles y muestra el cursor de espera mientras se autentica.
+     *
+     * @param busy true mientras la autenticación está en curso.
+     */
+    private void setBusy(boolean busy) {
+        btnLogin.setEnabled(!busy);
+        txtEmail.setEnabled(!busy);
+        txtPassword.setEnabled(!busy);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
 }
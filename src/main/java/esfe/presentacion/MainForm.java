@@ -7,6 +7,8 @@ public class MainForm extends JFrame {
 
     private User userAutenticate; // Declaración de una variable de instancia llamada 'userAutenticate' de tipo User. Esta variable se utilizará para almacenar la información del usuario que ha sido autenticado en el sistema.
 
+    private String sessionToken; // Token de la sesión del usuario autenticado, emitido por SessionStore al iniciar sesión.
+
     public User getUserAutenticate() {
         return userAutenticate;
     }
@@ -15,6 +17,14 @@ public class MainForm extends JFrame {
         this.userAutenticate = userAutenticate;
     }
 
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
+
     public MainForm(){
         setTitle("Sistema en java de escritorio"); // Establece el título de la ventana principal (JFrame).
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // Configura la operación por defecto al cerrar la ventana para que la aplicación se termine.
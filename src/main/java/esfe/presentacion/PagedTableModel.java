@@ -0,0 +1,319 @@
+package esfe.presentacion;
+
+import esfe.persistencia.Page; // Página de resultados por conjunto de claves.
+
+import javax.swing.SwingUtilities;              // Aplica las páginas en el hilo de eventos.
+import javax.swing.table.AbstractTableModel;    // Modelo de tabla sin almacenamiento propio.
+import java.util.Arrays;                        // Crecimiento de los arreglos de columnas.
+import java.util.List;                          // Elementos de una página.
+import java.util.concurrent.CompletableFuture;  // Resultado de la carga asíncrona de una página.
+import java.util.concurrent.CompletionException; // Envoltorio de los errores de carga.
+import java.util.function.Consumer;             // Recibe los errores de carga.
+import java.util.function.Function;             // Extrae el valor de una columna.
+import java.util.function.ToIntFunction;        // Extrae el valor de una columna entera.
+
+/**
+ * Modelo de JTable para resultados grandes, que se cargan por páginas a medida que se recorren.
+ *
+ * A diferencia de un DefaultTableModel, no guarda un Vector por fila ni dispara un evento por
+ * celda: los valores se copian a un arreglo por columna (un {@code int[]} para las columnas
+ * enteras, como el ID) y cada carga dispara un único evento. Solo se pide la primera página al
+ * buscar; cuando la tabla pide valores cerca de la última fila cargada (es decir, cuando el
+ * usuario se desplaza hasta allí) se pide la página siguiente con la paginación por conjunto de
+ * claves de los DAO, de modo que una búsqueda con 100 000 coincidencias se muestra tan rápido
+ * como una con 200 y la memoria crece solo con lo que realmente se recorre.
+ *
+ * Todos los métodos, salvo {@link #fetchFirst(PageLoader)}, deben llamarse desde el hilo de
+ * eventos de Swing.
+ *
+ * @param <T> El tipo de los elementos.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    /**
+     * Carga una página de resultados, por ejemplo
+     * {@code (afterId, limit) -> userDAO.searchAsync(nombre, afterId, limit)}.
+     *
+     * @param <T> El tipo de los elementos.
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        CompletableFuture<Page<T>> load(int afterId, int limit);
+    }
+
+    /**
+     * Primera página de una búsqueda junto con la forma de cargar las siguientes.
+     *
+     * @param page   La primera página.
+     * @param loader Carga las páginas siguientes.
+     * @param <T>    El tipo de los elementos.
+     */
+    public record Loaded<T>(Page<T> page, PageLoader<T> loader) {
+    }
+
+    /**
+     * Columna del modelo, con sus valores guardados en un arreglo.
+     *
+     * @param <T> El tipo de los elementos de los que se extraen los valores.
+     */
+    public abstract static class Column<T> {
+        private final String name;
+        private final Class<?> type;
+
+        private Column(String name, Class<?> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        abstract void resize(int capacity);
+
+        abstract void set(int row, T item);
+
+        abstract Object get(int row);
+    }
+
+    /**
+     * @param name   El encabezado de la columna.
+     * @param getter Extrae el valor entero de cada elemento.
+     * @return Una columna respaldada por un {@code int[]}; sus valores se devuelven como Integer.
+     */
+    public static <T> Column<T> intColumn(String name, ToIntFunction<T> getter) {
+        return new Column<>(name, Integer.class) {
+            private int[] values = new int[0];
+
+            @Override
+            void resize(int capacity) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            @Override
+            void set(int row, T item) {
+                values[row] = getter.applyAsInt(item);
+            }
+
+            @Override
+            Object get(int row) {
+                return values[row];
+            }
+        };
+    }
+
+    /**
+     * @param name   El encabezado de la columna.
+     * @param type   La clase de los valores.
+     * @param getter Extrae el valor de cada elemento.
+     * @return Una columna respaldada por un arreglo de referencias.
+     */
+    public static <T, V> Column<T> objectColumn(String name, Class<V> type, Function<T, V> getter) {
+        return new Column<>(name, type) {
+            private Object[] values = new Object[0];
+
+            @Override
+            void resize(int capacity) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            @Override
+            void set(int row, T item) {
+                values[row] = getter.apply(item);
+            }
+
+            @Override
+            Object get(int row) {
+                return values[row];
+            }
+        };
+    }
+
+    private final int pageSize;
+    private final int prefetchRows;   // Filas antes del final a partir de las cuales se pide la página siguiente.
+    private final Consumer<Throwable> onError;
+    private final Column<T>[] columns;
+
+    private int rowCount;
+    private int capacity;
+    private PageLoader<T> loader;     // null si no hay más páginas que cargar.
+    private int lastId;
+    private boolean hasMore;
+    private boolean loading;
+    private long generation;          // Se incrementa al mostrar otra búsqueda; descarta páginas tardías.
+
+    /**
+     * @param pageSize Las filas por página.
+     * @param onError  Recibe, en el hilo de eventos, el error al cargar una página siguiente.
+     * @param columns  Las columnas, en orden.
+     */
+    @SafeVarargs
+    public PagedTableModel(int pageSize, Consumer<Throwable> onError, Column<T>... columns) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize debe ser mayor que cero: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.prefetchRows = Math.max(1, pageSize / 4);
+        this.onError = onError;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Carga la primera página de una búsqueda. No modifica el modelo, por lo que puede llamarse
+     * desde cualquier hilo; el resultado se muestra con {@link #show(Loaded)}.
+     *
+     * @param loader Carga las páginas de la búsqueda.
+     * @return La primera página junto con el cargador; cancelarlo cancela también la consulta.
+     */
+    public CompletableFuture<Loaded<T>> fetchFirst(PageLoader<T> loader) {
+        CompletableFuture<Page<T>> first = loader.load(0, pageSize);
+        CompletableFuture<Loaded<T>> loaded = first.thenApply(page -> new Loaded<>(page, loader));
+        loaded.whenComplete((result, error) -> {
+            if (loaded.isCancelled()) {
+                first.cancel(false); // Una búsqueda reemplazada no debe llegar a consultar.
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Reemplaza el contenido por la primera página de una búsqueda. Las páginas que aún lleguen
+     * de la búsqueda anterior se descartan.
+     *
+     * @param loaded La primera página y el cargador de las siguientes.
+     */
+    public void show(Loaded<T> loaded) {
+        reset(Math.max(pageSize, loaded.page().getItems().size()));
+        loader = loaded.loader();
+        append(loaded.page());
+        fireTableDataChanged();
+    }
+
+    /**
+     * Muestra una lista completa, sin páginas siguientes.
+     *
+     * @param items Los elementos a mostrar.
+     */
+    public void setItems(List<T> items) {
+        reset(items.size());
+        for (T item : items) {
+            add(item);
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Vacía el modelo y libera los arreglos.
+     */
+    public void clear() {
+        reset(0);
+        fireTableDataChanged();
+    }
+
+    /** @return true si se está cargando una página siguiente. */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /** @return true si existen más filas que aún no se han cargado. */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns[column].type;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Ninguna celda es editable.
+    }
+
+    /**
+     * Devuelve el valor de una celda. La JTable solo pide las celdas visibles, por lo que pedir
+     * una cercana a la última fila cargada indica que el usuario llegó al final de lo cargado.
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= rowCount - prefetchRows) {
+            loadMore();
+        }
+        return columns[column].get(row);
+    }
+
+    /**
+     * Pide la página siguiente, si la hay y no se está pidiendo ya. Se agrega a la tabla en el
+     * hilo de eventos con un único evento de filas insertadas.
+     */
+    private void loadMore() {
+        if (loading || !hasMore || loader == null) {
+            return;
+        }
+        loading = true;
+        long current = generation;
+        loader.load(lastId, pageSize).whenComplete((page, error) -> SwingUtilities.invokeLater(() -> {
+            if (current != generation) {
+                return; // Se mostró otra búsqueda mientras tanto.
+            }
+            loading = false;
+            if (error != null) {
+                hasMore = false; // No reintentar en cada repintado; una nueva búsqueda vuelve a empezar.
+                onError.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            int first = rowCount;
+            append(page);
+            if (rowCount > first) {
+                fireTableRowsInserted(first, rowCount - 1);
+            }
+        }));
+    }
+
+    private void reset(int initialCapacity) {
+        generation++;
+        loader = null;
+        loading = false;
+        hasMore = false;
+        lastId = 0;
+        rowCount = 0;
+        capacity = initialCapacity;
+        for (Column<T> column : columns) {
+            column.resize(0); // Soltar los valores (y el tamaño) de la búsqueda anterior.
+            column.resize(initialCapacity);
+        }
+    }
+
+    private void append(Page<T> page) {
+        for (T item : page.getItems()) {
+            add(item);
+        }
+        lastId = page.getNextAfterId();
+        hasMore = page.hasMore();
+    }
+
+    private void add(T item) {
+        if (rowCount == capacity) {
+            capacity = Math.max(pageSize, capacity + (capacity >> 1));
+            for (Column<T> column : columns) {
+                column.resize(capacity);
+            }
+        }
+        for (Column<T> column : columns) {
+            column.set(rowCount, item);
+        }
+        rowCount++;
+    }
+}
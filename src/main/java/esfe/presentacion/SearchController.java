@@ -0,0 +1,165 @@
+package esfe.presentacion;
+
+import javax.swing.JTextField;          // Campo de búsqueda observado.
+import javax.swing.SwingUtilities;      // Publica los resultados en el hilo de eventos de Swing.
+import javax.swing.Timer;               // Espera a que el usuario deje de escribir.
+import javax.swing.event.DocumentEvent; // Cambio en el texto del campo.
+import javax.swing.event.DocumentListener; // Observa escritura, borrado y pegado.
+import java.util.concurrent.CancellationException; // Consulta cancelada por una búsqueda más reciente.
+import java.util.concurrent.CompletableFuture; // Resultado de la consulta asíncrona.
+import java.util.concurrent.CompletionException; // Envoltorio de los errores de la consulta.
+import java.util.function.Consumer;     // Reciben el resultado o el error.
+import java.util.function.Function;     // Lanza la consulta para un texto.
+
+/**
+ * Búsqueda mientras se escribe para los formularios de consulta.
+ *
+ * En lugar de consultar la base de datos en el hilo de eventos de Swing con cada tecla, espera a
+ * que el usuario deje de escribir durante unos milisegundos y lanza una única consulta asíncrona
+ * (por ejemplo {@code userDAO::searchAsync}). Si el texto cambia mientras una consulta está en
+ * curso, ésta se cancela y su resultado, si aun así llega, se descarta: cada consulta lleva un
+ * número de generación y solo se publica la de la generación más reciente. Los resultados y los
+ * errores se entregan siempre en el hilo de eventos, por lo que pueden actualizar la JTable
+ * directamente.
+ *
+ * Todos los métodos deben llamarse desde el hilo de eventos de Swing.
+ *
+ * @param <T> El tipo del resultado de la consulta.
+ */
+public class SearchController<T> {
+    public static final int DEFAULT_DELAY_MILLIS = 250;
+
+    private final JTextField field;
+    private final Function<String, CompletableFuture<T>> query;
+    private final Consumer<T> onResult;
+    private final Runnable onClear;
+    private final Consumer<Throwable> onError;
+    private final Timer timer;
+    private final DocumentListener listener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            timer.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            timer.restart();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // Cambios de atributos: el texto no cambió.
+        }
+    };
+
+    private long generation;                 // Se incrementa con cada consulta o limpieza.
+    private CompletableFuture<T> inFlight;   // Consulta en curso, o null.
+    private String lastTerm;                 // Último texto consultado, para no repetir la misma consulta.
+
+    /**
+     * @param field       El campo de búsqueda.
+     * @param delayMillis Los milisegundos sin escribir antes de consultar.
+     * @param query       Lanza la consulta asíncrona para un texto no vacío.
+     * @param onResult    Recibe el resultado de la consulta más reciente.
+     * @param onClear     Se llama cuando el campo queda vacío, para limpiar la tabla.
+     * @param onError     Recibe el error de la consulta más reciente.
+     */
+    public SearchController(JTextField field, int delayMillis, Function<String, CompletableFuture<T>> query,
+                            Consumer<T> onResult, Runnable onClear, Consumer<Throwable> onError) {
+        this.field = field;
+        this.query = query;
+        this.onResult = onResult;
+        this.onClear = onClear;
+        this.onError = onError;
+        this.timer = new Timer(delayMillis, e -> fire());
+        this.timer.setRepeats(false);
+        field.getDocument().addDocumentListener(listener);
+    }
+
+    /**
+     * Consulta el texto actual de inmediato, aunque sea el mismo de la última consulta; por
+     * ejemplo, después de crear o modificar un registro.
+     */
+    public void refresh() {
+        timer.stop();
+        lastTerm = null;
+        fire();
+    }
+
+    /**
+     * Descarta la consulta en curso y olvida el último texto consultado, sin tocar la tabla. La
+     * siguiente modificación del campo, o {@link #refresh()}, vuelve a consultar.
+     */
+    public void reset() {
+        timer.stop();
+        discardInFlight();
+        lastTerm = null;
+    }
+
+    /**
+     * Deja de observar el campo y descarta la consulta en curso. Se llama al cerrar el formulario.
+     */
+    public void close() {
+        reset();
+        field.getDocument().removeDocumentListener(listener);
+    }
+
+    /** @return true si hay una consulta en curso cuyo resultado todavía se publicará. */
+    public boolean isSearching() {
+        return inFlight != null;
+    }
+
+    private void fire() {
+        String term = field.getText().trim();
+        if (term.equals(lastTerm)) {
+            return; // El texto volvió a ser el ya consultado (o el de la consulta en curso).
+        }
+        discardInFlight();
+        lastTerm = term;
+        if (term.isEmpty()) {
+            onClear.run();
+            return;
+        }
+        long current = generation;
+        CompletableFuture<T> future;
+        try {
+            future = query.apply(term);
+        } catch (RuntimeException ex) {
+            onError.accept(ex);
+            return;
+        }
+        inFlight = future;
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> publish(current, result, error)));
+    }
+
+    /**
+     * Entrega el resultado en el hilo de eventos, solo si pertenece a la consulta más reciente.
+     */
+    private void publish(long queryGeneration, T result, Throwable error) {
+        if (queryGeneration != generation) {
+            return; // Una consulta posterior la reemplazó.
+        }
+        inFlight = null;
+        if (error == null) {
+            onResult.accept(result);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof CancellationException)) {
+            lastTerm = null; // Permitir reintentar el mismo texto.
+            onError.accept(cause);
+        }
+    }
+
+    /**
+     * Invalida la consulta en curso. Si todavía espera capacidad en el AsyncDAOExecutor ya no se
+     * ejecuta; si está ejecutándose, termina pero su resultado se ignora.
+     */
+    private void discardInFlight() {
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package esfe.presentacion;
+
+import esfe.persistencia.Page;            // Resultado completo mostrado como una sola página.
+import esfe.persistencia.UserSearchIndex; // Normalización del texto, la misma que la del índice de usuarios.
+
+import java.util.ArrayList;                     // Filas filtradas.
+import java.util.Iterator;                      // Desalojo de la entrada menos usada.
+import java.util.LinkedHashMap;                 // Términos en orden de acceso (LRU).
+import java.util.List;                          // Resultados guardados.
+import java.util.Map;                           // Entradas del mapa.
+import java.util.concurrent.CompletableFuture;  // Resultado de la búsqueda.
+import java.util.concurrent.TimeUnit;           // Conversión del TTL.
+import java.util.concurrent.atomic.LongAdder;   // Contadores de aciertos y consultas.
+import java.util.function.Function;             // Extrae el texto buscado de cada fila.
+import java.util.function.LongSupplier;         // Reloj en nanosegundos (reemplazable en las pruebas).
+
+/**
+ * Caché de los resultados de búsqueda de un formulario de consulta, pensada para la búsqueda
+ * mientras se escribe.
+ *
+ * Las búsquedas de los DAO son {@code nombre LIKE %texto%}, así que al extender el texto ("ad"
+ * → "adm") el resultado nuevo está contenido en el anterior. Si el resultado anterior está
+ * completo (cupo en una sola página) y es reciente, el nuevo se obtiene filtrándolo en memoria,
+ * sin volver a la base de datos. Para filtrar rápido, cada resultado guarda junto a sus filas un
+ * índice con el texto buscable ya normalizado (minúsculas y sin acentos, como compara la
+ * intercalación por defecto de MySQL). Los resultados filtrados también se guardan, de modo que
+ * borrar una letra vuelve a mostrar el resultado anterior sin consultar.
+ *
+ * Se consulta la base de datos cuando ningún término guardado está contenido en el nuevo, cuando
+ * el resultado guardado estaba incompleto, cuando venció (el tiempo se cuenta desde la consulta
+ * original, no desde el filtrado) o cuando el texto contiene comodines de LIKE. El formulario
+ * debe llamar a {@link #invalidate()} después de crear, modificar o eliminar un registro.
+ *
+ * Configuración: {@code esfe.searchSession.ttlMillis} (30000) y
+ * {@code esfe.searchSession.maxTerms} (16).
+ *
+ * @param <T> El tipo de las filas.
+ */
+public class SearchSessionCache<T> {
+    private final Function<T, String> searchable;
+    private final int maxTerms;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry<T>> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation; // Aumenta en cada invalidación; protegido por el monitor de la instancia.
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder narrowed = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Resultado completo de un término, con el texto normalizado de cada fila.
+     *
+     * @param rows     Las filas, en el orden de la consulta.
+     * @param keys     El texto buscable normalizado de cada fila.
+     * @param loadedAt El instante de la consulta a la base de datos de la que proviene.
+     */
+    private record Entry<T>(List<T> rows, String[] keys, long loadedAt) {
+    }
+
+    /**
+     * @param searchable Extrae de cada fila el texto en el que busca el DAO (por ejemplo el nombre).
+     */
+    public SearchSessionCache(Function<T, String> searchable) {
+        this(searchable,
+                Integer.getInteger("esfe.searchSession.maxTerms", 16),
+                Long.getLong("esfe.searchSession.ttlMillis", 30_000L),
+                System::nanoTime);
+    }
+
+    SearchSessionCache(Function<T, String> searchable, int maxTerms, long ttlMillis, LongSupplier clock) {
+        this.searchable = searchable;
+        this.maxTerms = maxTerms;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Busca un término: desde la caché si es posible o, si no, cargando la primera página con el
+     * cargador y guardándola si resultó completa. Puede llamarse desde cualquier hilo.
+     *
+     * @param term   El texto buscado.
+     * @param model  El modelo que mostrará el resultado.
+     * @param loader Carga las páginas del término desde la base de datos.
+     * @return La primera página; si viene de la caché, ya está completa y sin páginas siguientes.
+     * Cancelarla cancela también la consulta, como {@link PagedTableModel#fetchFirst}.
+     */
+    public CompletableFuture<PagedTableModel.Loaded<T>> search(String term, PagedTableModel<T> model,
+                                                                 PagedTableModel.PageLoader<T> loader) {
+        List<T> cached = get(term);
+        if (cached != null) {
+            ArrayList<T> rows = new ArrayList<>(cached);
+            return CompletableFuture.completedFuture(new PagedTableModel.Loaded<>(new Page<>(rows, 0, false), null));
+        }
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        long loadedAt = clock.getAsLong();
+        CompletableFuture<PagedTableModel.Loaded<T>> fetched = model.fetchFirst(loader);
+        CompletableFuture<PagedTableModel.Loaded<T>> result = fetched.thenApply(loaded -> {
+            if (!loaded.page().hasMore()) {
+                put(term, loaded.page().getItems(), loadedAt, startGeneration);
+            }
+            return loaded;
+        });
+        result.whenComplete((loaded, error) -> {
+            if (result.isCancelled()) {
+                fetched.cancel(false); // Cancelar el resultado de thenApply no cancela su origen.
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Devuelve el resultado de un término si puede obtenerse sin consultar la base de datos.
+     *
+     * @param term El texto buscado.
+     * @return Las filas (una lista que no debe modificarse), o null si hay que consultar.
+     */
+    public List<T> get(String term) {
+        if (hasWildcards(term)) {
+            misses.increment();
+            return null;
+        }
+        String key = normalize(term);
+        long now = clock.getAsLong();
+        synchronized (this) {
+            Entry<T> exact = fresh(key, now);
+            if (exact != null) {
+                hits.increment();
+                return exact.rows();
+            }
+            // El término guardado más largo contenido en el nuevo es el que menos filas tiene que recorrer.
+            Entry<T> base = null;
+            int baseLength = -1;
+            for (Map.Entry<String, Entry<T>> entry : results.entrySet()) {
+                String cachedTerm = entry.getKey();
+                if (cachedTerm.length() > baseLength && key.contains(cachedTerm) && now - entry.getValue().loadedAt() < ttlNanos) {
+                    base = entry.getValue();
+                    baseLength = cachedTerm.length();
+                }
+            }
+            if (base == null) {
+                misses.increment();
+                return null;
+            }
+            Entry<T> filtered = filter(base, key);
+            store(key, filtered);
+            narrowed.increment();
+            return filtered.rows();
+        }
+    }
+
+    /**
+     * Guarda el resultado completo de un término recién consultado.
+     *
+     * @param term El texto buscado.
+     * @param rows Todas las filas que coinciden con el término.
+     */
+    public void put(String term, List<T> rows) {
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        put(term, rows, clock.getAsLong(), startGeneration);
+    }
+
+    /**
+     * Descarta todos los resultados, por ejemplo después de crear, modificar o eliminar un registro.
+     * Las consultas que estaban en curso tampoco se guardarán.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        results.clear();
+    }
+
+    /** @return Las búsquedas resueltas con un resultado guardado para el mismo término. */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return Las búsquedas resueltas filtrando en memoria el resultado de un término contenido. */
+    public long getNarrowedHits() {
+        return narrowed.sum();
+    }
+
+    /** @return Las búsquedas que tuvieron que consultar la base de datos. */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void put(String term, List<T> rows, long loadedAt, long startGeneration) {
+        if (hasWildcards(term)) {
+            return;
+        }
+        ArrayList<T> copy = new ArrayList<>(rows);
+        String[] keys = new String[copy.size()];
+        for (int i = 0; i < keys.length; i++) {
+            String value = searchable.apply(copy.get(i));
+            keys[i] = value == null ? "" : normalize(value);
+        }
+        synchronized (this) {
+            if (startGeneration != generation) {
+                return; // Se invalidó mientras se consultaba: el resultado puede estar obsoleto.
+            }
+            store(normalize(term), new Entry<>(copy, keys, loadedAt));
+        }
+    }
+
+    private Entry<T> fresh(String key, long now) {
+        Entry<T> entry = results.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.loadedAt() >= ttlNanos) {
+            results.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private Entry<T> filter(Entry<T> base, String key) {
+        ArrayList<T> rows = new ArrayList<>();
+        ArrayList<String> keys = new ArrayList<>();
+        String[] baseKeys = base.keys();
+        for (int i = 0; i < baseKeys.length; i++) {
+            if (baseKeys[i].contains(key)) {
+                rows.add(base.rows().get(i));
+                keys.add(baseKeys[i]);
+            }
+        }
+        return new Entry<>(rows, keys.toArray(new String[0]), base.loadedAt());
+    }
+
+    private void store(String key, Entry<T> entry) {
+        results.put(key, entry);
+        Iterator<Map.Entry<String, Entry<T>>> iterator = results.entrySet().iterator();
+        while (results.size() > maxTerms && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove(); // La menos usada está al principio.
+        }
+    }
+
+    /**
+     * En LIKE, '%' y '_' son comodines: un texto que los contiene no se puede filtrar como subcadena.
+     */
+    private static boolean hasWildcards(String term) {
+        return term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0;
+    }
+
+    static String normalize(String text) {
+        return UserSearchIndex.normalize(text);
+    }
+}
@@ -3,14 +3,9 @@ package esfe.presentacion;
 import esfe.persistencia.UserDAO; // Importa la interfaz o clase UserDAO, que define las operaciones de acceso a datos para la entidad User.
 
 import javax.swing.*; // Importa el paquete Swing, que proporciona clases para crear interfaces gráficas de usuario.
-import javax.swing.table.DefaultTableModel; // Importa la clase DefaultTableModel, utilizada para crear y manipular modelos de datos para JTable.
 import esfe.dominio.User; // Importa la clase User, que representa la entidad de usuario en el dominio de la aplicación.
 import esfe.utils.CUD; // Importa el enum  CUD (Create, Update, Delete).
 
-import java.awt.event.KeyAdapter; // Importa la clase KeyAdapter, una clase adaptadora para recibir eventos de teclado.
-import java.awt.event.KeyEvent; // Importa la clase KeyEvent, que representa un evento de teclado.
-import java.util.ArrayList; // Importa la clase ArrayList, una implementación de la interfaz List que permite almacenar colecciones dinámicas de objetos.
-
 
 public class UserReadingForm extends JDialog {
     private JPanel mainPanel;
@@ -22,6 +17,18 @@ public class UserReadingForm extends JDialog {
 
     private UserDAO userDAO; // Instancia de UserDAO para realizar operaciones de base de datos de usuarios.
     private MainForm mainForm; // Referencia a la ventana principal de la aplicación.
+    private SearchController<PagedTableModel.Loaded<User>> searchController; // Búsqueda asíncrona mientras se escribe en txtName.
+    // Resultados recientes de la búsqueda; al extender el texto se filtran en memoria sin consultar.
+    private final SearchSessionCache<User> searchCache = new SearchSessionCache<>(User::getName);
+
+    // Modelo de la tabla: guarda los valores por columna y carga más páginas al desplazarse.
+    // Las columnas corresponden a los atributos que se mostrarán de cada objeto User.
+    private final PagedTableModel<User> tableModel = new PagedTableModel<>(PagedTableModel.DEFAULT_PAGE_SIZE,
+            this::showError,
+            PagedTableModel.intColumn("Id", User::getId),
+            PagedTableModel.objectColumn("Nombre", String.class, User::getName),
+            PagedTableModel.objectColumn("Email", String.class, User::getEmail),
+            PagedTableModel.objectColumn("Estatus", String.class, User::getStrEstatus));
 
     // Constructor de la clase UserReadingForm. Recibe una instancia de MainForm como parámetro.
     public UserReadingForm(MainForm mainForm) {
@@ -33,22 +40,20 @@ public class UserReadingForm extends JDialog {
         pack(); // Ajusta el tamaño de la ventana para que todos sus componentes se muestren correctamente.
         setLocationRelativeTo(mainForm); // Centra la ventana del diálogo relative a la ventana principal.
 
-        // Agrega un listener de teclado al campo de texto txtNombre.
-        txtName.addKeyListener(new KeyAdapter() {
-            // Sobrescribe el método keyReleased, que se llama cuando se suelta una tecla.
-            @Override
-            public void keyReleased(KeyEvent e) {
-                // Verifica si el campo de texto txtNombre no está vacío.
-                if (!txtName.getText().trim().isEmpty()) {
-                    // Llama al método search para buscar usuarios según el texto ingresado.
-                    search(txtName.getText());
-                } else {
-                    // Si el campo de texto está vacío, crea un modelo de tabla vacío y lo asigna a la tabla de usuarios para limpiarla.
-                    DefaultTableModel emptyModel = new DefaultTableModel();
-                    tableUsers.setModel(emptyModel);
-                }
-            }
-        });
+        // Establece el modelo de datos de la tabla una sola vez; cada búsqueda reemplaza su contenido.
+        tableUsers.setModel(tableModel);
+        // Oculta la columna con índice 0 (la columna del ID), que se necesita internamente pero no se muestra.
+        hideCol(0);
+
+        // Busca usuarios mientras se escribe en txtName: espera a que el usuario deje de escribir,
+        // consulta fuera del hilo de eventos y muestra solo el resultado de la búsqueda más reciente.
+        // Solo se consulta la primera página; las siguientes se piden al desplazarse por la tabla.
+        searchController = new SearchController<>(txtName, SearchController.DEFAULT_DELAY_MILLIS,
+                term -> searchCache.search(term, tableModel, (afterId, limit) -> userDAO.searchAsync(term, afterId, limit)),
+                tableModel::show,
+                // Si el campo de texto está vacío, limpia la tabla.
+                tableModel::clear,
+                this::showError);
 
         // Agrega un ActionListener al botón btnCreate.
         btnCreate.addActionListener(s -> {
@@ -56,9 +61,9 @@ public class UserReadingForm extends JDialog {
             UserWriteForm userWriteForm = new UserWriteForm(this.mainForm, CUD.CREATE, new User());
             // Hace visible el formulario de escritura de usuario.
             userWriteForm.setVisible(true);
-            // Limpia la tabla de usuarios creando y asignando un modelo de tabla vacío  para refrescar la lista después de la creación.
-            DefaultTableModel emptyModel = new DefaultTableModel();
-            tableUsers.setModel(emptyModel);
+            searchController.reset(); // Descarta una búsqueda en curso y permite repetir la misma.
+            searchCache.invalidate(); // Los datos cambiaron: los resultados guardados ya no son válidos.
+            tableModel.clear(); // Limpia la tabla de usuarios para refrescar la lista después de la creación.
         });
 
         // Agrega un ActionListener al botón btnUpdate.
@@ -71,9 +76,9 @@ public class UserReadingForm extends JDialog {
                 UserWriteForm userWriteForm = new UserWriteForm(this.mainForm, CUD.UPDATE, user);
                 // Hace visible el formulario de escritura de usuario.
                 userWriteForm.setVisible(true);
-                // Limpia la tabla de usuarios creando y asignando un modelo de tabla vacío para refrescar la lista después de la actualización.
-                DefaultTableModel emptyModel = new DefaultTableModel();
-                tableUsers.setModel(emptyModel);
+                searchController.reset(); // Descarta una búsqueda en curso y permite repetir la misma.
+                searchCache.invalidate(); // Los datos cambiaron: los resultados guardados ya no son válidos.
+                tableModel.clear(); // Limpia la tabla para refrescar la lista.
             }
         });
 
@@ -87,74 +92,22 @@ public class UserReadingForm extends JDialog {
                 UserWriteForm userWriteForm = new UserWriteForm(this.mainForm, CUD.DELETE, user);
                 // Hace visible el formulario de escritura de usuario.
                 userWriteForm.setVisible(true);
-                // Limpia la tabla de usuarios creando y asignando un modelo de tabla vacío  para refrescar la lista después de la eliminación.
-                DefaultTableModel emptyModel = new DefaultTableModel();
-                tableUsers.setModel(emptyModel);
+                searchController.reset(); // Descarta una búsqueda en curso y permite repetir la misma.
+                searchCache.invalidate(); // Los datos cambiaron: los resultados guardados ya no son válidos.
+                tableModel.clear(); // Limpia la tabla para refrescar la lista.
             }
         });
     }
-    private void search(String query) {
-        try {
-            // Llama al método 'search' del UserDAO para buscar usuarios cuya información
-            // coincida con la cadena de búsqueda 'query'. La implementación específica
-            ArrayList<User> users = userDAO.search(query);
-            // Llama al método 'createTable' para actualizar la tabla de usuarios
-            // en la interfaz gráfica con los resultados de la búsqueda.
-            createTable(users);
-        } catch (Exception ex) {
-            // Captura cualquier excepción que ocurra durante el proceso de búsqueda
-            // (por ejemplo, errores de base de datos).
-            JOptionPane.showMessageDialog(null,
-                    ex.getMessage(),
-                    "ERROR", JOptionPane.ERROR_MESSAGE); // Muestra un mensaje de error al usuario.
-            return; // Sale del método 'search' después de mostrar el error.
-        }
+    @Override
+    public void dispose() {
+        searchController.close(); // Deja de observar el campo y descarta la búsqueda en curso.
+        super.dispose();
     }
-    public void createTable(ArrayList<User> users) {
-
-        // Crea un nuevo modelo de tabla por defecto (DefaultTableModel).
-        // Se sobrescribe el método isCellEditable para hacer que todas las celdas de la tabla no sean editables.
-        DefaultTableModel model = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Retorna false para indicar que ninguna celda debe ser editable.
-            }
-        };
-
-        // Define las columnas de la tabla. Los nombres de las columnas corresponden
-        // a los atributos que se mostrarán de cada objeto User.
-        model.addColumn("Id");
-        model.addColumn("Nombre");
-        model.addColumn("Email");
-        model.addColumn("Estatus");
-
-        // Establece el modelo de tabla creado como el modelo de datos para la
-        // JTable 'tableUsers' (la tabla que se muestra en la interfaz gráfica).
-        this.tableUsers.setModel(model);
-
-        // Declara un array de objetos 'row' que se utilizará temporalmente para agregar filas.
-        Object row[] = null;
-
-        // Itera a través de la lista de objetos User proporcionada.
-        for (int i = 0; i < users.size(); i++) {
-            // Obtiene el objeto User actual de la lista.
-            User user = users.get(i);
-            // Agrega una nueva fila vacía al modelo de la tabla.
-            model.addRow(row);
-            // Establece el valor del ID del usuario en la celda correspondiente de la fila actual (columna 0).
-            model.setValueAt(user.getId(), i, 0);
-            // Establece el valor del nombre del usuario en la celda correspondiente de la fila actual (columna 1).
-            model.setValueAt(user.getName(), i, 1);
-            // Establece el valor del email del usuario en la celda correspondiente de la fila actual (columna 2).
-            model.setValueAt(user.getEmail(), i, 2);
-            // Establece el valor del estatus del usuario (probablemente obtenido a través de un método 'getStrEstatus()')
-            // en la celda correspondiente de la fila actual (columna 3).
-            model.setValueAt(user.getStrEstatus(), i, 3);
-        }
 
-        // Llama al método 'hideCol' para ocultar la columna con índice 0 (la columna del ID).
-        // Esto es común cuando el ID es necesario internamente pero no se quiere mostrar al usuario.
-        hideCol(0);
+    private void showError(Throwable ex) {
+        JOptionPane.showMessageDialog(null,
+                ex.getMessage(),
+                "ERROR", JOptionPane.ERROR_MESSAGE); // Muestra un mensaje de error al usuario.
     }
 
     private void hideCol(int pColumna) {
@@ -5,6 +5,9 @@ import esfe.utils.CBOption; // Importa la clase CBOption, probablemente una clas
 import esfe.utils.CUD; // Importa el enum CUD (Create, Update, Delete),  para indicar el tipo de operación que se está realizando (Crear, Actualizar, Eliminar).
 
 import javax.swing.*; // Importa el paquete Swing, que proporciona clases para crear interfaces gráficas de usuario (GUIs).
+import java.awt.Cursor; // Importa la clase Cursor, utilizada para mostrar el cursor de espera mientras se guarda el usuario.
+import java.util.concurrent.CompletableFuture; // Importa la clase CompletableFuture, que representa el resultado de la operación asíncrona del DAO.
+import java.util.concurrent.CompletionException; // Importa la clase CompletionException, que envuelve el error de la operación asíncrona.
 
 import esfe.dominio.User; // Importa la clase User, que representa la entidad de usuario en el dominio de la aplicación.
 
@@ -182,67 +185,94 @@ public class UserWriteForm extends JDialog {
         return res;
     }
 
+    /**
+     * Inicia la operación sin bloquear la interfaz: crear un usuario calcula el hash de su
+     * contraseña (PBKDF2), que tarda cientos de milisegundos, por lo que la operación se hace en el
+     * ejecutor de los DAO y el resultado se muestra en el hilo de eventos de Swing, como en
+     * {@link LoginForm}.
+     */
     private void ok() {
-        try {
-            // Obtener y validar los valores de los controles del formulario.
-            boolean res = getValuesControls();
-
-            // Si la validación de los controles fue exitosa.
-            if (res) {
-                boolean r = false; // Variable para almacenar el resultado de la operación de la base de datos.
-
-                // Realiza la operación de la base de datos según el tipo de operación actual (CREATE, UPDATE, DELETE).
-                switch (this.cud) {
-                    case CREATE:
-                        // Caso de creación de un nuevo usuario.
-                        // Llama al método 'create' de userDAO para persistir el nuevo usuario (this.en).
-                        User user = userDAO.create(this.en);
-                        // Verifica si la creación fue exitosa comprobando si el nuevo usuario tiene un ID asignado.
-                        if (user.getId() > 0) {
-                            r = true; // Establece 'r' a true si la creación fue exitosa.
-                        }
-                        break;
-                    case UPDATE:
-                        // Caso de actualización de un usuario existente.
-                        // Llama al método 'update' de userDAO para guardar los cambios del usuario (this.en).
-                        r = userDAO.update(this.en); // 'r' será true si la actualización fue exitosa, false en caso contrario.
-                        break;
-                    case DELETE:
-                        // Caso de eliminación de un usuario.
-                        // Llama al método 'delete' de userDAO para eliminar el usuario (this.en).
-                        r = userDAO.delete(this.en); // 'r' será true si la eliminación fue exitosa, false en caso contrario.
-                        break;
-                }
-
-                // Si la operación de la base de datos (creación, actualización o eliminación) fue exitosa.
-                if (r) {
-                    // Muestra un mensaje de éxito al usuario.
-                    JOptionPane.showMessageDialog(null,
-                            "Transacción realizada exitosamente",
-                            "Información", JOptionPane.INFORMATION_MESSAGE);
-                    // Cierra la ventana actual (UserWriteForm).
-                    this.dispose();
-                } else {
-                    // Si la operación de la base de datos falló.
-                    JOptionPane.showMessageDialog(null,
-                            "No se logró realizar ninguna acción",
-                            "ERROR", JOptionPane.ERROR_MESSAGE);
-                    return; // Sale del método.
-                }
-            } else {
-                // Si la validación de los controles falló (algún campo obligatorio está vacío o inválido).
-                JOptionPane.showMessageDialog(null,
-                        "Los campos con * son obligatorios",
-                        "Validación", JOptionPane.WARNING_MESSAGE);
-                return; // Sale del método.
-            }
-        } catch (Exception ex) {
+        // Obtener y validar los valores de los controles del formulario.
+        boolean res = getValuesControls();
+
+        // Si la validación de los controles falló (algún campo obligatorio está vacío o inválido).
+        if (!res) {
+            JOptionPane.showMessageDialog(null,
+                    "Los campos con * son obligatorios",
+                    "Validación", JOptionPane.WARNING_MESSAGE);
+            return; // Sale del método.
+        }
+
+        CompletableFuture<Boolean> operation; // Resultado de la operación de la base de datos.
+
+        // Realiza la operación de la base de datos según el tipo de operación actual (CREATE, UPDATE, DELETE).
+        switch (this.cud) {
+            case CREATE:
+                // Caso de creación de un nuevo usuario.
+                // Llama al método 'createAsync' de userDAO para persistir el nuevo usuario (this.en).
+                // La creación fue exitosa si el nuevo usuario tiene un ID asignado.
+                operation = userDAO.createAsync(this.en).thenApply(user -> user != null && user.getId() > 0);
+                break;
+            case UPDATE:
+                // Caso de actualización de un usuario existente.
+                // Llama al método 'updateAsync' de userDAO para guardar los cambios del usuario (this.en).
+                operation = userDAO.updateAsync(this.en); // true si la actualización fue exitosa, false en caso contrario.
+                break;
+            case DELETE:
+                // Caso de eliminación de un usuario.
+                // Llama al método 'deleteAsync' de userDAO para eliminar el usuario (this.en).
+                operation = userDAO.deleteAsync(this.en); // true si la eliminación fue exitosa, false en caso contrario.
+                break;
+            default:
+                return;
+        }
+
+        setBusy(true); // Evita que la operación se repita mientras está en curso.
+        operation.whenComplete((r, error) -> SwingUtilities.invokeLater(() -> finishOk(r, error)));
+    }
+
+    /**
+     * Muestra el resultado de la operación. Se ejecuta en el hilo de eventos de Swing.
+     *
+     * @param r     true si la operación de la base de datos fue exitosa.
+     * @param error El error de la operación, o null si terminó sin errores.
+     */
+    private void finishOk(Boolean r, Throwable error) {
+        setBusy(false);
+        if (error != null) {
             // Captura cualquier excepción que ocurra durante el proceso (por ejemplo, errores de base de datos).
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
             JOptionPane.showMessageDialog(null,
-                    ex.getMessage(),
+                    cause.getMessage(),
                     "ERROR", JOptionPane.ERROR_MESSAGE);
             return; // Sale del método.
         }
+
+        // Si la operación de la base de datos (creación, actualización o eliminación) fue exitosa.
+        if (r) {
+            // Muestra un mensaje de éxito al usuario.
+            JOptionPane.showMessageDialog(null,
+                    "Transacción realizada exitosamente",
+                    "Información", JOptionPane.INFORMATION_MESSAGE);
+            // Cierra la ventana actual (UserWriteForm).
+            this.dispose();
+        } else {
+            // Si la operación de la base de datos falló.
+            JOptionPane.showMessageDialog(null,
+                    "No se logró realizar ninguna acción",
+                    "ERROR", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Deshabilita los botones y muestra el cursor de espera mientras la operación está en curso.
+     *
+     * @param busy true mientras la operación está en curso.
+     */
+    private void setBusy(boolean busy) {
+        btnOk.setEnabled(!busy);
+        btnCancel.setEnabled(!busy);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
 
 }
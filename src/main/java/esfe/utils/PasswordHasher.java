@@ -1,35 +1,441 @@
 package esfe.utils;
 
+import javax.crypto.SecretKeyFactory;    // Implementación de PBKDF2 incluida en el JDK.
+import javax.crypto.spec.PBEKeySpec;    // Parámetros de PBKDF2: contraseña, sal, iteraciones y longitud.
+import java.nio.ByteBuffer;               // Búfer reutilizable con los bytes UTF-8 de la contraseña.
+import java.nio.CharBuffer;               // Vista sobre los caracteres de la contraseña, sin copiarlos a un String.
+import java.nio.charset.CharsetEncoder;   // Codificador UTF-8 reutilizable que escribe directamente en el búfer.
+import java.nio.charset.CodingErrorAction; // Reemplaza los caracteres inválidos igual que String.getBytes.
 import java.nio.charset.StandardCharsets; // Clase que define juegos de caracteres estándar, como UTF-8, utilizado para codificar la contraseña antes de hashearla.
+import java.security.DigestException;    // Error al escribir el resumen en el arreglo de salida.
+import java.security.GeneralSecurityException; // Errores de los algoritmos criptográficos.
 import java.security.MessageDigest;      // Clase que proporciona funcionalidades para algoritmos de resumen de mensajes criptográficos, como SHA-256, para hashear contraseñas.
 import java.security.NoSuchAlgorithmException; // Clase para manejar excepciones que ocurren cuando un algoritmo criptográfico solicitado no está disponible en el entorno.
+import java.security.SecureRandom;       // Genera la sal aleatoria de cada contraseña.
+import java.util.Arrays;                 // Borra de memoria los caracteres y bytes de la contraseña después de usarlos.
 import java.util.Base64;                 // Clase utilitaria para codificar y decodificar datos en formato Base64, aunque en este contexto (hasheo de contraseñas) no se utiliza directamente para el hash en sí, sino que podría usarse para codificar el hash resultante para su almacenamiento.
+import java.util.concurrent.Callable;    // Comparación preparada que se ejecuta en el motor de hash.
 
+/**
+ * Hashea y verifica contraseñas.
+ *
+ * Las contraseñas nuevas se hashean con PBKDF2-HMAC-SHA256, con una sal aleatoria de 16 bytes y
+ * un número de iteraciones configurable, y se guardan en un formato que describe cómo se
+ * calcularon:
+ *
+ * <pre>pbkdf2-sha256$&lt;iteraciones&gt;$&lt;sal en Base64&gt;$&lt;hash en Base64&gt;</pre>
+ *
+ * Así el costo puede aumentarse con el tiempo sin invalidar los hashes existentes: cada hash se
+ * verifica con los parámetros que tiene grabados y {@link #needsRehash(String)} indica cuáles
+ * deben recalcularse con el costo actual. Los hashes del formato anterior (SHA-256 sin sal,
+ * 44 caracteres en Base64) se siguen verificando y también se marcan para recalcular.
+ *
+ * Como el hash anterior no puede recalcularse sin la contraseña, {@link #wrapLegacyHash(String)}
+ * permite protegerlo sin esperar a que el usuario inicie sesión: aplica PBKDF2 sobre el hash
+ * SHA-256 almacenado y produce {@code pbkdf2-sha256-legacy$iteraciones$sal$hash}. Para verificarlo
+ * se calcula primero el SHA-256 de la contraseña y luego PBKDF2 sobre ese resultado; también se
+ * marca para recalcular, de modo que el siguiente inicio de sesión lo reemplaza por el formato actual.
+ *
+ * Los cálculos se ejecutan en el {@link PasswordHashingEngine}, que limita la CPU que pueden usar.
+ * Las variantes con {@code char[]} y {@link CharBuffer} permiten usar la contraseña de un
+ * JPasswordField sin convertirla en un String inmutable.
+ *
+ * Configuración: {@code esfe.hash.iterations} (por defecto 600000, la recomendación de OWASP
+ * para PBKDF2-HMAC-SHA256).
+ */
 public class PasswordHasher {
+    private static final String PBKDF2_ID = "pbkdf2-sha256";
+    private static final String WRAPPED_LEGACY_ID = "pbkdf2-sha256-legacy"; // PBKDF2 sobre un hash del formato anterior.
+    private static final int SALT_LENGTH = 16;    // Bytes de sal por contraseña.
+    private static final int HASH_LENGTH = 32;    // Longitud en bytes de un resumen SHA-256 y de la clave derivada.
+    private static final int LEGACY_LENGTH = 44;  // Longitud en Base64 de un hash SHA-256 del formato anterior.
+    private static final int MAX_ITERATIONS = 10_000_000; // Un hash almacenado con más iteraciones se considera dañado.
+
+    private static final int ITERATIONS = Integer.getInteger("esfe.hash.iterations", 600_000);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+    private static final Base64.Encoder LEGACY_ENCODER = Base64.getEncoder(); // Con relleno, como se guardaba el formato anterior.
+    private static final byte[] DECOY_SALT = new byte[SALT_LENGTH]; // Sal del cálculo de relleno de los hashes dañados.
+
+    // Estado de trabajo de cada hilo: MessageDigest y SecretKeyFactory no son seguros para uso concurrente.
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
+
+    /**
+     * Resultado de verificar una contraseña contra un hash almacenado.
+     *
+     * @param matches      true si la contraseña corresponde al hash.
+     * @param upgradedHash Si la contraseña es correcta y el hash almacenado debe recalcularse
+     *                     ({@link #needsRehash(String)}), el hash nuevo ya calculado con los
+     *                     parámetros actuales; null en otro caso.
+     */
+    public record Verification(boolean matches, String upgradedHash) {
+        private static final Verification FAILED = new Verification(false, null);
+
+        /** @return true si hay un hash nuevo que debe guardarse en lugar del almacenado. */
+        public boolean needsRehash() {
+            return upgradedHash != null;
+        }
+    }
+
+    /**
+     * Objetos reutilizables de un hilo.
+     */
+    private static final class Context {
+        final MessageDigest digest;
+        final SecretKeyFactory pbkdf2;
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final byte[] hash = new byte[HASH_LENGTH];
+        ByteBuffer input = ByteBuffer.allocate(64); // Crece si llega una contraseña más larga.
+
+        Context() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+                pbkdf2 = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("Algoritmo de hash no disponible: " + ex.getMessage(), ex);
+            }
+        }
+    }
 
     /**
-     * Hashea una contraseña utilizando el algoritmo SHA-256 y la codifica en Base64.
+     * Hashea una contraseña con PBKDF2 y una sal nueva.
      *
      * @param password La contraseña en texto plano que se va a hashear.
-     * @return Una cadena que representa la contraseña hasheada y codificada en Base64.
-     * Retorna null si el algoritmo SHA-256 no está disponible en el entorno.
+     * @return El hash en el formato {@code pbkdf2-sha256$iteraciones$sal$hash}.
+     * @throws java.util.concurrent.RejectedExecutionException Si el motor de hash está saturado.
      */
     public static String hashPassword(String password) {
+        char[] chars = password.toCharArray();
+        try {
+            return hashPassword(chars);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Hashea una contraseña recibida como arreglo de caracteres, por ejemplo el resultado de
+     * {@code JPasswordField.getPassword()}. El arreglo no se modifica; quien llama debe borrarlo
+     * cuando ya no lo necesite.
+     *
+     * @param password Los caracteres de la contraseña.
+     * @return El hash en el formato {@code pbkdf2-sha256$iteraciones$sal$hash}.
+     * @throws java.util.concurrent.RejectedExecutionException Si el motor de hash está saturado.
+     */
+    public static String hashPassword(char[] password) {
+        return PasswordHashingEngine.getInstance().run(() -> computeHash(password));
+    }
+
+    /**
+     * Hashea una contraseña con PBKDF2 y una sal nueva en el hilo que llama, sin pasar por el
+     * {@link PasswordHashingEngine}. Es para tareas por lotes como
+     * {@link esfe.persistencia.UserDAO#importUsers(java.util.Iterator, int)}, que calculan los
+     * hashes en su propio pool: cientos de hashes a la vez desbordarían la cola del motor, que
+     * rechaza el exceso, y harían esperar a los inicios de sesión.
+     *
+     * @param password La contraseña en texto plano que se va a hashear.
+     * @return El hash en el formato {@code pbkdf2-sha256$iteraciones$sal$hash}.
+     */
+    public static String hashPasswordInCaller(String password) {
+        char[] chars = password.toCharArray();
+        try {
+            return computeHash(chars);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Hashea los caracteres restantes de un CharBuffer (de su posición a su límite).
+     * La posición del búfer no se modifica.
+     *
+     * @param password Los caracteres de la contraseña.
+     * @return El hash en el formato {@code pbkdf2-sha256$iteraciones$sal$hash}.
+     * @throws java.util.concurrent.RejectedExecutionException Si el motor de hash está saturado.
+     */
+    public static String hashPassword(CharBuffer password) {
+        char[] chars = new char[password.remaining()];
+        password.get(password.position(), chars);
         try {
-            // Obtiene una instancia del algoritmo de resumen de mensajes SHA-256.
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return hashPassword(chars);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
 
-            // Convierte la contraseña a bytes utilizando la codificación UTF-8 y calcula su hash.
-            byte[] hashBytes = digest.digest(password.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Verifica una contraseña contra un hash almacenado, en el formato actual o en el anterior.
+     *
+     * @param password   La contraseña en texto plano.
+     * @param storedHash El hash almacenado.
+     * @return true si la contraseña corresponde al hash.
+     * @throws java.util.concurrent.RejectedExecutionException Si el motor de hash está saturado.
+     */
+    public static boolean verifyPassword(String password, String storedHash) {
+        char[] chars = password.toCharArray();
+        try {
+            return verifyPassword(chars, storedHash);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
 
-            // Codifica el array de bytes del hash resultante a una cadena utilizando la codificación Base64
-            // para que sea fácilmente almacenable y transportable.
-            return Base64.getEncoder().encodeToString(hashBytes);
+    /**
+     * Verifica una contraseña contra un hash almacenado, en el formato actual o en el anterior.
+     * La comparación final es de tiempo constante.
+     *
+     * @param password   Los caracteres de la contraseña (el arreglo no se modifica).
+     * @param storedHash El hash almacenado.
+     * @return true si la contraseña corresponde al hash; false también si el hash no tiene un formato conocido.
+     * @throws java.util.concurrent.RejectedExecutionException Si el motor de hash está saturado.
+     */
+    public static boolean verifyPassword(char[] password, String storedHash) {
+        return verify(password, storedHash).matches();
+    }
+
+    /**
+     * Verifica una contraseña y, si es correcta y el hash almacenado debe recalcularse, calcula
+     * también el hash nuevo en la misma tarea del motor, mientras la contraseña está disponible.
+     * La comparación es de tiempo constante.
+     *
+     * Un hash nulo, con formato desconocido o dañado (por ejemplo con cero iteraciones) no verifica
+     * ninguna contraseña, pero se calcula igualmente un PBKDF2 con el costo actual: así la respuesta
+     * no es más rápida que una verificación real y no revela, por el tiempo, qué cuentas lo tienen.
+     *
+     * @param password   Los caracteres de la contraseña (el arreglo no se modifica).
+     * @param storedHash El hash almacenado.
+     * @return El resultado de la verificación, con el hash nuevo si corresponde.
+     * @throws java.util.concurrent.RejectedExecutionException Si el motor de hash está saturado.
+     */
+    public static Verification verify(char[] password, String storedHash) {
+        Callable<Boolean> matcher = matcher(password, storedHash);
+        // Hash nulo, desconocido o dañado: mismo costo que una verificación, con resultado negativo.
+        Callable<Boolean> check = matcher != null ? matcher : () -> {
+            pbkdf2(password, DECOY_SALT, ITERATIONS);
+            return false;
+        };
+        boolean rehash = matcher != null && needsRehash(storedHash);
+        return PasswordHashingEngine.getInstance().run(() -> {
+            if (!check.call()) {
+                return Verification.FAILED;
+            }
+            return new Verification(true, rehash ? computeHash(password) : null);
+        });
+    }
 
-        } catch (NoSuchAlgorithmException ex) {
-            // Captura la excepción que ocurre si el algoritmo SHA-256 no está disponible.
-            // En este caso, retorna null para indicar que el hasheo falló.
+    /**
+     * Prepara la comparación de la contraseña con el hash almacenado según su formato.
+     *
+     * @return La comparación a ejecutar en el motor, o null si el hash no tiene un formato conocido
+     * o sus parámetros no son válidos (PBEKeySpec los rechazaría con una excepción).
+     */
+    private static Callable<Boolean> matcher(char[] password, String storedHash) {
+        if (storedHash == null) {
             return null;
         }
+        if (isLegacy(storedHash)) {
+            byte[] expected;
+            try {
+                expected = DECODER.decode(storedHash);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+            return () -> MessageDigest.isEqual(expected, sha256(CharBuffer.wrap(password)));
+        }
+        String[] parts = storedHash.split("\\$");
+        boolean wrapped = parts.length == 4 && WRAPPED_LEGACY_ID.equals(parts[0]);
+        if (parts.length != 4 || !(wrapped || PBKDF2_ID.equals(parts[0]))) {
+            return null;
+        }
+        int iterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            iterations = Integer.parseInt(parts[1]);
+            salt = DECODER.decode(parts[2]);
+            expected = DECODER.decode(parts[3]);
+        } catch (IllegalArgumentException ex) {
+            return null; // Número o Base64 inválido: el hash está dañado.
+        }
+        if (iterations < 1 || iterations > MAX_ITERATIONS || salt.length == 0 || expected.length != HASH_LENGTH) {
+            return null; // Parámetros imposibles: el hash está dañado.
+        }
+        if (wrapped) {
+            return () -> {
+                char[] legacy = legacyChars(sha256(CharBuffer.wrap(password)));
+                try {
+                    return MessageDigest.isEqual(expected, pbkdf2(legacy, salt, iterations));
+                } finally {
+                    Arrays.fill(legacy, '\0');
+                }
+            };
+        }
+        return () -> MessageDigest.isEqual(expected, pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Indica si un hash almacenado está en el formato anterior (SHA-256 sin sal), que puede
+     * protegerse con {@link #wrapLegacyHash(String)} sin conocer la contraseña.
+     *
+     * @param storedHash El hash almacenado.
+     * @return true si es un hash del formato anterior.
+     */
+    public static boolean isLegacyHash(String storedHash) {
+        return storedHash != null && isLegacy(storedHash);
+    }
+
+    /**
+     * Protege un hash del formato anterior aplicándole PBKDF2 con una sal nueva y el costo actual.
+     * El resultado verifica las mismas contraseñas que el hash original.
+     *
+     * A diferencia de {@link #hashPassword(String)}, el cálculo se hace en el hilo que llama y no
+     * en el {@link PasswordHashingEngine}: está pensado para tareas por lotes como
+     * {@link esfe.persistencia.PasswordMigrationJob}, que limitan su propio paralelismo y no deben
+     * ocupar la cola que usan los inicios de sesión.
+     *
+     * @param legacyHash El hash SHA-256 en Base64 del formato anterior.
+     * @return El hash en el formato {@code pbkdf2-sha256-legacy$iteraciones$sal$hash}.
+     * @throws IllegalArgumentException Si el hash no está en el formato anterior.
+     */
+    public static String wrapLegacyHash(String legacyHash) {
+        byte[] digest;
+        try {
+            digest = isLegacyHash(legacyHash) ? DECODER.decode(legacyHash) : null;
+        } catch (IllegalArgumentException ex) {
+            digest = null;
+        }
+        if (digest == null || digest.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("El hash no está en el formato anterior.");
+        }
+        // Volver a codificar el resumen: se aplica PBKDF2 a la misma cadena que reproduce la verificación.
+        char[] legacy = legacyChars(digest);
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        try {
+            return WRAPPED_LEGACY_ID + '$' + ITERATIONS + '$' + ENCODER.encodeToString(salt) + '$'
+                    + ENCODER.encodeToString(pbkdf2(legacy, salt, ITERATIONS));
+        } finally {
+            Arrays.fill(legacy, '\0');
+        }
+    }
+
+    /**
+     * Codifica un resumen SHA-256 como lo guardaba el formato anterior (Base64 con relleno).
+     */
+    private static char[] legacyChars(byte[] digest) {
+        byte[] ascii = LEGACY_ENCODER.encode(digest);
+        char[] chars = new char[ascii.length];
+        for (int i = 0; i < ascii.length; i++) {
+            chars[i] = (char) ascii[i];
+        }
+        return chars;
+    }
+
+    /**
+     * Prepara el motor de hash antes del primer inicio de sesión: arranca sus hilos y crea en cada
+     * uno el MessageDigest y la SecretKeyFactory (la primera búsqueda de proveedores criptográficos
+     * es lenta). Se llama durante el arranque, en segundo plano.
+     *
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public static void warmUp() throws InterruptedException {
+        PasswordHashingEngine.getInstance().warmUp(() -> {
+            char[] sample = {'x'};
+            pbkdf2(sample, new byte[SALT_LENGTH], 1); // Crea el contexto del hilo y carga las clases del algoritmo.
+            sha256(CharBuffer.wrap(sample));
+        });
+    }
+
+    /**
+     * Indica si un hash almacenado debe recalcularse con el algoritmo y costo actuales,
+     * porque está en el formato anterior (también si fue protegido con {@link #wrapLegacyHash(String)})
+     * o usa menos iteraciones que las configuradas.
+     *
+     * @param storedHash El hash almacenado.
+     * @return true si conviene recalcular el hash la próxima vez que se conozca la contraseña.
+     */
+    public static boolean needsRehash(String storedHash) {
+        if (storedHash == null || isLegacy(storedHash)) {
+            return true;
+        }
+        String[] parts = storedHash.split("\\$");
+        try {
+            return parts.length != 4 || !PBKDF2_ID.equals(parts[0]) || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * Hash SHA-256 del formato anterior, codificado en Base64 (44 caracteres, sin '$').
+     */
+    private static boolean isLegacy(String storedHash) {
+        return storedHash.length() == LEGACY_LENGTH && storedHash.indexOf('$') < 0;
+    }
+
+    /**
+     * Calcula el hash PBKDF2 de una contraseña con una sal nueva y el costo actual.
+     * Se ejecuta en un hilo del motor o, en las importaciones, en el pool de quien importa.
+     */
+    private static String computeHash(char[] password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return format(ITERATIONS, salt, pbkdf2(password, salt, ITERATIONS));
+    }
+
+    private static String format(int iterations, byte[] salt, byte[] hash) {
+        return PBKDF2_ID + '$' + iterations + '$' + ENCODER.encodeToString(salt) + '$' + ENCODER.encodeToString(hash);
+    }
+
+    /**
+     * Deriva la clave PBKDF2-HMAC-SHA256 de una contraseña.
+     */
+    static byte[] pbkdf2(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_LENGTH * 8);
+        try {
+            return CONTEXT.get().pbkdf2.generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Error al calcular el hash de la contraseña: " + ex.getMessage(), ex);
+        } finally {
+            spec.clearPassword(); // PBEKeySpec guarda su propia copia de la contraseña.
+        }
+    }
+
+    /**
+     * Calcula el SHA-256 del formato anterior sobre los caracteres restantes del búfer, reutilizando
+     * el MessageDigest y los búferes del hilo. La posición del búfer no se modifica.
+     *
+     * @return Un arreglo nuevo con el resumen de 32 bytes.
+     */
+    static byte[] sha256(CharBuffer password) {
+        Context ctx = CONTEXT.get();
+        // Codificar a UTF-8 en el búfer reutilizable (UTF-8 usa como máximo 3 bytes por char).
+        int maxBytes = password.remaining() * 3;
+        if (ctx.input.capacity() < maxBytes) {
+            ctx.input = ByteBuffer.allocate(maxBytes);
+        }
+        ByteBuffer input = ctx.input;
+        int position = password.position();
+        input.clear();
+        ctx.encoder.reset();
+        ctx.encoder.encode(password, input, true);
+        ctx.encoder.flush(input);
+        password.position(position); // Dejar el búfer del llamador como estaba.
+        input.flip();
+        int length = input.limit();
+
+        try {
+            ctx.digest.update(input);
+            ctx.digest.digest(ctx.hash, 0, HASH_LENGTH);
+        } catch (DigestException ex) {
+            throw new IllegalStateException("Error al calcular el hash de la contraseña: " + ex.getMessage(), ex);
+        } finally {
+            Arrays.fill(input.array(), 0, length, (byte) 0); // No dejar la contraseña en memoria.
+        }
+        return ctx.hash.clone();
     }
 }
@@ -0,0 +1,183 @@
+package esfe.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;        // Cola de admisión acotada.
+import java.util.concurrent.Callable;                  // Cálculo de hash a ejecutar.
+import java.util.concurrent.CountDownLatch;            // Reparte el calentamiento entre todos los hilos.
+import java.util.concurrent.ExecutionException;       // Error lanzado por el cálculo.
+import java.util.concurrent.Future;                    // Resultado pendiente del cálculo.
+import java.util.concurrent.RejectedExecutionException; // Cola llena: el motor está saturado.
+import java.util.concurrent.ThreadFactory;             // Crea los hilos del motor.
+import java.util.concurrent.ThreadPoolExecutor;        // Ejecutor con número fijo de hilos.
+import java.util.concurrent.TimeUnit;                  // Unidades de tiempo.
+import java.util.concurrent.atomic.AtomicInteger;      // Numeración de los hilos.
+import java.util.concurrent.atomic.AtomicLong;         // Latencia máxima observada.
+import java.util.concurrent.atomic.LongAdder;          // Contadores de métricas.
+
+/**
+ * Ejecuta los cálculos de hash de contraseñas (PBKDF2, costoso en CPU a propósito) en un grupo
+ * acotado de hilos, para que una ráfaga de inicios de sesión no ocupe todos los núcleos y deje sin
+ * CPU al resto de la aplicación (por ejemplo, al hilo de Swing).
+ *
+ * Los cálculos que no encuentran un hilo libre esperan en una cola de admisión de tamaño fijo; si
+ * la cola está llena se rechazan con {@link RejectedExecutionException} en lugar de acumularse.
+ * Quien llama espera el resultado en su propio hilo.
+ *
+ * Configuración: {@code esfe.hash.threads} (por defecto la mitad de los núcleos, al menos 1) y
+ * {@code esfe.hash.queueCapacity} (100).
+ */
+public final class PasswordHashingEngine {
+    private static PasswordHashingEngine instance;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    PasswordHashingEngine(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "esfe-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);                      // No impide que la aplicación termine.
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // La interfaz tiene preferencia.
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return La instancia compartida del motor.
+     */
+    public static synchronized PasswordHashingEngine getInstance() {
+        if (instance == null) {
+            int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            instance = new PasswordHashingEngine(
+                    Integer.getInteger("esfe.hash.threads", defaultThreads),
+                    Integer.getInteger("esfe.hash.queueCapacity", 100));
+        }
+        return instance;
+    }
+
+    /**
+     * Ejecuta un cálculo en el motor y espera su resultado.
+     *
+     * @param task El cálculo a ejecutar.
+     * @param <T>  El tipo del resultado.
+     * @return El resultado del cálculo.
+     * @throws RejectedExecutionException Si la cola de admisión está llena.
+     */
+    <T> T run(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                totalWaitNanos.add(startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    totalHashNanos.add(elapsed);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new RejectedExecutionException("El servicio de contraseñas está saturado; intente de nuevo en unos segundos.", ex);
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true; // El cálculo ya está en curso: esperar a que termine.
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error al calcular el hash de la contraseña: " + cause.getMessage(), cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Arranca todos los hilos del motor y ejecuta la inicialización indicada una vez en cada uno.
+     * Cada tarea retiene su hilo hasta que todas empezaron, de modo que no se ejecutan dos en el
+     * mismo hilo. No cuenta en las métricas de cálculos.
+     *
+     * @param init La inicialización de cada hilo (por ejemplo, crear sus objetos reutilizables).
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    void warmUp(Runnable init) throws InterruptedException {
+        int threads = executor.getCorePoolSize();
+        executor.prestartAllCoreThreads();
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        init.run();
+                        started.countDown();
+                        started.await(1, TimeUnit.SECONDS); // Si hay cálculos reales en curso, no esperar más.
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                done.countDown(); // Cola llena: el motor ya está en uso y no necesita calentarse.
+            }
+        }
+        done.await();
+    }
+
+    /** @return El número de cálculos esperando en la cola de admisión. */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /** @return El número de cálculos en ejecución en este momento. */
+    public int getActiveHashes() {
+        return executor.getActiveCount();
+    }
+
+    /** @return El número de cálculos terminados. */
+    public long getCompletedHashes() {
+        return completed.sum();
+    }
+
+    /** @return El número de cálculos rechazados por tener la cola llena. */
+    public long getRejectedHashes() {
+        return rejected.sum();
+    }
+
+    /** @return La duración media de un cálculo, en milisegundos. */
+    public double getAverageHashMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalHashNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /** @return La duración máxima observada de un cálculo, en milisegundos. */
+    public double getMaxHashMillis() {
+        return maxHashNanos.get() / 1_000_000.0;
+    }
+
+    /** @return El tiempo medio que un cálculo esperó en la cola antes de ejecutarse, en milisegundos. */
+    public double getAverageQueueWaitMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,253 @@
+package esfe.utils;
+
+import esfe.dominio.User; // Usuario autenticado al que pertenece cada sesión.
+
+import java.security.SecureRandom;                   // Genera tokens impredecibles.
+import java.util.ArrayList;                          // Ranuras de la rueda de tiempo.
+import java.util.Base64;                             // Codifica el token en texto apto para URL.
+import java.util.HashSet;                            // Tokens de un usuario.
+import java.util.concurrent.ConcurrentHashMap;       // Sesiones por token y tokens por usuario.
+import java.util.concurrent.ConcurrentLinkedQueue;   // Sesiones nuevas pendientes de entrar en la rueda.
+import java.util.concurrent.Executors;               // Crea el hilo del barrido.
+import java.util.concurrent.ScheduledExecutorService; // Ejecuta el barrido periódicamente.
+import java.util.concurrent.TimeUnit;                // Unidades de tiempo.
+import java.util.concurrent.atomic.LongAdder;        // Contador de sesiones expiradas.
+import java.util.function.LongSupplier;              // Reloj en milisegundos (reemplazable en las pruebas).
+
+/**
+ * Almacén en memoria de sesiones de usuarios autenticados. Tras un inicio de sesión correcto se
+ * emite un token opaco; presentar ese token devuelve el usuario sin volver a consultar la base de
+ * datos ni calcular el hash de la contraseña.
+ *
+ * Cada sesión vence por inactividad (expiración deslizante: cada uso la extiende) y, en cualquier
+ * caso, al cumplir su duración máxima (expiración absoluta). La búsqueda por token es un acceso a
+ * un mapa concurrente y comprueba la expiración en el momento, por lo que una sesión vencida nunca
+ * se acepta. Para liberar la memoria de las sesiones abandonadas no se programa un temporizador
+ * por sesión: un único hilo recorre una rueda de tiempo (un arreglo circular de ranuras, una por
+ * tic) y solo examina las sesiones cuyo vencimiento cae en el tic actual.
+ *
+ * {@link esfe.persistencia.UserDAO} revoca todas las sesiones de un usuario cuando se cambia su
+ * contraseña o se elimina.
+ *
+ * Configuración: {@code esfe.session.idleMinutes} (30) y {@code esfe.session.maxHours} (12).
+ */
+public final class SessionStore {
+    private static final int WHEEL_SIZE = 512;      // Ranuras de la rueda; con tics de 1 segundo cubre más de 8 minutos.
+    private static final int TOKEN_BYTES = 32;      // 256 bits aleatorios por token.
+
+    private static SessionStore instance;
+
+    private final long idleMillis;
+    private final long maxLifetimeMillis;
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, HashSet<String>> tokensByUser = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Session> pending = new ConcurrentLinkedQueue<>();
+    private final LongAdder expired = new LongAdder();
+
+    // La rueda solo se usa dentro de sweep() (sincronizado), normalmente desde el hilo del barrido.
+    private final ArrayList<ArrayList<Session>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private long lastTick;
+
+    /**
+     * Sesión emitida. El usuario es una copia sin contraseña.
+     */
+    private static final class Session {
+        final String token;
+        final User user;
+        final long createdAt;
+        volatile long lastAccess;
+
+        Session(String token, User user, long now) {
+            this.token = token;
+            this.user = user;
+            this.createdAt = now;
+            this.lastAccess = now;
+        }
+    }
+
+    SessionStore(long idleMillis, long maxLifetimeMillis, long tickMillis, LongSupplier clock) {
+        this.idleMillis = idleMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.lastTick = clock.getAsLong() / tickMillis;
+    }
+
+    /**
+     * @return La instancia compartida, con su hilo de barrido en segundo plano.
+     */
+    public static synchronized SessionStore getInstance() {
+        if (instance == null) {
+            instance = new SessionStore(
+                    TimeUnit.MINUTES.toMillis(Long.getLong("esfe.session.idleMinutes", 30)),
+                    TimeUnit.HOURS.toMillis(Long.getLong("esfe.session.maxHours", 12)),
+                    1_000, System::currentTimeMillis);
+            ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "esfe-session-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            SessionStore store = instance;
+            sweeper.scheduleAtFixedRate(store::sweep, store.tickMillis, store.tickMillis, TimeUnit.MILLISECONDS);
+        }
+        return instance;
+    }
+
+    /**
+     * Abre una sesión para un usuario recién autenticado.
+     *
+     * @param user El usuario autenticado.
+     * @return El token de la sesión, que debe presentarse en {@link #get(String)}.
+     */
+    public String create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = encoder.encodeToString(bytes);
+        Session session = new Session(token, copy(user), clock.getAsLong());
+        // Registrar la sesión dentro de compute, atómico por usuario: un revokeUser simultáneo la
+        // cierra o la deja completamente abierta, nunca abierta y fuera del índice.
+        tokensByUser.compute(user.getId(), (id, tokens) -> {
+            HashSet<String> set = tokens == null ? new HashSet<>() : tokens;
+            set.add(token);
+            sessions.put(token, session);
+            return set;
+        });
+        pending.add(session); // El hilo del barrido la ubica en la rueda en su próximo tic.
+        return token;
+    }
+
+    /**
+     * Devuelve el usuario de una sesión vigente y extiende su vencimiento por inactividad.
+     *
+     * @param token El token de la sesión.
+     * @return Una copia del usuario, o null si el token no existe, venció o fue revocado.
+     */
+    public User get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (now >= deadline(session)) {
+            if (remove(session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        session.lastAccess = now;
+        return copy(session.user);
+    }
+
+    /**
+     * Cierra una sesión.
+     *
+     * @param token El token de la sesión; se ignora si es null o no existe.
+     */
+    public void revoke(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session != null) {
+            remove(session);
+        }
+    }
+
+    /**
+     * Cierra todas las sesiones de un usuario, por ejemplo porque cambió su contraseña.
+     *
+     * @param userId El ID del usuario.
+     * @return El número de sesiones cerradas.
+     */
+    public int revokeUser(int userId) {
+        int[] revoked = {0};
+        tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+            for (String token : tokens) {
+                if (sessions.remove(token) != null) {
+                    revoked[0]++;
+                }
+            }
+            return null; // Quitar al usuario del índice.
+        });
+        return revoked[0];
+    }
+
+    /** @return El número de sesiones en memoria (algunas pueden haber vencido y no haberse barrido aún). */
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    /** @return El número de sesiones eliminadas por vencimiento. */
+    public long getExpiredSessions() {
+        return expired.sum();
+    }
+
+    /**
+     * Avanza la rueda hasta el tic actual: ubica las sesiones nuevas y examina las ranuras de los
+     * tics transcurridos. Las sesiones vencidas se eliminan; las que siguen vigentes (porque se
+     * usaron después de ubicarse) se vuelven a ubicar según su nuevo vencimiento.
+     */
+    synchronized void sweep() {
+        long now = clock.getAsLong();
+        long currentTick = now / tickMillis;
+        Session session;
+        while ((session = pending.poll()) != null) {
+            schedule(session, currentTick);
+        }
+        // Tras una pausa larga basta una vuelta completa: cada ranura se examina una vez.
+        long from = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            ArrayList<Session> slot = wheel.get((int) (tick % WHEEL_SIZE));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            ArrayList<Session> due = new ArrayList<>(slot);
+            slot.clear();
+            for (Session s : due) {
+                if (sessions.get(s.token) != s) {
+                    continue; // Revocada: no queda nada que liberar.
+                }
+                if (now >= deadline(s)) {
+                    if (remove(s)) {
+                        expired.increment();
+                    }
+                } else {
+                    schedule(s, currentTick);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, currentTick);
+    }
+
+    private void schedule(Session session, long currentTick) {
+        long tick = Math.max(deadline(session) / tickMillis, currentTick + 1); // Nunca en una ranura ya recorrida.
+        wheel.get((int) (tick % WHEEL_SIZE)).add(session);
+    }
+
+    private long deadline(Session session) {
+        return Math.min(session.lastAccess + idleMillis, session.createdAt + maxLifetimeMillis);
+    }
+
+    private boolean remove(Session session) {
+        if (!sessions.remove(session.token, session)) {
+            return false;
+        }
+        tokensByUser.computeIfPresent(session.user.getId(), (id, tokens) -> {
+            tokens.remove(session.token);
+            return tokens.isEmpty() ? null : tokens;
+        });
+        return true;
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), null, user.getEmail(), user.getStatus());
+    }
+}
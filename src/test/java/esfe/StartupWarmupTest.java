@@ -0,0 +1,34 @@
+package esfe;
+
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.persistencia.ConnectionManager; // Pool de conexiones preparado por el calentamiento.
+import esfe.persistencia.ConnectionPool;    // Conexiones ociosas y caché de sentencias.
+import esfe.persistencia.UserDAO;           // Primer inicio de sesión.
+
+import java.util.concurrent.TimeUnit;    // Tiempo máximo de espera del calentamiento.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class StartupWarmupTest {
+
+    @Test
+    void warmUpPreparesFirstLogin() throws Exception {
+        StartupWarmup warmup = StartupWarmup.start();
+        assertSame(warmup, StartupWarmup.start(), "Iniciarlo de nuevo no debe repetir el calentamiento.");
+        warmup.getCompletion().get(60, TimeUnit.SECONDS);
+        assertTrue(warmup.getTotalMillis() >= 0);
+
+        ConnectionPool pool = ConnectionManager.getInstance().getPool();
+        assertTrue(pool.getIdleConnections() >= pool.getConfig().getMinIdle(),
+                "Las conexiones mínimas deben quedar abiertas antes del primer inicio de sesión.");
+        long misses = pool.getStatementCacheMisses();
+        assertTrue(misses > 0, "La consulta de credenciales debe quedar preparada.");
+
+        // El primer inicio de sesión reutiliza la sentencia preparada durante el calentamiento.
+        new UserDAO().authenticate("", "x".toCharArray());
+        assertEquals(misses, pool.getStatementCacheMisses());
+
+        assertTrue(warmup.recordLogin(TimeUnit.MILLISECONDS.toNanos(5)));
+        assertFalse(warmup.recordLogin(TimeUnit.MILLISECONDS.toNanos(5)), "Solo se informa el primer inicio de sesión.");
+    }
+}
@@ -5,8 +5,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Connection; // Importa la clase Connection del paquete java.sql, que se utiliza para establecer una conexión con la base de datos.
+import java.sql.ResultSet; // Resultado de la comparación sin distinguir mayúsculas.
+import java.sql.Statement; // Consultas directas para comprobar el esquema.
 import java.sql.SQLException; // Importa la clase SQLException del paquete java.sql, que se utiliza para manejar excepciones relacionadas con operaciones de base de datos.
+import java.util.Locale; // Mayúsculas independientes del idioma del sistema.
 
+import static org.junit.jupiter.api.Assumptions.assumeTrue; // Omite la prueba si no se usa la base de datos embebida.
 import static org.junit.jupiter.api.Assertions.*; // Importa todos los métodos estáticos de la clase Assertions del paquete org.junit.jupiter.api. Esto proporciona métodos para realizar aserciones en las pruebas unitarias, como assertEquals, assertTrue, etc.
 
 class ConnectionManagerTest {
@@ -42,4 +46,44 @@ class ConnectionManagerTest {
             conn.close(); // Cierra la conexión después de la prueba.
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void connectReusesPooledConnection() throws SQLException {
+        ConnectionPool pool = connectionManager.getPool();
+        // Presta una conexión y la devuelve al pool; la conexión física debe seguir abierta.
+        Connection first = connectionManager.connect();
+        int totalAfterFirst = pool.getTotalConnections();
+        first.close();
+        assertTrue(first.isClosed(), "El préstamo devuelto debe reportarse como cerrado");
+        assertEquals(0, pool.getActiveConnections(), "No deben quedar conexiones prestadas");
+
+        // Un segundo préstamo debe reutilizar la conexión ociosa en lugar de abrir otra.
+        Connection second = connectionManager.connect();
+        assertFalse(second.isClosed(), "La conexion debe esta abierta");
+        assertEquals(totalAfterFirst, pool.getTotalConnections(), "No se debe abrir una conexión física nueva");
+        connectionManager.disconnect(); // Devuelve el préstamo más reciente del hilo actual.
+        assertTrue(second.isClosed(), "disconnect() debe devolver la conexión al pool");
+    }
+
+    @Test
+    void embeddedDatabaseStartsWithSchema() throws SQLException {
+        // Solo aplica con la base de datos embebida (la de mvn test); con -Pmysql el esquema es el del servidor.
+        assumeTrue(EmbeddedDatabase.isEmbedded(System.getProperty("esfe.db.url", "")));
+        try (Connection conn = connectionManager.connect();
+             Statement statement = conn.createStatement()) {
+            // Ambas tablas deben existir sin haber ejecutado script.sql.
+            assertTrue(statement.executeQuery("SELECT COUNT(*) FROM Users").next());
+            assertTrue(statement.executeQuery("SELECT COUNT(*) FROM Herramientas").next());
+            // Las columnas de texto no distinguen mayúsculas, como con la intercalación por defecto de MySQL.
+            String nombre = "Mayúsculas " + System.nanoTime();
+            statement.executeUpdate("INSERT INTO Herramientas (nombre) VALUES ('" + nombre + "')");
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM Herramientas WHERE nombre LIKE '%"
+                    + nombre.toUpperCase(Locale.ROOT) + "%'")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1), "LIKE no debe distinguir mayúsculas en la base de datos embebida.");
+            } finally {
+                statement.executeUpdate("DELETE FROM Herramientas WHERE nombre = '" + nombre + "'");
+            }
+        }
+    }
+}
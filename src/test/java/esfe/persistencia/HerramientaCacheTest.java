@@ -0,0 +1,89 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.Herramienta;         // Clase que representa la entidad almacenada en la caché.
+
+import java.sql.SQLException;            // Errores de la base de datos.
+import java.util.ArrayList;              // Resultados de búsqueda.
+import java.util.concurrent.atomic.AtomicInteger; // Cuenta las veces que se consulta la "base de datos".
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class HerramientaCacheTest {
+    private HerramientaCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new HerramientaCache(true, 3, 60_000); // Instancia propia: no comparte estado con el DAO.
+        loads = new AtomicInteger();
+    }
+
+    private Herramienta load(int id) {
+        loads.incrementAndGet();
+        return new Herramienta(id, "Herramienta " + id, "Tipo", "Uso");
+    }
+
+    @Test
+    void getByIdIsServedFromCacheAndReturnsCopies() throws SQLException {
+        Herramienta first = cache.getById(1, () -> load(1));
+        first.setNombre("Modificada por el llamador");
+        Herramienta second = cache.getById(1, () -> load(1));
+
+        assertEquals(1, loads.get(), "La segunda lectura no debe ir a la base de datos.");
+        assertEquals("Herramienta 1", second.getNombre(), "Modificar la copia no debe alterar la caché.");
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void writesInvalidateSearchResults() throws SQLException {
+        ArrayList<Herramienta> list = new ArrayList<>();
+        list.add(load(1));
+        cache.search("Herr", () -> list);
+        cache.search("Herr", () -> list);
+        assertEquals(1, cache.getHits(), "La búsqueda repetida debe resolverse desde la caché.");
+
+        // Una herramienta nueva descarta las búsquedas guardadas.
+        cache.put(load(2));
+        AtomicInteger searches = new AtomicInteger();
+        cache.search("Herr", () -> {
+            searches.incrementAndGet();
+            return list;
+        });
+        assertEquals(1, searches.get(), "Tras una escritura la búsqueda debe volver a la base de datos.");
+
+        // Al eliminar, la siguiente lectura por ID vuelve a la base de datos.
+        cache.remove(1);
+        int before = loads.get();
+        cache.getById(1, () -> load(1));
+        assertEquals(before + 1, loads.get());
+    }
+
+    @Test
+    void staleLoadIsNotStoredAfterInvalidation() throws SQLException {
+        // Una escritura que ocurre mientras la lectura está en curso gana: el valor leído no se guarda.
+        cache.getById(1, () -> {
+            Herramienta leida = load(1);
+            cache.put(new Herramienta(1, "Nuevo nombre", "Tipo", "Uso"));
+            return leida;
+        });
+        assertEquals("Nuevo nombre", cache.getById(1, () -> load(1)).getNombre());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpiredEntries() throws SQLException {
+        for (int id = 1; id <= 4; id++) {
+            cache.getById(id, () -> load(1_000));
+        }
+        assertEquals(3, cache.size(), "No debe superarse el máximo de entradas.");
+        assertEquals(1, cache.getEvictions());
+
+        HerramientaCache expiring = new HerramientaCache(true, 10, 0); // TTL cero: todo expira de inmediato.
+        expiring.getById(1, () -> load(1));
+        expiring.getById(1, () -> load(1));
+        assertEquals(0, expiring.getHits());
+        assertEquals(1, expiring.getEvictions(), "La entrada expirada cuenta como desalojo.");
+    }
+}
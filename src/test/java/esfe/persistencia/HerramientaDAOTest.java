@@ -0,0 +1,94 @@
+package esfe.persistencia;
+
+import org.h2.api.Trigger;               // Disparador de H2 que modifica la fila al insertarla.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.Herramienta;         // Clase que representa la entidad de herramienta utilizada en las pruebas.
+
+import java.sql.Connection;              // Conexión para crear y eliminar el disparador.
+import java.sql.SQLException;            // Errores de la base de datos.
+import java.sql.Statement;               // Sentencias de definición del disparador.
+import java.util.Locale;                 // Mayúsculas independientes del idioma del sistema.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+import static org.junit.jupiter.api.Assumptions.assumeTrue; // Omite la prueba si no se usa la base de datos embebida.
+
+class HerramientaDAOTest {
+    private final HerramientaDAO herramientaDAO = new HerramientaDAO();
+
+    /**
+     * Disparador que guarda el tipo en mayúsculas: un valor que solo conoce la base de datos.
+     */
+    public static class UpperCaseTipo implements Trigger {
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) {
+            newRow[2] = ((String) newRow[2]).toUpperCase(Locale.ROOT); // id, nombre, tipo, uso_principal.
+        }
+    }
+
+    @Test
+    void createWithRefreshReadsBackFromDatabase() throws SQLException {
+        // Los disparadores con clases Java solo existen en H2.
+        assumeTrue(EmbeddedDatabase.isEmbedded(System.getProperty("esfe.db.url", "")));
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER upper_tipo BEFORE INSERT ON Herramientas FOR EACH ROW CALL \""
+                    + UpperCaseTipo.class.getName() + "\"");
+        }
+        Herramienta refreshed;
+        Herramienta plain;
+        try {
+            refreshed = herramientaDAO.create(new Herramienta(0, "Taladro", "eléctrica", "Perforar"), true);
+            plain = herramientaDAO.create(new Herramienta(0, "Martillo", "manual", "Clavar"));
+        } finally {
+            try (Connection connection = ConnectionManager.getInstance().connect();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP TRIGGER upper_tipo");
+            }
+        }
+
+        // Con refresh se devuelve la fila guardada, aunque la caché esté activa.
+        assertEquals("ELÉCTRICA", refreshed.getTipo(), "refresh debe releer la fila de la base de datos.");
+        assertEquals("ELÉCTRICA", herramientaDAO.getById(refreshed.getId()).getTipo(),
+                "La caché debe guardar la fila leída, no los valores recibidos.");
+        // Sin refresh se devuelven los valores recibidos, sin una segunda consulta.
+        assertEquals("manual", plain.getTipo());
+
+        assertTrue(herramientaDAO.delete(refreshed));
+        assertTrue(herramientaDAO.delete(plain));
+    }
+
+    @Test
+    void pagedSearchCachesEachPage() throws SQLException {
+        String tag = Long.toString(System.nanoTime(), 36);
+        Herramienta[] created = new Herramienta[3];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = herramientaDAO.create(new Herramienta(0, "Llave " + tag + " " + i, "manual", "Ajustar"));
+        }
+        HerramientaCache cache = HerramientaCache.getInstance();
+
+        Page<Herramienta> first = herramientaDAO.search("llave " + tag, 0, 2);
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasMore());
+        long misses = cache.getMisses();
+        Page<Herramienta> second = herramientaDAO.search("llave " + tag, first.getNextAfterId(), 2);
+        assertEquals(misses + 1, cache.getMisses(), "Cada página se consulta por separado en la base de datos.");
+        assertEquals(1, second.getItems().size());
+        assertEquals(created[2].getId(), second.getItems().get(0).getId());
+        assertFalse(second.hasMore());
+
+        long hits = cache.getHits();
+        Page<Herramienta> again = herramientaDAO.search("llave " + tag, first.getNextAfterId(), 2);
+        assertEquals(hits + 1, cache.getHits(), "La misma página debe servirse desde la caché.");
+        assertEquals(created[2].getId(), again.getItems().get(0).getId());
+
+        Herramienta added = herramientaDAO.create(new Herramienta(0, "Llave " + tag + " 3", "manual", "Ajustar"));
+        Page<Herramienta> refreshed = herramientaDAO.search("llave " + tag, first.getNextAfterId(), 2);
+        assertEquals(2, refreshed.getItems().size(), "Crear una herramienta debe descartar las páginas en caché.");
+        assertEquals(added.getId(), refreshed.getItems().get(1).getId());
+
+        for (Herramienta herramienta : created) {
+            assertTrue(herramientaDAO.delete(herramienta));
+        }
+        assertTrue(herramientaDAO.delete(added));
+    }
+}
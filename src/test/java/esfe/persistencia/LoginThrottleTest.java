@@ -0,0 +1,113 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+
+import java.util.concurrent.atomic.AtomicLong; // Reloj simulado.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class LoginThrottleTest {
+    private AtomicLong now;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000);
+        // Por email: 3 intentos seguidos, 1 ficha por segundo, 2 fallos tolerados y bloqueos de 1 a 8 segundos.
+        // Por origen: 10 intentos seguidos y 1 ficha por segundo.
+        throttle = newThrottle(1_000);
+    }
+
+    private LoginThrottle newThrottle(int maxEntries) {
+        return new LoginThrottle(
+                new LoginThrottle.Limits(3, 1, 2, 1_000, 8_000),
+                new LoginThrottle.Limits(10, 1, 100, 1_000, 8_000),
+                maxEntries, 60_000, now::get);
+    }
+
+    @Test
+    void bucketLimitsBurstAndRefills() throws LoginThrottledException {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("a@example.com", null);
+        }
+        LoginThrottledException ex = assertThrows(LoginThrottledException.class, () -> throttle.acquire("a@example.com", null));
+        assertEquals(1_000, ex.getRetryAfterMillis(), "La siguiente ficha llega en un segundo.");
+        // Otro email no se ve afectado, y el email se normaliza.
+        throttle.acquire("b@example.com", null);
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire(" A@Example.com ", null));
+
+        now.addAndGet(1_000);
+        throttle.acquire("a@example.com", null);
+        assertEquals(2, throttle.getRejectedAttempts());
+    }
+
+    @Test
+    void failuresBackOffExponentiallyUntilSuccess() throws LoginThrottledException {
+        long[] expectedBlocks = {0, 0, 1_000, 2_000, 4_000, 8_000, 8_000}; // Dos fallos tolerados, luego x2 hasta el máximo.
+        for (long block : expectedBlocks) {
+            now.addAndGet(10_000); // Dejar que la cubeta se llene: solo cuenta el bloqueo.
+            throttle.acquire("c@example.com", null);
+            throttle.recordFailure("c@example.com", null);
+            if (block == 0) {
+                throttle.acquire("c@example.com", null); // Sin bloqueo todavía.
+            } else {
+                LoginThrottledException ex = assertThrows(LoginThrottledException.class, () -> throttle.acquire("c@example.com", null));
+                assertEquals(block, ex.getRetryAfterMillis());
+            }
+        }
+        // Un inicio de sesión correcto reinicia los fallos y el bloqueo.
+        throttle.recordSuccess("c@example.com");
+        throttle.acquire("c@example.com", null);
+    }
+
+    @Test
+    void sourceIsLimitedAcrossEmails() throws LoginThrottledException {
+        // Un mismo origen probando muchos emails distintos se detiene en su propio límite.
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user" + i + "@example.com", "10.0.0.1");
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("otro@example.com", "10.0.0.1"));
+        // Ese email, desde otro origen o sin origen conocido, sí puede intentarlo.
+        throttle.acquire("otro@example.com", "10.0.0.2");
+        throttle.acquire("otro@example.com", null);
+    }
+
+    @Test
+    void memoryIsBounded() throws LoginThrottledException {
+        throttle = newThrottle(4); // Como máximo 4 claves en memoria.
+        for (int i = 0; i < 100; i++) {
+            // Cada clave nueva desaloja la más antigua: ninguna comparte cubeta ni se rechaza.
+            throttle.acquire("spray" + i + "@example.com", null);
+            now.incrementAndGet();
+        }
+        assertTrue(throttle.getTrackedKeys() <= 4, "No deben guardarse más claves que el máximo.");
+
+        // Tras el tiempo de inactividad las entradas se eliminan en el barrido.
+        now.addAndGet(120_000);
+        throttle.acquire("nuevo@example.com", null);
+        assertEquals(1, throttle.getTrackedKeys());
+    }
+
+    @Test
+    void sprayingEmailsDoesNotLockOutOtherUsers() throws LoginThrottledException {
+        throttle = newThrottle(4);
+        // Un email bloqueado por fallos no se desaloja: desalojarlo levantaría el bloqueo.
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("victima@example.com", null);
+            throttle.recordFailure("victima@example.com", null);
+        }
+        for (int i = 0; i < 500; i++) {
+            throttle.acquire("spray" + i + "@example.com", null);
+            now.incrementAndGet(); // Menos que el bloqueo de 1 segundo.
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("victima@example.com", null),
+                "El bloqueo debe sobrevivir a la llegada de claves nuevas.");
+
+        // Un usuario legítimo conserva su ráfaga completa aunque el mapa esté lleno.
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("legitimo@example.com", null);
+        }
+        assertTrue(throttle.getTrackedKeys() <= 4);
+    }
+}
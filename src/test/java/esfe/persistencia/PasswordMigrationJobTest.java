@@ -0,0 +1,136 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import org.junit.jupiter.api.io.TempDir; // Directorio temporal para el punto de control.
+import esfe.dominio.User;                // Usuarios creados para la migración.
+import esfe.utils.PasswordHasher;        // Reconoce los hashes del formato anterior.
+
+import java.nio.charset.StandardCharsets; // Codificación del hash del formato anterior.
+import java.nio.file.Files;               // Comprobación y escritura del punto de control.
+import java.nio.file.Path;                // Ubicación del punto de control.
+import java.security.MessageDigest;       // SHA-256 del formato anterior.
+import java.sql.Connection;               // Conexión para insertar usuarios con hashes del formato anterior.
+import java.sql.PreparedStatement;        // Sentencias de apoyo de la prueba.
+import java.sql.ResultSet;                // Lectura del hash almacenado.
+import java.sql.SQLException;             // Errores de la base de datos.
+import java.util.ArrayList;               // IDs de los usuarios creados.
+import java.util.Base64;                  // Codificación del hash del formato anterior.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class PasswordMigrationJobTest {
+    @TempDir
+    Path dir;
+
+    private UserDAO userDAO;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = new UserDAO();
+    }
+
+    private int insertLegacy(String email, String password) throws Exception {
+        String hash = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8)));
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO Users (name, passwordHash, email, status) VALUES (?, ?, ?, 1)",
+                     java.sql.Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, "Usuario legado");
+            ps.setString(2, hash);
+            ps.setString(3, email);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                assertTrue(keys.next());
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private String storedHash(int id) throws SQLException {
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT passwordHash FROM Users WHERE id = ?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1);
+            }
+        }
+    }
+
+    @Test
+    void migratesLegacyHashesInChunks() throws Exception {
+        String prefix = "migrar" + System.nanoTime();
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(insertLegacy(prefix + i + "@example.com", "clave" + i));
+        }
+        User current = userDAO.create(new User(0, "Usuario vigente", "vigente", prefix + "v@example.com", (byte) 1));
+        String currentHash = storedHash(current.getId());
+
+        Path checkpoint = dir.resolve("migracion.properties");
+        PasswordMigrationJob.Result result = new PasswordMigrationJob(userDAO, checkpoint, 2, 0, 2).run();
+
+        assertTrue(result.completed());
+        assertTrue(result.migrated() >= 5, "Todas las filas del formato anterior deben migrarse.");
+        assertFalse(Files.exists(checkpoint), "Al terminar la tabla el punto de control se elimina.");
+        assertEquals(currentHash, storedHash(current.getId()), "Los hashes vigentes no se modifican.");
+        for (int i = 0; i < ids.size(); i++) {
+            assertTrue(storedHash(ids.get(i)).startsWith("pbkdf2-sha256-legacy$"));
+            assertNotNull(userDAO.authenticate(prefix + i + "@example.com", ("clave" + i).toCharArray()),
+                    "La contraseña debe seguir siendo válida tras la migración.");
+            // El inicio de sesión reemplaza el hash protegido por el formato actual.
+            assertTrue(storedHash(ids.get(i)).startsWith("pbkdf2-sha256$"));
+            userDAO.delete(new User(ids.get(i), null, null, null, (byte) 0));
+        }
+        userDAO.delete(current);
+    }
+
+    @Test
+    void resumesFromCheckpoint() throws Exception {
+        String prefix = "reanudar" + System.nanoTime();
+        int before = insertLegacy(prefix + "a@example.com", "clave");
+        int after = insertLegacy(prefix + "b@example.com", "clave");
+
+        // Punto de control de una ejecución interrumpida justo después de la primera fila.
+        Path checkpoint = dir.resolve("migracion.properties");
+        Files.writeString(checkpoint, "lastId=" + before + "\n");
+        PasswordMigrationJob.Result result = new PasswordMigrationJob(userDAO, checkpoint, 100, 0, 1).run();
+
+        assertTrue(result.completed());
+        assertTrue(PasswordHasher.isLegacyHash(storedHash(before)), "Las filas anteriores al punto de control no se vuelven a procesar.");
+        assertTrue(storedHash(after).startsWith("pbkdf2-sha256-legacy$"));
+        assertTrue(result.lastId() >= after);
+
+        userDAO.delete(new User(before, null, null, null, (byte) 0));
+        userDAO.delete(new User(after, null, null, null, (byte) 0));
+    }
+
+    @Test
+    void throttlesAndStops() throws Exception {
+        String prefix = "limitar" + System.nanoTime();
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(insertLegacy(prefix + i + "@example.com", "clave"));
+        }
+        // Empezar justo antes de las filas creadas: 4 filas, de 1 en 1, a 20 filas por segundo.
+        Path checkpoint = dir.resolve("migracion.properties");
+        Files.writeString(checkpoint, "lastId=" + (ids.get(0) - 1) + "\n");
+        PasswordMigrationJob job = new PasswordMigrationJob(userDAO, checkpoint, 1, 20, 1);
+        PasswordMigrationJob.Result result = job.run();
+        assertTrue(result.elapsedMillis() >= 3 * 1000 / 20, "La ejecución debe respetar el límite de filas por segundo.");
+
+        // Una ejecución detenida conserva el punto de control.
+        Files.writeString(checkpoint, "lastId=" + ids.get(0) + "\n");
+        job.stop();
+        PasswordMigrationJob.Result stopped = job.run();
+        assertFalse(stopped.completed());
+        assertEquals(0, stopped.scanned());
+        assertTrue(Files.exists(checkpoint));
+
+        for (int id : ids) {
+            userDAO.delete(new User(id, null, null, null, (byte) 0));
+        }
+    }
+}
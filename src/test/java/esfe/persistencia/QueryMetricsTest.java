@@ -0,0 +1,111 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+
+import java.util.ArrayList;              // Hilos de la prueba concurrente.
+import java.util.List;                   // Estadísticas exportadas.
+import java.util.concurrent.TimeUnit;    // Latencias de la prueba.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class QueryMetricsTest {
+
+    @Test
+    void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10_000), snapshot.getMaxNanos());
+        assertEquals(5_000.5, snapshot.getMeanNanos() / 1_000.0, 5_000.5 / 32);
+
+        double[][] expected = {{50, 5_000}, {90, 9_000}, {99, 9_900}, {99.9, 9_990}};
+        for (double[] pair : expected) {
+            long micros = snapshot.getPercentileNanos(pair[0]) / 1_000;
+            assertTrue(micros >= pair[1], "El percentil " + pair[0] + " no debe subestimar: " + micros);
+            assertTrue(micros <= pair[1] * 1.0625, "El percentil " + pair[0] + " debe tener un error menor a 1/16: " + micros);
+        }
+        assertEquals(snapshot.getMaxNanos(), snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    void bucketsCoverTheWholeRange() {
+        long previousHighest = -1;
+        for (int i = 0; i <= LatencyHistogram.index(LatencyHistogram.MAX_TRACKABLE_NANOS); i++) {
+            long highest = LatencyHistogram.highestEquivalent(i);
+            assertEquals(i, LatencyHistogram.index(previousHighest + 1), "Los intervalos deben ser contiguos.");
+            assertEquals(i, LatencyHistogram.index(highest));
+            previousHighest = highest;
+        }
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, previousHighest);
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE); // Se cuenta en el último intervalo.
+        assertEquals(2, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void operationsCountCallsRowsAndErrorsAcrossThreads() throws InterruptedException {
+        QueryMetrics metrics = new QueryMetrics(true);
+        QueryMetrics.Operation operation = metrics.operation("Test.query");
+        assertSame(operation, metrics.operation("Test.query"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    long started = operation.start();
+                    if (i % 100 == 0) {
+                        operation.failure(started);
+                    } else {
+                        operation.success(started, 2);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<QueryMetrics.Stats> snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.size());
+        QueryMetrics.Stats stats = snapshot.get(0);
+        assertEquals(80_000, stats.calls(), "Ningún registro concurrente debe perderse.");
+        assertEquals(800, stats.errors());
+        assertEquals(2 * 79_200, stats.rows());
+
+        String export = metrics.export();
+        assertTrue(export.startsWith("operation\tcalls\terrors\trows\t"));
+        assertTrue(export.contains("\nTest.query\t80000\t800\t158400\t"));
+
+        metrics.reset();
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    void disabledMetricsRecordNothing() {
+        QueryMetrics metrics = new QueryMetrics(false);
+        QueryMetrics.Operation operation = metrics.operation("Test.query");
+        operation.success(operation.start(), 10);
+        operation.failure(operation.start());
+        assertFalse(metrics.isEnabled());
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    void daoCallsAndPoolBorrowsAreRecorded() throws Exception {
+        QueryMetrics metrics = QueryMetrics.getInstance();
+        QueryMetrics.Operation getById = metrics.operation("UserDAO.getById");
+        QueryMetrics.Operation borrow = metrics.operation(QueryMetrics.POOL_BORROW);
+        long calls = getById.snapshot().calls();
+        long borrows = borrow.snapshot().calls();
+
+        new UserDAO().getById(Integer.MAX_VALUE);
+
+        assertEquals(calls + 1, getById.snapshot().calls());
+        assertTrue(borrow.snapshot().calls() > borrows, "El préstamo de la conexión también debe medirse.");
+    }
+}
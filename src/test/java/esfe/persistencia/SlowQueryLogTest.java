@@ -0,0 +1,125 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import org.junit.jupiter.api.io.TempDir; // Directorio temporal para los archivos de registro.
+
+import java.lang.reflect.Proxy;          // Sentencia simulada.
+import java.nio.charset.StandardCharsets; // Lectura del archivo de registro.
+import java.nio.file.Files;              // Lectura del archivo de registro.
+import java.nio.file.Path;               // Ubicación del archivo de registro.
+import java.sql.PreparedStatement;       // Sentencia medida.
+import java.sql.SQLException;            // Errores simulados.
+import java.util.List;                   // Ejecuciones guardadas.
+import java.util.concurrent.atomic.AtomicLong; // Duración simulada de cada ejecución.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class SlowQueryLogTest {
+    private static final String SQL = "SELECT id, name, email, status FROM Users WHERE name LIKE ? AND id > ? ORDER BY id LIMIT ?";
+
+    @TempDir
+    Path dir;
+
+    /** Sentencia que tarda en ejecutarse lo que indique {@code sleepMillis} y falla si es negativo. */
+    private static PreparedStatement statement(AtomicLong sleepMillis) {
+        return (PreparedStatement) Proxy.newProxyInstance(SlowQueryLogTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        long millis = sleepMillis.get();
+                        Thread.sleep(Math.abs(millis));
+                        if (millis < 0) {
+                            throw new SQLException("Fallo simulado");
+                        }
+                        return method.getReturnType() == int[].class ? new int[0] : method.getReturnType() == int.class ? 1 : null;
+                    }
+                    return method.getReturnType() == boolean.class ? false : null;
+                });
+    }
+
+    @Test
+    void fingerprintNormalizesLiteralsAndWhitespace() {
+        assertEquals("select * from users where email = ? and id in (?+) and status = ?",
+                SlowQueryLog.fingerprint("SELECT *\n  FROM Users WHERE email = 'a''b@x.com' AND id IN (1, 2,3) AND status = 1"));
+        assertEquals(SlowQueryLog.fingerprint("select * from t2 where c = ?"),
+                SlowQueryLog.fingerprint("SELECT * FROM t2   WHERE c = 42"), "Los identificadores con dígitos no se alteran.");
+    }
+
+    @Test
+    void recordsShapeWithoutValuesAndKeepsTopN() throws Exception {
+        Path file = dir.resolve("slow.log");
+        SlowQueryLog log = new SlowQueryLog(true, 0, 3, file, 1_000_000, 2);
+        AtomicLong sleep = new AtomicLong();
+        for (int i = 1; i <= 5; i++) {
+            sleep.set(i * 2);
+            PreparedStatement ps = log.track(statement(sleep), SQL);
+            ps.setString(1, "%secreto" + i + "%");
+            ps.setInt(2, 0);
+            ps.setInt(3, 201);
+            ps.executeQuery();
+            ps.close();
+        }
+        log.flush();
+
+        String fingerprint = SlowQueryLog.fingerprint(SQL);
+        List<SlowQueryLog.Execution> slowest = log.getSlowest().get(fingerprint);
+        assertEquals(3, slowest.size(), "Solo se guardan las N más lentas.");
+        assertTrue(slowest.get(0).elapsedNanos() >= slowest.get(2).elapsedNanos());
+        assertTrue(slowest.get(2).elapsedNanos() >= 6_000_000, "Se descartan las más rápidas.");
+        assertEquals("(String, Int, Int)", slowest.get(0).shape());
+
+        String written = Files.readString(file, StandardCharsets.UTF_8);
+        assertEquals(5, written.lines().count());
+        assertTrue(written.contains("(String, Int, Int)\t" + fingerprint));
+        assertFalse(written.contains("secreto"), "Los valores de los parámetros nunca se registran.");
+    }
+
+    @Test
+    void thresholdsChangeAtRuntime() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(true, 10_000, 10, dir.resolve("slow.log"), 1_000_000, 2);
+        AtomicLong sleep = new AtomicLong(5);
+        String fingerprint = SlowQueryLog.fingerprint(SQL);
+
+        log.track(statement(sleep), SQL).executeQuery();
+        log.flush();
+        assertTrue(log.getSlowest().isEmpty(), "Por debajo del umbral no se registra.");
+
+        log.setThresholdMillis(fingerprint, 1); // Umbral propio de la consulta.
+        log.track(statement(sleep), SQL).executeQuery();
+        log.track(statement(sleep), "SELECT 1").executeQuery(); // Otra consulta: sigue el umbral general.
+        log.flush();
+        assertEquals(1, log.getSlowest().size());
+        assertEquals(1, log.getSlowest().get(fingerprint).size());
+
+        log.setThresholdMillis(fingerprint, -1);
+        log.setThresholdMillis(1);
+        assertEquals(1, log.getThresholdMillis());
+        sleep.set(-5);
+        PreparedStatement failing = log.track(statement(sleep), "SELECT 1");
+        assertThrows(SQLException.class, failing::executeQuery, "La excepción original debe propagarse.");
+        log.flush();
+        assertTrue(log.getSlowest().get("select ?").get(0).failed());
+    }
+
+    @Test
+    void batchesRecordRowCountAndFilesRotate() throws Exception {
+        Path file = dir.resolve("slow.log");
+        SlowQueryLog log = new SlowQueryLog(true, 0, 10, file, 200, 3);
+        AtomicLong sleep = new AtomicLong(1);
+        for (int i = 0; i < 10; i++) {
+            PreparedStatement ps = log.track(statement(sleep), "UPDATE Users SET passwordHash = ? WHERE id = ? AND passwordHash = ?");
+            for (int row = 0; row < 4; row++) {
+                ps.setString(1, "nuevo");
+                ps.setInt(2, row);
+                ps.setString(3, "actual");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            log.flush(); // Una escritura (y una posible rotación) por lote.
+        }
+        assertEquals(4, log.getSlowest().values().iterator().next().get(0).batchSize());
+        assertTrue(Files.exists(dir.resolve("slow.log.1")));
+        assertTrue(Files.exists(dir.resolve("slow.log.2")));
+        assertFalse(Files.exists(dir.resolve("slow.log.3")), "Solo se conservan maxFiles archivos.");
+        assertTrue(Files.readString(dir.resolve("slow.log.1")).contains("(String, Int, String) x4\t"));
+    }
+}
@@ -0,0 +1,61 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.AfterEach;  // Cierra la conexión de cada prueba.
+import org.junit.jupiter.api.BeforeEach; // Abre la conexión de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+
+import java.sql.Connection;              // Conexión física de la caché.
+import java.sql.DriverManager;           // Abre la conexión a la base de datos embebida.
+import java.sql.PreparedStatement;       // Sentencias en caché.
+import java.sql.SQLException;            // Errores de la base de datos.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class StatementCacheTest {
+    private static final String SQL = "SELECT id, name FROM Users WHERE id > ?";
+
+    private Connection connection;
+    private StatementCache cache;
+    private final StatementCache.Counters counters = new StatementCache.Counters();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(EmbeddedDatabase.URL);
+        EmbeddedDatabase.createSchema(connection);
+        cache = new StatementCache(connection, 4, counters);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        cache.closeAll();
+        connection.close();
+    }
+
+    @Test
+    void reusedStatementDoesNotInheritSettings() throws SQLException {
+        PreparedStatement first = cache.prepare(connection, SQL, null);
+        first.setFetchSize(7);
+        first.setMaxRows(1);
+        first.setQueryTimeout(3);
+        first.close();
+
+        PreparedStatement second = cache.prepare(connection, SQL, null);
+        assertEquals(1, counters.hits.sum(), "La sentencia debe reutilizarse.");
+        assertEquals(0, second.getMaxRows(), "El máximo de filas debe restablecerse.");
+        assertEquals(0, second.getQueryTimeout(), "El tiempo de espera debe restablecerse.");
+        assertNotEquals(7, second.getFetchSize(), "El fetch size debe restablecerse.");
+        second.close();
+    }
+
+    @Test
+    void statementWithUnrestorableSettingsIsDiscarded() throws SQLException {
+        PreparedStatement first = cache.prepare(connection, SQL, null);
+        first.closeOnCompletion();
+        first.close();
+
+        PreparedStatement second = cache.prepare(connection, SQL, null);
+        assertEquals(0, counters.hits.sum(), "Una sentencia con closeOnCompletion no debe reutilizarse.");
+        assertFalse(second.isCloseOnCompletion());
+        second.close();
+    }
+}
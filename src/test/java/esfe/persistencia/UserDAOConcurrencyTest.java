@@ -0,0 +1,107 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.User;                // Clase que representa la entidad de usuario utilizada en las pruebas.
+
+import java.util.ArrayList;              // Lista de resultados de búsqueda.
+import java.util.List;                   // Lista de tareas enviadas al ejecutor.
+import java.util.UUID;                   // Genera emails únicos por hilo e iteración.
+import java.util.concurrent.CompletableFuture; // Resultados de las variantes asíncronas.
+import java.util.concurrent.CountDownLatch;   // Libera todos los hilos al mismo tiempo.
+import java.util.concurrent.ExecutorService;  // Ejecuta las tareas concurrentes.
+import java.util.concurrent.Executors;        // Fábrica del ejecutor de hilos.
+import java.util.concurrent.Future;           // Resultado de cada tarea, para propagar sus fallos.
+import java.util.concurrent.TimeUnit;         // Unidades del tiempo de espera.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+/**
+ * Prueba de estrés que comparte una única instancia de UserDAO entre muchos hilos.
+ * Cada hilo ejecuta el ciclo completo (crear, leer, buscar, autenticar, eliminar) sobre
+ * sus propios usuarios y verifica que nunca recibe datos de otro hilo.
+ */
+class UserDAOConcurrencyTest {
+    private static final int THREADS = 16;    // Hilos que usan la misma instancia al mismo tiempo.
+    private static final int ITERATIONS = 10; // Ciclos completos que ejecuta cada hilo.
+
+    @Test
+    void sharedInstanceUnderConcurrentLoad() throws Exception {
+        UserDAO userDAO = new UserDAO(); // Única instancia compartida por todos los hilos.
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1); // Puerta de salida común para maximizar la contención.
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        runCycle(userDAO);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES); // Propaga cualquier fallo de aserción o SQLException del hilo.
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, ConnectionManager.getInstance().getPool().getActiveConnections(),
+                "Todas las conexiones deben haber vuelto al pool.");
+    }
+
+    @Test
+    void asyncLookupsFanOut() throws Exception {
+        UserDAO userDAO = new UserDAO();
+        String tag = UUID.randomUUID().toString().replace("-", "");
+        User created = userDAO.create(new User(0, "Async " + tag, "password", tag + "@example.com", (byte) 1));
+
+        // Lanzar muchas más consultas que conexiones tiene el pool; el ejecutor las limita a su capacidad.
+        List<CompletableFuture<User>> lookups = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lookups.add(userDAO.getByIdAsync(created.getId()));
+        }
+        CompletableFuture<ArrayList<User>> search = userDAO.searchAsync(tag);
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).get(2, TimeUnit.MINUTES);
+        for (CompletableFuture<User> lookup : lookups) {
+            assertEquals(created.getId(), lookup.join().getId(), "getByIdAsync debe devolver el usuario creado.");
+        }
+        assertEquals(1, search.get(1, TimeUnit.MINUTES).size(), "searchAsync debe encontrar el usuario creado.");
+
+        assertTrue(userDAO.deleteAsync(created).get(1, TimeUnit.MINUTES), "deleteAsync debe eliminar el usuario.");
+    }
+
+    private void runCycle(UserDAO userDAO) throws Exception {
+        String tag = UUID.randomUUID().toString().replace("-", "");
+        String email = tag + "@example.com";
+        String name = "Stress " + tag;
+
+        // Crear un usuario propio de este hilo y verificar que el resultado corresponde a él.
+        User created = userDAO.create(new User(0, name, "password", email, (byte) 1));
+        assertNotNull(created, "El usuario creado no debería ser nulo.");
+        assertEquals(email, created.getEmail(), "El usuario creado debe ser el de este hilo.");
+
+        // Leerlo por ID.
+        User byId = userDAO.getById(created.getId());
+        assertNotNull(byId, "El usuario obtenido por ID no debería ser nulo.");
+        assertEquals(email, byId.getEmail(), "getById devolvió el usuario de otro hilo.");
+
+        // Buscarlo por nombre: el tag es único, así que solo debe aparecer este usuario.
+        ArrayList<User> found = userDAO.search(tag);
+        assertEquals(1, found.size(), "La búsqueda debe encontrar únicamente el usuario de este hilo.");
+        assertEquals(created.getId(), found.get(0).getId());
+
+        // Autenticarlo con la contraseña correcta y con una incorrecta.
+        User credentials = new User(0, null, "password", email, (byte) 0);
+        User authenticated = userDAO.authenticate(credentials);
+        assertNotNull(authenticated, "La autenticación debería ser exitosa.");
+        assertEquals(created.getId(), authenticated.getId(), "authenticate devolvió el usuario de otro hilo.");
+        credentials.setPasswordHash("incorrecta");
+        assertNull(userDAO.authenticate(credentials), "La autenticación con contraseña incorrecta debe fallar.");
+
+        // Eliminarlo y comprobar que ya no existe.
+        assertTrue(userDAO.delete(created), "La eliminación del usuario debería ser exitosa.");
+        assertNull(userDAO.getById(created.getId()), "El usuario debería haber sido eliminado.");
+    }
+}
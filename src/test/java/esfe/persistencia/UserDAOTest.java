@@ -3,9 +3,19 @@ package esfe.persistencia;
 import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada método de prueba.
 import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
 import esfe.dominio.User;                // Clase que representa la entidad de usuario utilizada en las pruebas.
-
+import esfe.utils.SaturatedHashingEngine; // Motor de hash saturado, para provocar un rechazo.
+import esfe.utils.SessionStore;          // Sesiones que deben revocarse al cambiar la contraseña.
+
+import java.nio.charset.StandardCharsets; // Codificación del hash del formato anterior.
+import java.security.MessageDigest;       // SHA-256 del formato anterior.
+import java.sql.Connection;              // Conexión para insertar un usuario con un hash del formato anterior.
+import java.sql.PreparedStatement;       // Sentencias de apoyo de la prueba de migración de hashes.
+import java.sql.ResultSet;               // Lectura del hash almacenado.
 import java.util.ArrayList;              // Clase para crear listas dinámicas de objetos, utilizada en algunas pruebas.
+import java.util.Base64;                 // Codificación del hash del formato anterior.
 import java.util.Random;                 // Clase para generar números aleatorios, útil para crear datos de prueba.
+import java.util.concurrent.RejectedExecutionException; // Rechazo del motor de hash saturado.
+import java.util.stream.Stream;          // Resultado de la búsqueda en streaming.
 
 import java.sql.SQLException;             // Clase para manejar excepciones relacionadas con la base de datos, aunque no se espera que las pruebas unitarias interactúen directamente con ella (idealmente se mockean las dependencias).
 
@@ -185,4 +195,202 @@ class UserDAOTest {
         User res = userDAO.create(user);
         assertNotEquals(res,null);
     }
-}
\ No newline at end of file
+    @Test
+    void importUsers() throws SQLException {
+        // Genera un lote de usuarios con un prefijo único para no chocar con otras ejecuciones.
+        String prefix = "import" + System.nanoTime();
+        ArrayList<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(new User(0, prefix + "_" + i, "password" + i, prefix + "_" + i + "@example.com", (byte) 1));
+        }
+
+        // Importa en bloques de 50 (el último bloque queda incompleto) y verifica un ID por usuario.
+        ArrayList<Integer> ids = userDAO.importUsers(users.iterator(), 50);
+        assertEquals(users.size(), ids.size(), "Debe generarse un ID por cada usuario importado.");
+
+        // Los IDs deben corresponder, en orden, a los usuarios recibidos.
+        for (int i = 0; i < ids.size(); i += 37) {
+            User res = userDAO.getById(ids.get(i));
+            assertNotNull(res, "El usuario importado debe existir.");
+            assertEquals(users.get(i).getEmail(), res.getEmail(), "El ID debe corresponder al usuario en la misma posición.");
+        }
+        // La contraseña se guardó hasheada y permite autenticarse.
+        User credentials = new User(0, null, "password7", users.get(7).getEmail(), (byte) 1);
+        assertNotNull(userDAO.authenticate(credentials), "El usuario importado debe poder autenticarse.");
+
+        for (Integer id : ids) {
+            userDAO.delete(new User(id, null, null, null, (byte) 0));
+        }
+    }
+
+    @Test
+    void importDoesNotUseTheLoginHashingEngine() throws Exception {
+        String prefix = "importsat" + System.nanoTime();
+        ArrayList<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(new User(0, prefix + "_" + i, "password" + i, prefix + "_" + i + "@example.com", (byte) 1));
+        }
+        // Con la cola del motor llena, los hashes de la importación se calculan en su propio pool.
+        ArrayList<Integer> ids;
+        try (SaturatedHashingEngine saturated = SaturatedHashingEngine.saturate()) {
+            ids = userDAO.importUsers(users.iterator(), 4);
+        }
+        assertEquals(users.size(), ids.size(), "La importación no debe ser rechazada por el motor de hash.");
+        User credentials = new User(0, null, "password3", users.get(3).getEmail(), (byte) 1);
+        assertNotNull(userDAO.authenticate(credentials), "El usuario importado debe poder autenticarse.");
+
+        for (Integer id : ids) {
+            userDAO.delete(new User(id, null, null, null, (byte) 0));
+        }
+    }
+
+    @Test
+    void searchPaged() throws SQLException {
+        // Crea 7 usuarios con un nombre único y los recorre en páginas de 3.
+        String prefix = "paged" + System.nanoTime();
+        ArrayList<User> users = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            users.add(new User(0, prefix + "_" + i, "password", prefix + "_" + i + "@example.com", (byte) 1));
+        }
+        ArrayList<Integer> ids = userDAO.createAll(users);
+
+        ArrayList<Integer> seen = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            Page<User> page = userDAO.search(prefix, Page.afterId(token), 3);
+            assertTrue(page.getItems().size() <= 3, "Una página no debe superar el límite.");
+            for (User user : page.getItems()) {
+                seen.add(user.getId());
+            }
+            token = page.getNextToken();
+            pages++;
+        } while (token != null);
+
+        // Tres páginas (3 + 3 + 1), sin repetidos ni omisiones, en orden de ID.
+        assertEquals(3, pages, "Siete usuarios en páginas de tres deben ocupar tres páginas.");
+        assertEquals(ids, seen, "La paginación debe devolver todos los usuarios en orden de ID.");
+
+        // Un límite enorme se reduce a Page.MAX_SIZE en lugar de desbordar el LIMIT de la consulta.
+        Page<User> all = userDAO.search(prefix, 0, Integer.MAX_VALUE);
+        assertEquals(7, all.getItems().size());
+        assertFalse(all.hasMore());
+
+        for (Integer id : ids) {
+            userDAO.delete(new User(id, null, null, null, (byte) 0));
+        }
+    }
+
+    @Test
+    void searchStream() throws SQLException {
+        String prefix = "stream" + System.nanoTime();
+        ArrayList<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(new User(0, prefix + "_" + i, "password", prefix + "_" + i + "@example.com", (byte) 1));
+        }
+        ArrayList<Integer> ids = userDAO.createAll(users);
+
+        // Con un tamaño de bloque menor que el resultado, el cursor debe entregar todas las filas.
+        try (Stream<User> stream = userDAO.searchStream(prefix, 2)) {
+            assertEquals(5, stream.filter(user -> user.getName().startsWith(prefix)).count(),
+                    "El Stream debe entregar todos los usuarios encontrados.");
+        }
+        ArrayList<User> visited = new ArrayList<>();
+        userDAO.searchEach(prefix, visited::add);
+        assertEquals(5, visited.size(), "searchEach debe visitar todos los usuarios encontrados.");
+        assertEquals(0, ConnectionManager.getInstance().getPool().getActiveConnections(),
+                "Al cerrar el Stream la conexión debe volver al pool.");
+
+        for (Integer id : ids) {
+            userDAO.delete(new User(id, null, null, null, (byte) 0));
+        }
+    }
+
+    @Test
+    void legacyHashIsUpgradedOnLogin() throws Exception {
+        String email = "legacy" + System.nanoTime() + "@example.com";
+        // Hash del formato anterior: SHA-256 sin sal, en Base64.
+        String legacyHash = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest("antigua".getBytes(StandardCharsets.UTF_8)));
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO Users (name, passwordHash, email, status) VALUES (?, ?, ?, 1)")) {
+            ps.setString(1, "Usuario legado");
+            ps.setString(2, legacyHash);
+            ps.setString(3, email);
+            ps.executeUpdate();
+        }
+
+        // La contraseña del formato anterior sigue siendo válida...
+        User res = userDAO.authenticate(new User(0, null, "antigua", email, (byte) 1));
+        assertNotNull(res, "Un hash SHA-256 existente debe seguir verificándose.");
+
+        // ...y tras el inicio de sesión el hash queda guardado en el formato nuevo.
+        String storedHash;
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement("SELECT passwordHash FROM Users WHERE id = ?")) {
+            ps.setInt(1, res.getId());
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                storedHash = rs.getString(1);
+            }
+        }
+        assertTrue(storedHash.startsWith("pbkdf2-sha256$"), "El hash debe actualizarse a PBKDF2 al iniciar sesión.");
+        assertNotNull(userDAO.authenticate(new User(0, null, "antigua", email, (byte) 1)),
+                "La contraseña debe seguir siendo válida con el hash nuevo.");
+        assertNull(userDAO.authenticate(new User(0, null, "otra", email, (byte) 1)));
+
+        userDAO.delete(res);
+    }
+
+    @Test
+    void updatePasswordRevokesSessions() throws SQLException {
+        String email = "session" + System.nanoTime() + "@example.com";
+        User created = userDAO.create(new User(0, "Usuario con sesión", "password", email, (byte) 1));
+        SessionStore sessions = SessionStore.getInstance();
+        String token = sessions.create(created);
+        assertNotNull(sessions.get(token));
+
+        // Al cambiar la contraseña se cierran las sesiones abiertas con la anterior.
+        created.setPasswordHash("nueva");
+        assertTrue(userDAO.updatePassword(created));
+        assertNull(sessions.get(token), "La sesión debe revocarse al cambiar la contraseña.");
+
+        // Al eliminar el usuario también.
+        String second = sessions.create(created);
+        userDAO.delete(created);
+        assertNull(sessions.get(second), "La sesión debe revocarse al eliminar el usuario.");
+    }
+
+    @Test
+    void runtimeFailuresAreCountedAsErrors() throws Exception {
+        QueryMetrics metrics = QueryMetrics.getInstance();
+        long createErrors = metrics.operation("UserDAO.create").snapshot().errors();
+        long authenticateErrors = metrics.operation("UserDAO.authenticate").snapshot().errors();
+
+        // Una contraseña nula hace fallar el hash con una excepción no comprobada, no con SQLException.
+        String email = "runtime" + System.nanoTime() + "@example.com";
+        assertThrows(RuntimeException.class, () -> userDAO.create(new User(0, "Sin contraseña", null, email, (byte) 1)));
+        assertEquals(createErrors + 1, metrics.operation("UserDAO.create").snapshot().errors());
+
+        // Un hash dañado (cero iteraciones) es un inicio de sesión fallido, no un error.
+        User created = userDAO.create(new User(0, "Hash dañado", "password", email, (byte) 1));
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement("UPDATE Users SET passwordHash = ? WHERE id = ?")) {
+            ps.setString(1, "pbkdf2-sha256$0$AAAAAAAAAAAAAAAAAAAAAA==$AAAA");
+            ps.setInt(2, created.getId());
+            ps.executeUpdate();
+        }
+        assertNull(userDAO.authenticate(email, "password".toCharArray(), null));
+        assertEquals(authenticateErrors, metrics.operation("UserDAO.authenticate").snapshot().errors());
+
+        // Con el motor de hash saturado la verificación se rechaza con una excepción no comprobada.
+        try (SaturatedHashingEngine saturated = SaturatedHashingEngine.saturate()) {
+            assertThrows(RejectedExecutionException.class,
+                    () -> userDAO.authenticate("saturado" + System.nanoTime() + "@example.com", "password".toCharArray(), null));
+        }
+        assertEquals(authenticateErrors + 1, metrics.operation("UserDAO.authenticate").snapshot().errors());
+
+        userDAO.delete(created);
+    }
+}
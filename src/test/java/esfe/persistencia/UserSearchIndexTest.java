@@ -0,0 +1,124 @@
+package esfe.persistencia;
+
+import org.junit.jupiter.api.AfterEach;  // Anotación para indicar que el método se ejecuta después de cada prueba.
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.User;                // Clase que representa la entidad de usuario utilizada en las pruebas.
+
+import java.sql.Connection;              // Conexión para modificar la tabla sin pasar por el DAO.
+import java.sql.PreparedStatement;       // Sentencia que elimina la fila sin pasar por el DAO.
+import java.sql.SQLException;            // Errores de la base de datos.
+import java.util.ArrayList;              // Resultados de búsqueda.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class UserSearchIndexTest {
+    private UserDAO userDAO;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = new UserDAO();
+        index = UserSearchIndex.getInstance();
+        index.setEnabled(true); // Las búsquedas de UserDAO pasan a resolverse con el índice.
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.setEnabled(false); // Dejar el índice desactivado para el resto de las pruebas.
+    }
+
+    @Test
+    void indexFollowsCreateUpdateDelete() throws SQLException {
+        String tag = Long.toString(System.nanoTime(), 36);
+        User created = userDAO.create(new User(0, "Indexado " + tag, "password", tag + "@example.com", (byte) 1));
+
+        // El índice se carga en la primera búsqueda y encuentra el usuario sin distinguir mayúsculas.
+        ArrayList<User> found = index.searchName(("indexado " + tag).toUpperCase(), userDAO);
+        assertNotNull(found, "Un término de tres o más caracteres debe resolverse con el índice.");
+        assertEquals(1, found.size());
+        assertEquals(created.getId(), found.get(0).getId());
+        assertEquals(1, index.searchEmail(tag + "@example", userDAO).size(), "El índice también cubre el email.");
+
+        // Los términos cortos se dejan a SQL.
+        assertNull(index.searchName("in", userDAO), "Los términos de menos de tres caracteres no usan el índice.");
+
+        // Al actualizar el nombre, el índice deja de encontrar el nombre anterior y encuentra el nuevo.
+        created.setName("Renombrado " + tag);
+        assertTrue(userDAO.update(created));
+        assertTrue(userDAO.search("Indexado " + tag).isEmpty(), "El nombre anterior ya no debe encontrarse.");
+        assertEquals(1, userDAO.search("renombrado " + tag).size(), "El nombre nuevo debe encontrarse.");
+
+        // Al eliminar, desaparece del índice.
+        assertTrue(userDAO.delete(created));
+        assertTrue(userDAO.search("Renombrado " + tag).isEmpty(), "El usuario eliminado no debe encontrarse.");
+    }
+
+    @Test
+    void indexIgnoresAccentsLikeMySql() throws SQLException {
+        String tag = Long.toString(System.nanoTime(), 36);
+        User created = userDAO.create(new User(0, "José Núñez " + tag, "password", "jose." + tag + "@example.com", (byte) 1));
+
+        // Como la intercalación por defecto de MySQL: sin acentos ni mayúsculas, en ambos sentidos.
+        ArrayList<User> found = index.searchName("jose nunez " + tag, userDAO);
+        assertNotNull(found);
+        assertEquals(1, found.size(), "\"jose\" debe encontrar \"José\".");
+        assertEquals(created.getId(), found.get(0).getId());
+        assertEquals(1, index.searchName("NÚÑEZ " + tag, userDAO).size());
+        assertEquals("jose nunez", UserSearchIndex.normalize("José Núñez"));
+
+        assertTrue(userDAO.delete(created));
+    }
+
+    @Test
+    void pagedSearchIsServedFromIndex() throws SQLException {
+        String tag = Long.toString(System.nanoTime(), 36);
+        User[] created = new User[3];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = userDAO.create(new User(0, "Paginado " + tag + " " + i, "password", i + "." + tag + "@example.com", (byte) 1));
+        }
+
+        Page<User> first = userDAO.search("paginado " + tag, 0, 2);
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasMore());
+        assertEquals(created[1].getId(), first.getNextAfterId());
+        Page<User> second = userDAO.search("paginado " + tag, first.getNextAfterId(), 2);
+        assertEquals(1, second.getItems().size());
+        assertEquals(created[2].getId(), second.getItems().get(0).getId());
+        assertFalse(second.hasMore());
+
+        // Una fila eliminada por otro proceso sigue en el índice: la página no se leyó con SQL.
+        try (Connection connection = ConnectionManager.getInstance().connect();
+             PreparedStatement ps = connection.prepareStatement("DELETE FROM Users WHERE id = ?")) {
+            ps.setInt(1, created[2].getId());
+            ps.executeUpdate();
+        }
+        assertEquals(1, userDAO.search("paginado " + tag, first.getNextAfterId(), 2).getItems().size());
+        index.invalidate();
+        assertTrue(userDAO.search("paginado " + tag, first.getNextAfterId(), 2).getItems().isEmpty());
+
+        assertTrue(userDAO.delete(created[0]));
+        assertTrue(userDAO.delete(created[1]));
+    }
+
+    @Test
+    void importedChunksAreIndexedEvenIfALaterChunkFails() throws SQLException {
+        String tag = Long.toString(System.nanoTime(), 36);
+        assertNotNull(index.searchName("importado " + tag, userDAO)); // Cargar el índice antes de importar.
+        ArrayList<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(new User(0, "Importado " + tag + " " + i, "password", i + ".imp." + tag + "@example.com", (byte) 1));
+        }
+        users.add(new User(0, "Importado " + tag + " 3", null, "3.imp." + tag + "@example.com", (byte) 1)); // Falla al hashear.
+
+        assertThrows(RuntimeException.class, () -> userDAO.importUsers(users.iterator(), 2));
+        assertEquals(0, ConnectionManager.getInstance().getPool().getActiveConnections(),
+                "La conexión de la importación debe volver al pool.");
+        ArrayList<User> found = userDAO.search("importado " + tag);
+        assertEquals(2, found.size(), "El primer bloque quedó confirmado y debe estar en el índice.");
+
+        for (User user : found) {
+            assertTrue(userDAO.delete(user));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package esfe.presentacion;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.User;                // Elementos mostrados en la tabla.
+import esfe.persistencia.Page;           // Páginas simuladas.
+
+import javax.swing.SwingUtilities;       // El modelo se usa desde el hilo de eventos.
+import javax.swing.event.TableModelEvent; // Eventos disparados por el modelo.
+import java.util.ArrayList;              // Páginas y eventos registrados.
+import java.util.List;                   // Vistas de las listas.
+import java.util.concurrent.CompletableFuture; // Cargas completadas a mano.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class PagedTableModelTest {
+    private static final int PAGE = 10;
+
+    private PagedTableModel<User> model;
+    private List<TableModelEvent> events;
+    private List<CompletableFuture<Page<User>>> loads; // Cargas pedidas, en orden.
+    private List<Integer> afterIds;                    // afterId de cada carga.
+
+    @BeforeEach
+    void setUp() throws Exception {
+        events = new ArrayList<>();
+        loads = new ArrayList<>();
+        afterIds = new ArrayList<>();
+        onEdt(() -> {
+            model = new PagedTableModel<>(PAGE, ex -> fail(ex),
+                    PagedTableModel.intColumn("Id", User::getId),
+                    PagedTableModel.objectColumn("Nombre", String.class, User::getName));
+            model.addTableModelListener(events::add);
+        });
+    }
+
+    private static void onEdt(Runnable action) throws Exception {
+        SwingUtilities.invokeAndWait(action);
+    }
+
+    /** Página con los usuarios de IDs from..to-1. */
+    private static Page<User> page(int from, int to, boolean hasMore) {
+        ArrayList<User> users = new ArrayList<>();
+        for (int id = from; id < to; id++) {
+            users.add(new User(id, "u" + id, null, "u" + id + "@example.com", (byte) 1));
+        }
+        return new Page<>(users, to - 1, hasMore);
+    }
+
+    private PagedTableModel.PageLoader<User> loader() {
+        return (afterId, limit) -> {
+            assertEquals(PAGE, limit);
+            CompletableFuture<Page<User>> future = new CompletableFuture<>();
+            afterIds.add(afterId);
+            loads.add(future);
+            return future;
+        };
+    }
+
+    @Test
+    void loadsNextPageNearTheEnd() throws Exception {
+        CompletableFuture<PagedTableModel.Loaded<User>> first = model.fetchFirst(loader());
+        assertFalse(first.isDone(), "La primera página aún no llega.");
+        assertEquals(0, model.getRowCount(), "Cargar la primera página no modifica el modelo.");
+        loads.get(0).complete(page(1, 11, true));
+        onEdt(() -> model.show(first.join()));
+        assertEquals(10, model.getRowCount());
+        assertEquals(1, events.size(), "Una carga debe disparar un único evento.");
+        assertEquals(Integer.class, model.getColumnClass(0));
+        assertEquals("Nombre", model.getColumnName(1));
+
+        // Leer las primeras filas no pide más; acercarse al final sí, una sola vez.
+        onEdt(() -> model.getValueAt(0, 1));
+        assertEquals(1, loads.size());
+        onEdt(() -> {
+            model.getValueAt(9, 0);
+            model.getValueAt(9, 1);
+        });
+        assertEquals(2, loads.size());
+        assertTrue(model.isLoading());
+
+        loads.get(1).complete(page(11, 21, false));
+        onEdt(() -> { });
+        assertEquals(List.of(0, 10), afterIds, "La página siguiente continúa tras el último ID.");
+        assertEquals(20, model.getRowCount());
+        assertEquals(2, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+        assertEquals(10, events.get(1).getFirstRow());
+        assertEquals(19, events.get(1).getLastRow());
+        assertEquals(20, model.getValueAt(19, 0));
+        assertEquals("u20", model.getValueAt(19, 1));
+
+        // Sin más páginas no se vuelve a pedir.
+        assertFalse(model.hasMore());
+        onEdt(() -> model.getValueAt(19, 0));
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    void staleNextPageIsDiscarded() throws Exception {
+        onEdt(() -> model.show(new PagedTableModel.Loaded<>(page(1, 11, true), loader())));
+        onEdt(() -> model.getValueAt(9, 0)); // Pide la página siguiente de la primera búsqueda...
+        onEdt(() -> model.show(new PagedTableModel.Loaded<>(page(100, 103, false), loader()))); // ...pero se busca otra cosa.
+
+        loads.get(0).complete(page(11, 21, false));
+        onEdt(() -> { });
+        assertEquals(3, model.getRowCount(), "La página de la búsqueda anterior no debe agregarse.");
+        assertEquals(100, model.getValueAt(0, 0));
+
+        onEdt(model::clear);
+        assertEquals(0, model.getRowCount());
+    }
+
+    @Test
+    void cancellingFirstPageCancelsQuery() {
+        CompletableFuture<PagedTableModel.Loaded<User>> first = model.fetchFirst(loader());
+        first.cancel(false);
+        assertTrue(loads.get(0).isCancelled(), "La consulta de una búsqueda reemplazada debe cancelarse.");
+    }
+
+    @Test
+    void largeResultGrowsColumnsByPage() throws Exception {
+        onEdt(() -> model.show(new PagedTableModel.Loaded<>(page(1, 11, true), loader())));
+        for (int n = 1; n < 1_000; n++) {
+            int from = n * PAGE + 1;
+            onEdt(() -> model.getValueAt(model.getRowCount() - 1, 0));
+            loads.get(n - 1).complete(page(from, from + PAGE, true));
+            onEdt(() -> { });
+        }
+        assertEquals(10_000, model.getRowCount());
+        assertEquals(1_000, events.size(), "Un evento por página, no por celda.");
+        assertEquals(10_000, model.getValueAt(9_999, 0));
+    }
+}
@@ -0,0 +1,120 @@
+package esfe.presentacion;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+
+import javax.swing.JTextField;           // Campo de búsqueda simulado.
+import javax.swing.SwingUtilities;       // Las interacciones ocurren en el hilo de eventos.
+import java.sql.SQLException;            // Error simulado de la consulta.
+import java.util.ArrayList;              // Consultas lanzadas y resultados publicados.
+import java.util.Collections;            // Listas seguras entre hilos.
+import java.util.List;                   // Vistas sincronizadas de las listas.
+import java.util.concurrent.CompletableFuture; // Consultas completadas a mano.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class SearchControllerTest {
+    private static final int DELAY = 50;
+
+    private JTextField field;
+    private SearchController<String> controller;
+    private List<String> terms;                          // Textos consultados.
+    private List<CompletableFuture<String>> queries;     // Consultas en el orden en que se lanzaron.
+    private List<String> published;                      // Resultados publicados (o "limpio"/"error").
+
+    @BeforeEach
+    void setUp() throws Exception {
+        terms = Collections.synchronizedList(new ArrayList<>());
+        queries = Collections.synchronizedList(new ArrayList<>());
+        published = Collections.synchronizedList(new ArrayList<>());
+        SwingUtilities.invokeAndWait(() -> {
+            field = new JTextField();
+            controller = new SearchController<>(field, DELAY,
+                    term -> {
+                        CompletableFuture<String> future = new CompletableFuture<>();
+                        terms.add(term);
+                        queries.add(future);
+                        return future;
+                    },
+                    result -> {
+                        assertTrue(SwingUtilities.isEventDispatchThread(), "Los resultados deben publicarse en el hilo de eventos.");
+                        published.add(result);
+                    },
+                    () -> published.add("limpio"),
+                    ex -> published.add("error: " + ex.getMessage()));
+        });
+    }
+
+    private void type(String text) throws Exception {
+        SwingUtilities.invokeAndWait(() -> field.setText(text));
+    }
+
+    /** Espera a que venza el retardo y a que el hilo de eventos procese lo pendiente. */
+    private void settle() throws Exception {
+        Thread.sleep(DELAY * 4);
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+
+    @Test
+    void typingQuicklyRunsOneQuery() throws Exception {
+        // Cinco teclas seguidas, sin pausas más largas que el retardo.
+        SwingUtilities.invokeAndWait(() -> {
+            for (String prefix : new String[]{"a", "ad", "adm", "admi", "admin"}) {
+                field.setText(prefix);
+            }
+        });
+        settle();
+        assertEquals(List.of("admin"), terms, "Solo debe consultarse el texto final.");
+
+        queries.get(0).complete("resultado admin");
+        settle();
+        assertEquals(List.of("resultado admin"), published);
+
+        // El mismo texto no vuelve a consultarse salvo que se pida explícitamente.
+        type(" admin ");
+        settle();
+        assertEquals(1, terms.size());
+        SwingUtilities.invokeAndWait(controller::refresh);
+        assertEquals(2, terms.size());
+    }
+
+    @Test
+    void staleResultsAreDiscarded() throws Exception {
+        type("ana");
+        settle();
+        type("anabel");
+        settle();
+        assertEquals(List.of("ana", "anabel"), terms);
+        assertTrue(queries.get(0).isCancelled(), "La consulta anterior debe cancelarse.");
+
+        // La cancelación de la consulta anterior no se informa como error; solo se publica la más reciente.
+        queries.get(1).complete("anabel");
+        settle();
+        assertEquals(List.of("anabel"), published);
+    }
+
+    @Test
+    void clearingAndErrors() throws Exception {
+        type("x");
+        settle();
+        type("");
+        settle();
+        assertEquals(List.of("limpio"), published, "Vaciar el campo limpia la tabla y descarta la consulta.");
+        assertTrue(queries.get(0).isCancelled());
+
+        type("y");
+        settle();
+        queries.get(1).completeExceptionally(new SQLException("sin conexión"));
+        settle();
+        assertEquals(List.of("limpio", "error: sin conexión"), published);
+        // Tras un error el mismo texto puede reintentarse.
+        SwingUtilities.invokeAndWait(() -> field.setText("y "));
+        settle();
+        assertEquals(3, terms.size());
+
+        SwingUtilities.invokeAndWait(controller::close);
+        type("z");
+        settle();
+        assertEquals(3, terms.size(), "Tras cerrar el formulario ya no se consulta.");
+    }
+}
@@ -0,0 +1,121 @@
+package esfe.presentacion;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.User;                // Filas guardadas en la caché.
+import esfe.persistencia.Page;           // Páginas simuladas.
+
+import java.util.ArrayList;              // Filas y consultas registradas.
+import java.util.List;                   // Resultados de la caché.
+import java.util.concurrent.CompletableFuture; // Consultas simuladas.
+import java.util.concurrent.atomic.AtomicLong; // Reloj simulado.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class SearchSessionCacheTest {
+    private AtomicLong now;
+    private SearchSessionCache<User> cache;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        cache = new SearchSessionCache<>(User::getName, 4, 30_000, now::get);
+        users = new ArrayList<>();
+        String[] names = {"Administrador", "Adela", "Ádmin Martínez", "Mariadmin", "Luis"};
+        for (int i = 0; i < names.length; i++) {
+            users.add(new User(i + 1, names[i], null, "u" + i + "@example.com", (byte) 1));
+        }
+    }
+
+    private static List<String> names(List<User> rows) {
+        return rows.stream().map(User::getName).toList();
+    }
+
+    @Test
+    void extendedTermIsNarrowedInMemory() {
+        assertNull(cache.get("ad"));
+        cache.put("ad", users.subList(0, 4)); // Resultado completo de "ad" (sin Luis).
+
+        // "adm" contiene "ad": se filtra sin consultar, sin distinguir mayúsculas ni acentos.
+        assertEquals(List.of("Administrador", "Ádmin Martínez", "Mariadmin"), names(cache.get("adm")));
+        assertEquals(List.of("Ádmin Martínez"), names(cache.get("ADMIN MAR")));
+        // Volver a un término anterior tampoco consulta.
+        assertEquals(4, cache.get("ad").size());
+        assertEquals(2, cache.getNarrowedHits());
+        assertEquals(1, cache.getHits());
+
+        // Un término que no contiene ninguno guardado, o con comodines de LIKE, va a la base de datos.
+        assertNull(cache.get("lu"));
+        assertNull(cache.get("ad%min"));
+        assertNull(cache.get("a_m"));
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void staleAndInvalidatedResultsAreNotUsed() {
+        cache.put("ad", users.subList(0, 4));
+        now.addAndGet(20_000_000_000L);
+        assertNotNull(cache.get("adm"));
+        // El filtrado hereda la antigüedad de la consulta original.
+        now.addAndGet(10_000_000_000L);
+        assertNull(cache.get("adm"), "Un resultado vencido no se usa aunque se haya filtrado hace poco.");
+        assertNull(cache.get("admi"));
+
+        cache.put("ad", users.subList(0, 4));
+        cache.invalidate();
+        assertNull(cache.get("adm"));
+    }
+
+    @Test
+    void onlyCompleteResultsAreCached() {
+        PagedTableModel<User> model = new PagedTableModel<>(2, ex -> fail(ex),
+                PagedTableModel.intColumn("Id", User::getId));
+        List<String> queried = new ArrayList<>();
+
+        // Primera página incompleta: no se puede filtrar, "adm" vuelve a consultar.
+        PagedTableModel.Loaded<User> first = cache.search("ad", model, (afterId, limit) -> {
+            queried.add("ad");
+            return CompletableFuture.completedFuture(new Page<>(new ArrayList<>(users.subList(0, 2)), 2, true));
+        }).join();
+        assertTrue(first.page().hasMore());
+        assertNull(cache.get("adm"));
+
+        // Resultado completo: "admi" se resuelve en memoria, sin cargador y sin páginas siguientes.
+        cache.search("adm", model, (afterId, limit) -> {
+            queried.add("adm");
+            return CompletableFuture.completedFuture(new Page<>(new ArrayList<>(List.of(users.get(0), users.get(3))), 4, false));
+        }).join();
+        PagedTableModel.Loaded<User> narrowed = cache.search("admi", model, (afterId, limit) -> {
+            fail("No debe consultarse la base de datos.");
+            return null;
+        }).join();
+        assertEquals(List.of("Administrador", "Mariadmin"), names(narrowed.page().getItems()));
+        assertFalse(narrowed.page().hasMore());
+        assertEquals(List.of("ad", "adm"), queried);
+    }
+
+    @Test
+    void resultLoadedBeforeInvalidationIsNotStored() {
+        CompletableFuture<Page<User>> pending = new CompletableFuture<>();
+        PagedTableModel<User> model = new PagedTableModel<>(10, ex -> fail(ex),
+                PagedTableModel.intColumn("Id", User::getId));
+        CompletableFuture<PagedTableModel.Loaded<User>> result = cache.search("ad", model, (afterId, limit) -> pending);
+        cache.invalidate(); // Se modificó un registro mientras la consulta estaba en curso.
+        pending.complete(new Page<>(new ArrayList<>(users.subList(0, 4)), 4, false));
+        assertEquals(4, result.join().page().getItems().size(), "El resultado se muestra igual...");
+        assertNull(cache.get("ad"), "...pero no se guarda.");
+    }
+
+    @Test
+    void cancellingTheSearchCancelsTheQuery() {
+        PagedTableModel<User> model = new PagedTableModel<>(2, ex -> fail(ex),
+                PagedTableModel.intColumn("Id", User::getId));
+        CompletableFuture<Page<User>> query = new CompletableFuture<>(); // Consulta que aún no termina.
+
+        CompletableFuture<PagedTableModel.Loaded<User>> search = cache.search("ad", model, (afterId, limit) -> query);
+        // SearchController cancela así la búsqueda que reemplaza una nueva pulsación.
+        assertTrue(search.cancel(false));
+        assertTrue(query.isCancelled(), "La consulta de una búsqueda reemplazada no debe llegar a ejecutarse.");
+    }
+}
@@ -0,0 +1,135 @@
+package esfe.utils;
+
+import org.junit.jupiter.api.Test; // Anotación para indicar que el método es un caso de prueba.
+
+import java.nio.CharBuffer;               // Entrada de contraseña como búfer de caracteres.
+import java.nio.charset.StandardCharsets; // Codificación UTF-8 de la implementación de referencia.
+import java.security.MessageDigest;       // SHA-256 del formato anterior.
+import java.util.Base64;                  // Codificación Base64 del formato anterior.
+import java.util.stream.IntStream;        // Genera contraseñas para la prueba concurrente.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class PasswordHasherTest {
+
+    /** Hash del formato anterior: SHA-256 sin sal, en Base64. */
+    private static String legacy(String password) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return Base64.getEncoder().encodeToString(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void hashIsSaltedAndSelfDescribing() {
+        String first = PasswordHasher.hashPassword("password");
+        String second = PasswordHasher.hashPassword("password");
+
+        assertTrue(first.startsWith("pbkdf2-sha256$"), "El hash debe indicar su algoritmo.");
+        assertEquals(4, first.split("\\$").length, "Formato: algoritmo$iteraciones$sal$hash.");
+        assertNotEquals(first, second, "Cada hash debe usar una sal distinta.");
+        assertTrue(PasswordHasher.verifyPassword("password", first));
+        assertTrue(PasswordHasher.verifyPassword("password".toCharArray(), second));
+        assertFalse(PasswordHasher.verifyPassword("Password", first));
+        assertFalse(PasswordHasher.needsRehash(first));
+    }
+
+    @Test
+    void damagedHashesFailWithoutThrowing() {
+        String salt = Base64.getEncoder().withoutPadding().encodeToString(new byte[16]);
+        String hash = Base64.getEncoder().withoutPadding().encodeToString(new byte[32]);
+        long completed = PasswordHashingEngine.getInstance().getCompletedHashes();
+        String[] damaged = {
+                null, "", "desconocido", "pbkdf2-sha256$x$" + salt + "$" + hash,
+                "pbkdf2-sha256$0$" + salt + "$" + hash,           // Sin iteraciones.
+                "pbkdf2-sha256$-5$" + salt + "$" + hash,          // Iteraciones negativas.
+                "pbkdf2-sha256$2000000000$" + salt + "$" + hash,  // Costo absurdo.
+                "pbkdf2-sha256$1000$$" + hash,                    // Sin sal.
+                "pbkdf2-sha256-legacy$1000$" + salt + "$"         // Sin hash.
+        };
+        for (String storedHash : damaged) {
+            PasswordHasher.Verification verification = PasswordHasher.verify("password".toCharArray(), storedHash);
+            assertFalse(verification.matches(), "Un hash dañado no debe verificar: " + storedHash);
+            assertFalse(verification.needsRehash());
+        }
+        // Cada verificación fallida calcula igualmente un hash, para no responder antes que una real.
+        assertEquals(completed + damaged.length, PasswordHashingEngine.getInstance().getCompletedHashes());
+    }
+
+    @Test
+    void allInputFormsVerify() {
+        // Incluye caracteres de varios bytes, un par sustituto y una contraseña larga.
+        String[] passwords = {"", "password", "contraseña ñandú", "clave🔒", "x".repeat(500)};
+        for (String password : passwords) {
+            String hash = PasswordHasher.hashPassword(password.toCharArray());
+            assertTrue(PasswordHasher.verifyPassword(password, hash));
+
+            CharBuffer buffer = CharBuffer.wrap("__" + password);
+            buffer.position(2);
+            assertTrue(PasswordHasher.verifyPassword(password, PasswordHasher.hashPassword(buffer)));
+            assertEquals(2, buffer.position(), "La posición del búfer no debe cambiar.");
+        }
+    }
+
+    @Test
+    void legacyHashesStillVerify() throws Exception {
+        // Incluye un sustituto suelto, que el formato anterior codificaba como '?'.
+        for (String password : new String[]{"password", "contraseña ñandú", "roto\uD800"}) {
+            String hash = legacy(password);
+            assertTrue(PasswordHasher.verifyPassword(password.toCharArray(), hash));
+            assertFalse(PasswordHasher.verifyPassword("otra", hash));
+            assertTrue(PasswordHasher.needsRehash(hash), "Los hashes SHA-256 deben recalcularse.");
+        }
+        assertFalse(PasswordHasher.verifyPassword("password", "no-es-un-hash"));
+        assertFalse(PasswordHasher.verifyPassword("password", "pbkdf2-sha256$x$y$z"));
+    }
+
+    @Test
+    void wrappedLegacyHashesVerifyAndUpgrade() throws Exception {
+        for (String password : new String[]{"password", "contraseña ñandú", "roto\uD800"}) {
+            String wrapped = PasswordHasher.wrapLegacyHash(legacy(password));
+            assertTrue(wrapped.startsWith("pbkdf2-sha256-legacy$"));
+            assertFalse(PasswordHasher.isLegacyHash(wrapped), "El hash protegido ya no debe migrarse otra vez.");
+            assertTrue(PasswordHasher.verifyPassword(password, wrapped));
+            assertFalse(PasswordHasher.verifyPassword("otra", wrapped));
+
+            // Al iniciar sesión se reemplaza por el formato actual.
+            PasswordHasher.Verification verification = PasswordHasher.verify(password.toCharArray(), wrapped);
+            assertTrue(verification.needsRehash());
+            assertTrue(verification.upgradedHash().startsWith("pbkdf2-sha256$"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> PasswordHasher.wrapLegacyHash(PasswordHasher.hashPassword("password")));
+    }
+
+    @Test
+    void verificationCarriesUpgradedHash() throws Exception {
+        // Hash del formato anterior con la contraseña correcta: la verificación trae el hash nuevo.
+        PasswordHasher.Verification upgraded = PasswordHasher.verify("password".toCharArray(), legacy("password"));
+        assertTrue(upgraded.matches());
+        assertTrue(upgraded.needsRehash());
+        assertTrue(PasswordHasher.verifyPassword("password", upgraded.upgradedHash()), "El hash nuevo debe verificar la misma contraseña.");
+        assertFalse(PasswordHasher.needsRehash(upgraded.upgradedHash()));
+
+        // Contraseña incorrecta: sin hash nuevo.
+        PasswordHasher.Verification failed = PasswordHasher.verify("otra".toCharArray(), legacy("password"));
+        assertFalse(failed.matches());
+        assertFalse(failed.needsRehash());
+
+        // Hash vigente: no hace falta recalcular.
+        PasswordHasher.Verification current = PasswordHasher.verify("password".toCharArray(), PasswordHasher.hashPassword("password"));
+        assertTrue(current.matches());
+        assertNull(current.upgradedHash());
+    }
+
+    @Test
+    void hashesConcurrently() throws Exception {
+        // Cada hilo del motor usa su propio MessageDigest: los resultados no deben mezclarse.
+        String[] hashes = new String[50];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = legacy("password" + i);
+        }
+        IntStream.range(0, 2_000).parallel().forEach(i -> {
+            int n = i % hashes.length;
+            assertTrue(PasswordHasher.verifyPassword(("password" + n).toCharArray(), hashes[n]));
+        });
+        assertTrue(PasswordHashingEngine.getInstance().getCompletedHashes() >= 2_000);
+    }
+}
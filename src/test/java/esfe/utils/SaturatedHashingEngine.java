@@ -0,0 +1,65 @@
+package esfe.utils;
+
+import java.util.ArrayList;                               // Hilos que ocupan el motor.
+import java.util.concurrent.CountDownLatch;               // Libera los cálculos bloqueados.
+import java.util.concurrent.RejectedExecutionException;   // Señal de que el motor está saturado.
+import java.util.concurrent.atomic.AtomicInteger;         // Cuenta los cálculos bloqueados en ejecución.
+
+/**
+ * Apoyo para las pruebas de otros paquetes: ocupa todos los hilos y la cola de admisión del
+ * {@link PasswordHashingEngine} compartido con cálculos bloqueados, de modo que el siguiente
+ * cálculo se rechaza con {@link RejectedExecutionException}, como en una ráfaga real.
+ */
+public final class SaturatedHashingEngine implements AutoCloseable {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ArrayList<Thread> blockers = new ArrayList<>();
+    private final AtomicInteger running = new AtomicInteger(); // Cálculos bloqueados que ya ocupan un hilo.
+
+    private SaturatedHashingEngine() {
+    }
+
+    /**
+     * Satura el motor. Debe cerrarse (por ejemplo con try-with-resources) para liberarlo.
+     *
+     * @return El control de la saturación.
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public static SaturatedHashingEngine saturate() throws InterruptedException {
+        PasswordHashingEngine engine = PasswordHashingEngine.getInstance();
+        SaturatedHashingEngine saturation = new SaturatedHashingEngine();
+        long rejected = engine.getRejectedHashes();
+        // Agregar cálculos bloqueados, de a uno, hasta que el motor rechace uno.
+        while (engine.getRejectedHashes() == rejected) {
+            saturation.blockers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    engine.run(() -> {
+                        saturation.running.incrementAndGet();
+                        saturation.release.await();
+                        return null;
+                    });
+                } catch (RejectedExecutionException ex) {
+                    // Esperado: indica que el motor ya está lleno.
+                }
+            }));
+            // Esperar a que el cálculo nuevo esté en ejecución o en la cola (o se haya rechazado).
+            while (engine.getRejectedHashes() == rejected
+                    && saturation.running.get() + engine.getQueueDepth() < saturation.blockers.size()) {
+                Thread.sleep(1);
+            }
+        }
+        return saturation;
+    }
+
+    /**
+     * Libera los cálculos bloqueados y espera a que terminen.
+     *
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        release.countDown();
+        for (Thread blocker : blockers) {
+            blocker.join();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package esfe.utils;
+
+import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada prueba.
+import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
+import esfe.dominio.User;                // Usuario al que pertenecen las sesiones.
+
+import java.util.concurrent.atomic.AtomicLong; // Reloj simulado.
+
+import static org.junit.jupiter.api.Assertions.*; // Métodos de aserción de JUnit 5.
+
+class SessionStoreTest {
+    private AtomicLong now;
+    private SessionStore store;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000);
+        // 10 segundos de inactividad, 60 segundos de duración máxima y tics de 1 segundo.
+        store = new SessionStore(10_000, 60_000, 1_000, now::get);
+        user = new User(7, "Ana", "secreta", "ana@example.com", (byte) 1);
+    }
+
+    @Test
+    void tokenReturnsCopyOfUser() {
+        String token = store.create(user);
+        assertTrue(token.length() >= 43, "El token debe tener al menos 256 bits.");
+        assertNotEquals(token, store.create(user), "Cada sesión debe tener su propio token.");
+
+        User found = store.get(token);
+        assertEquals(7, found.getId());
+        assertNull(found.getPasswordHash(), "La sesión no debe conservar la contraseña.");
+        found.setName("Modificado");
+        assertEquals("Ana", store.get(token).getName(), "Modificar la copia no debe alterar la sesión.");
+        assertNull(store.get("token-inexistente"));
+    }
+
+    @Test
+    void slidingAndAbsoluteExpiry() {
+        String token = store.create(user);
+        // Cada uso antes de 10 segundos de inactividad extiende la sesión...
+        for (int i = 0; i < 5; i++) {
+            now.addAndGet(9_000);
+            assertNotNull(store.get(token), "El uso debe extender la sesión.");
+        }
+        // ...pero no más allá de la duración máxima.
+        now.addAndGet(9_000);
+        assertNotNull(store.get(token));
+        now.addAndGet(9_000); // 63 segundos desde su creación.
+        assertNull(store.get(token), "La sesión debe vencer al cumplir su duración máxima.");
+
+        String idle = store.create(user);
+        now.addAndGet(10_000);
+        assertNull(store.get(idle), "La sesión debe vencer tras el tiempo de inactividad.");
+        assertEquals(2, store.getExpiredSessions());
+    }
+
+    @Test
+    void sweeperReclaimsAbandonedSessions() {
+        for (int i = 0; i < 100; i++) {
+            store.create(new User(i, "u" + i, null, "u" + i + "@example.com", (byte) 1));
+        }
+        String used = store.create(user);
+        store.sweep(); // Ubica las sesiones nuevas en la rueda.
+        assertEquals(101, store.getActiveSessions());
+
+        // Una sesión usada se vuelve a ubicar según su nuevo vencimiento; las abandonadas se liberan.
+        for (int second = 1; second <= 15; second++) {
+            now.addAndGet(1_000);
+            if (second == 8) {
+                assertNotNull(store.get(used));
+            }
+            store.sweep();
+        }
+        assertEquals(1, store.getActiveSessions(), "Solo debe quedar la sesión que se siguió usando.");
+        now.addAndGet(10_000);
+        store.sweep();
+        assertEquals(0, store.getActiveSessions());
+    }
+
+    @Test
+    void revokeUserClosesAllItsSessions() {
+        String first = store.create(user);
+        String second = store.create(user);
+        String other = store.create(new User(8, "Luis", null, "luis@example.com", (byte) 1));
+
+        assertEquals(2, store.revokeUser(7));
+        assertNull(store.get(first));
+        assertNull(store.get(second));
+        assertNotNull(store.get(other), "Las sesiones de otros usuarios no se ven afectadas.");
+
+        store.revoke(other);
+        assertNull(store.get(other));
+        assertEquals(0, store.revokeUser(8));
+    }
+}